@@ -22,4 +22,4 @@ javac -encoding UTF-8 -d "$OUT_DIR" @"$TMP_SOURCES"
 rm -f "$TMP_SOURCES"
 
 # Run
-exec java -cp "$OUT_DIR" "$MAIN_CLASS"
+exec java -cp "$OUT_DIR" "$MAIN_CLASS" "$@"
@@ -0,0 +1,25 @@
+#!/usr/bin/env sh
+set -eu
+
+# Compila e executa uma ferramenta de com.echorun.tools sem janela.
+# Uso: ./scripts/tool.sh HeadlessRunner --class=ROGUE --ticks=100000
+# HEADLESS=false usa o display (ex.: BlitBenchmark medindo blits para a tela).
+
+SRC_DIR="src/main/java"
+OUT_DIR="out"
+
+if [ "$#" -lt 1 ]; then
+  echo "Uso: $0 <Ferramenta> [argumentos...]" 1>&2
+  exit 2
+fi
+TOOL="$1"
+shift
+
+mkdir -p "$OUT_DIR"
+
+TMP_SOURCES="$(mktemp)"
+find "$SRC_DIR" -type f -name "*.java" > "$TMP_SOURCES"
+javac -encoding UTF-8 -d "$OUT_DIR" @"$TMP_SOURCES"
+rm -f "$TMP_SOURCES"
+
+exec java -Djava.awt.headless="${HEADLESS:-true}" -cp "$OUT_DIR" "com.echorun.tools.$TOOL" "$@"
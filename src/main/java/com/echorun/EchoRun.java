@@ -1,5 +1,6 @@
 package com.echorun;
 
+import com.echorun.game.GameOptions;
 import com.echorun.game.GamePanel;
 import com.echorun.game.PlayerClass;
 import com.echorun.ui.CharacterSelectPanel;
@@ -11,6 +12,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 
 public class EchoRun {
+    private final GameOptions options;
     private JFrame frame;
     private GraphicsDevice graphicsDevice;
 
@@ -21,10 +23,16 @@ public class EchoRun {
     private JComponent centerContent; // painel central atual
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(EchoRun::new);
+        GameOptions options = GameOptions.fromArgs(args);
+        SwingUtilities.invokeLater(() -> new EchoRun(options));
     }
 
     public EchoRun() {
+        this(new GameOptions());
+    }
+
+    public EchoRun(GameOptions options) {
+        this.options = options;
         setSystemLookAndFeel();
         initWindow();
     }
@@ -104,7 +112,7 @@ public class EchoRun {
     }
 
     private void startGameWithClass(PlayerClass playerClass) {
-        GamePanel game = new GamePanel(playerClass, this::goToMainMenu);
+        GamePanel game = new GamePanel(playerClass, options, this::goToMainMenu);
         setCenterContent(game);
     }
 
@@ -0,0 +1,72 @@
+package com.echorun.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Sparse set de um tipo de componente. Os dados ficam em vetores densos {@code [0, size)}
+ * mantidos pela subclasse (um vetor primitivo por campo); o mapeamento esparso leva do
+ * índice da entidade à posição densa. Remover troca com o último elemento (O(1)).
+ */
+public abstract class ComponentStore {
+    private int[] sparse = new int[0]; // índice da entidade -> posição densa + 1 (0 = ausente)
+    private int[] dense;               // posição densa -> entidade
+    private int size;
+
+    protected ComponentStore(int capacity) {
+        dense = new int[Math.max(1, capacity)];
+    }
+
+    public final int size() { return size; }
+    public final int capacity() { return dense.length; }
+    public final int entityAt(int i) { return dense[i]; }
+
+    /** Posição densa do componente da entidade, ou -1 se ela não o tiver. */
+    public final int indexOf(int entity) {
+        int index = EntityRegistry.index(entity);
+        if (index >= sparse.length) return -1;
+        int i = sparse[index] - 1;
+        return i >= 0 && dense[i] == entity ? i : -1;
+    }
+
+    public final boolean contains(int entity) {
+        return indexOf(entity) >= 0;
+    }
+
+    /** Reserva a posição densa para a entidade (a subclasse preenche os campos). */
+    protected final int insert(int entity) {
+        int existing = indexOf(entity);
+        if (existing >= 0) return existing;
+        if (size == dense.length) {
+            int n = dense.length * 2;
+            dense = Arrays.copyOf(dense, n);
+            growData(n);
+        }
+        int index = EntityRegistry.index(entity);
+        if (index >= sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.max(index + 1, sparse.length * 2));
+        }
+        dense[size] = entity;
+        sparse[index] = size + 1;
+        return size++;
+    }
+
+    public final boolean remove(int entity) {
+        int i = indexOf(entity);
+        if (i < 0) return false;
+        int last = --size;
+        if (i != last) {
+            moveData(last, i);
+            int moved = dense[last];
+            dense[i] = moved;
+            sparse[EntityRegistry.index(moved)] = i + 1;
+        }
+        sparse[EntityRegistry.index(entity)] = 0;
+        return true;
+    }
+
+    /** Copia os campos da posição {@code from} para {@code to}. */
+    protected abstract void moveData(int from, int to);
+
+    /** Redimensiona os vetores de campos para {@code capacity}. */
+    protected abstract void growData(int capacity);
+}
@@ -0,0 +1,72 @@
+package com.echorun.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Cria e destrói entidades. Uma entidade é um {@code int}: 24 bits de índice e 7 bits de
+ * geração, então ids de entidades já destruídas deixam de ser válidos quando o índice é
+ * reaproveitado. Destruir remove a entidade de todos os {@link ComponentStore} registrados.
+ */
+public final class EntityRegistry {
+    public static final int INDEX_BITS = 24;
+    public static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7F;
+
+    private int[] generations;
+    private int[] freeList;
+    private int freeCount;
+    private int nextIndex;
+    private int alive;
+
+    private ComponentStore[] stores = new ComponentStore[8];
+    private int storeCount;
+
+    public EntityRegistry(int capacity) {
+        generations = new int[capacity];
+        freeList = new int[capacity];
+    }
+
+    public static int index(int entity) {
+        return entity & INDEX_MASK;
+    }
+
+    /** Registra um armazenamento de componente para receber as remoções em {@link #destroy}. */
+    public <S extends ComponentStore> S register(S store) {
+        if (storeCount == stores.length) stores = Arrays.copyOf(stores, storeCount * 2);
+        stores[storeCount++] = store;
+        return store;
+    }
+
+    public int create() {
+        int index;
+        if (freeCount > 0) {
+            index = freeList[--freeCount];
+        } else {
+            index = nextIndex++;
+            if (index > INDEX_MASK) throw new IllegalStateException("Limite de entidades excedido");
+            if (index == generations.length) {
+                int n = generations.length * 2;
+                generations = Arrays.copyOf(generations, n);
+                freeList = Arrays.copyOf(freeList, n);
+            }
+        }
+        alive++;
+        return generations[index] << INDEX_BITS | index;
+    }
+
+    public boolean isAlive(int entity) {
+        int index = index(entity);
+        return index < nextIndex && generations[index] == entity >>> INDEX_BITS;
+    }
+
+    public void destroy(int entity) {
+        if (!isAlive(entity)) return;
+        for (int i = 0; i < storeCount; i++) stores[i].remove(entity);
+        int index = index(entity);
+        generations[index] = (generations[index] + 1) & GENERATION_MASK;
+        freeList[freeCount++] = index;
+        alive--;
+    }
+
+    public int aliveCount() { return alive; }
+}
@@ -0,0 +1,6 @@
+package com.echorun.ecs;
+
+/** Uma etapa da simulação que roda uma vez por tick sobre os componentes. */
+public interface EntitySystem {
+    void update();
+}
@@ -0,0 +1,67 @@
+package com.echorun.ecs;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Divide um laço sobre {@code [0, n)} em pedaços fork-join quando {@code n} passa do
+ * limiar configurado; abaixo dele (ou sem pool) roda direto no thread chamador. O corpo
+ * só pode escrever nos índices do próprio pedaço: criar ou destruir entidades fica para
+ * uma passada serial depois, o que mantém o resultado idêntico ao caminho serial.
+ */
+public final class ParallelFor {
+    public static final int DEFAULT_THRESHOLD = 8192;
+    // Pedaços menores que isso custam mais em agendamento do que economizam
+    private static final int MIN_CHUNK = 1024;
+
+    @FunctionalInterface
+    public interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private ForkJoinPool pool;
+    private int threshold = DEFAULT_THRESHOLD;
+
+    /** {@code pool} nulo desliga o modo paralelo. */
+    public void configure(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    public ForkJoinPool getPool() { return pool; }
+    public int getThreshold() { return threshold; }
+
+    public void run(int n, RangeBody body) {
+        ForkJoinPool p = pool;
+        if (p == null || n < threshold) {
+            body.run(0, n);
+            return;
+        }
+        // ~4 pedaços por thread para equilibrar a carga sem picotar demais
+        int grain = Math.max(MIN_CHUNK, (n + p.getParallelism() * 4 - 1) / (p.getParallelism() * 4));
+        p.invoke(new Range(body, 0, n, grain));
+    }
+
+    private static final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient RangeBody body;
+        private final int from, to, grain;
+
+        Range(RangeBody body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Range(body, from, mid, grain), new Range(body, mid, to, grain));
+        }
+    }
+}
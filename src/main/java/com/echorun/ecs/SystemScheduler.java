@@ -0,0 +1,41 @@
+package com.echorun.ecs;
+
+import java.util.Arrays;
+
+/** Roda os sistemas em ordem fixa e mede o tempo de cada um. */
+public final class SystemScheduler {
+    private String[] names = new String[8];
+    private EntitySystem[] systems = new EntitySystem[8];
+    private long[] lastNs = new long[8];
+    private double[] averageNs = new double[8];
+    private int count;
+
+    public void add(String name, EntitySystem system) {
+        if (count == systems.length) {
+            int n = count * 2;
+            names = Arrays.copyOf(names, n);
+            systems = Arrays.copyOf(systems, n);
+            lastNs = Arrays.copyOf(lastNs, n);
+            averageNs = Arrays.copyOf(averageNs, n);
+        }
+        names[count] = name;
+        systems[count] = system;
+        count++;
+    }
+
+    public void run() {
+        for (int i = 0; i < count; i++) {
+            long t0 = System.nanoTime();
+            systems[i].update();
+            long dt = System.nanoTime() - t0;
+            lastNs[i] = dt;
+            // média móvel exponencial (1/32)
+            averageNs[i] += (dt - averageNs[i]) / 32.0;
+        }
+    }
+
+    public int size() { return count; }
+    public String name(int i) { return names[i]; }
+    public long lastNanos(int i) { return lastNs[i]; }
+    public double averageNanos(int i) { return averageNs[i]; }
+}
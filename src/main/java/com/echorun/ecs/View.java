@@ -0,0 +1,49 @@
+package com.echorun.ecs;
+
+/**
+ * Junção de componentes: percorre o armazenamento condutor de trás para frente e pula
+ * entidades que não tenham todos os demais. Andar de trás para frente permite destruir a
+ * entidade corrente durante a iteração (a troca traz um elemento já visitado) e ignora
+ * entidades criadas durante a passagem. Reutilizável com {@link #reset()}, sem alocação.
+ */
+public final class View {
+    private final ComponentStore driver;
+    private final ComponentStore[] others;
+    private final int[] indices;
+    private int cursor;
+    private int entity;
+
+    public View(ComponentStore driver, ComponentStore... others) {
+        this.driver = driver;
+        this.others = others;
+        this.indices = new int[others.length];
+    }
+
+    public View reset() {
+        cursor = driver.size();
+        return this;
+    }
+
+    public boolean next() {
+        outer:
+        while (--cursor >= 0) {
+            int e = driver.entityAt(cursor);
+            for (int k = 0; k < others.length; k++) {
+                int i = others[k].indexOf(e);
+                if (i < 0) continue outer;
+                indices[k] = i;
+            }
+            entity = e;
+            return true;
+        }
+        return false;
+    }
+
+    public int entity() { return entity; }
+
+    /** Posição densa da entidade corrente no armazenamento condutor. */
+    public int driverIndex() { return cursor; }
+
+    /** Posição densa da entidade corrente no k-ésimo armazenamento extra. */
+    public int index(int k) { return indices[k]; }
+}
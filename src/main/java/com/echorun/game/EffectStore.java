@@ -0,0 +1,49 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+
+import java.util.Arrays;
+
+/**
+ * Efeitos visuais de curta duração. {@code angle}/{@code extent} significam, por tipo:
+ * golpe = ângulo central e alcance; feixe = ângulo e comprimento; impacto = não usados
+ * (a posição vem do Transform).
+ */
+final class EffectStore extends ComponentStore {
+    static final byte IMPACT = 0;
+    static final byte SWING = 1;
+    static final byte BEAM = 2;
+
+    byte[] type;
+    double[] angle;
+    float[] extent;
+    int[] argb;
+
+    EffectStore(int capacity) {
+        super(capacity);
+        type = new byte[capacity()];
+        angle = new double[capacity()];
+        extent = new float[capacity()];
+        argb = new int[capacity()];
+    }
+
+    int add(int entity, byte ptype, double pangle, float pextent, int pargb) {
+        int i = insert(entity);
+        type[i] = ptype; angle[i] = pangle; extent[i] = pextent; argb[i] = pargb;
+        return i;
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        type[to] = type[from]; angle[to] = angle[from];
+        extent[to] = extent[from]; argb[to] = argb[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        type = Arrays.copyOf(type, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        extent = Arrays.copyOf(extent, capacity);
+        argb = Arrays.copyOf(argb, capacity);
+    }
+}
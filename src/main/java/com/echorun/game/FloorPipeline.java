@@ -0,0 +1,239 @@
+package com.echorun.game;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Andares da masmorra, gerados (e opcionalmente pré-renderizados) num thread em segundo plano
+ * enquanto o andar atual é jogado. {@link #prefetch} pede os próximos andares; {@link #take}
+ * entrega um andar pronto na hora, ou o constrói no thread de quem chamou se ainda não deu
+ * tempo. Cada andar só depende da seed e da profundidade, então a simulação é a mesma com ou
+ * sem pré-geração.
+ *
+ * <p>No máximo {@code maxPending} andares ficam prontos (ou em construção) à espera; os fora
+ * da faixa pedida são cancelados. Como todo andar tem o mesmo tamanho, isso limita a memória
+ * a {@code maxPending} mapas mais o que o {@link Preparer} guardar para cada um. O pré-render
+ * é do pipeline até alguém pegá-lo com {@link #claim}; se for {@link AutoCloseable}, o de um
+ * andar descartado (cancelado depois de pronto, ou entregue e substituído sem ser pego) é
+ * fechado aqui.
+ *
+ * <p>{@link #prefetch}, {@link #take} e {@link #cancel} são chamados pelo thread da simulação.
+ */
+public final class FloorPipeline<R> implements AutoCloseable {
+    /** Trabalho extra por andar feito no thread de fundo (ex.: pré-render das imagens do mapa). */
+    public interface Preparer<R> {
+        R prepare(DungeonMap map, int spawnTileX, int spawnTileY);
+    }
+
+    /** Andar pronto: mapa, ponto de partida (tile; -1 se o mapa não tem piso) e pré-render. */
+    public static final class Floor<R> {
+        public final int depth;
+        public final DungeonMap map;
+        public final int spawnTileX, spawnTileY;
+        public final R prepared;
+        private boolean claimed; // guardado pelo pipeline
+
+        Floor(int depth, DungeonMap map, int spawnTileX, int spawnTileY, R prepared) {
+            this.depth = depth;
+            this.map = map;
+            this.spawnTileX = spawnTileX;
+            this.spawnTileY = spawnTileY;
+            this.prepared = prepared;
+        }
+    }
+
+    private final long seed;
+    private final int width, height, tileSize;
+    private final int maxPending;
+    private final Preparer<R> preparer;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<Integer, Future<Floor<R>>> pending = new HashMap<>();
+    // Último andar entregue, para o renderizador achar o pré-render do mapa atual
+    private volatile Floor<R> current;
+
+    private long hits, misses, cancelled;
+    private long lastTakeNs, worstTakeNs;
+
+    public FloorPipeline(long seed, int width, int height, int tileSize, int maxPending, Preparer<R> preparer) {
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.maxPending = Math.max(1, maxPending);
+        this.preparer = preparer;
+        // Um thread só, que some quando fica parado (motores descartados não seguram threads)
+        this.executor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "FloorGen");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public long getSeed() { return seed; }
+    public int getTileSize() { return tileSize; }
+
+    /** Seed do andar {@code depth}; o primeiro usa a seed da partida. */
+    public long floorSeed(int depth) {
+        if (depth == 0) return seed;
+        long z = seed + 0x9E3779B97F4A7C15L * depth;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Pede os andares {@code [fromDepth, fromDepth + maxPending)} em segundo plano e cancela
+     * os pendentes fora dessa faixa.
+     */
+    public synchronized void prefetch(int fromDepth) {
+        int toDepth = fromDepth + maxPending;
+        Iterator<Map.Entry<Integer, Future<Floor<R>>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<Floor<R>>> e = it.next();
+            int d = e.getKey();
+            if (d < fromDepth || d >= toDepth) {
+                discard(e.getValue());
+                it.remove();
+            }
+        }
+        for (int d = fromDepth; d < toDepth; d++) {
+            if (pending.containsKey(d)) continue;
+            int depth = d;
+            pending.put(d, executor.submit(() -> build(depth)));
+        }
+    }
+
+    /** Se o andar {@code depth} já foi pré-gerado e {@link #take} vai entregá-lo na hora. */
+    public synchronized boolean isReady(int depth) {
+        Future<Floor<R>> f = pending.get(depth);
+        return f != null && f.isDone();
+    }
+
+    /**
+     * Entrega o andar {@code depth}: na hora se a pré-geração já terminou; senão espera por
+     * ela (ou constrói aqui, se nem foi pedida).
+     */
+    public Floor<R> take(int depth) {
+        long t0 = System.nanoTime();
+        Future<Floor<R>> f;
+        synchronized (this) {
+            f = pending.remove(depth);
+            if (f != null && f.isDone()) hits++;
+            else misses++;
+        }
+        Floor<R> floor = f != null ? result(f) : null;
+        if (floor == null) floor = build(depth);
+        Floor<R> previous;
+        synchronized (this) {
+            previous = current;
+            current = floor;
+        }
+        if (previous != null) release(previous);
+        lastTakeNs = System.nanoTime() - t0;
+        worstTakeNs = Math.max(worstTakeNs, lastTakeNs);
+        return floor;
+    }
+
+    private Floor<R> result(Future<Floor<R>> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /** Constrói o andar: geração, grafo de salas, campo de distância, ponto de partida e pré-render. */
+    Floor<R> build(int depth) {
+        DungeonMap map = new DungeonGenerator(width, height, tileSize, floorSeed(depth))
+                .setStairs(true)
+                .generate();
+        // Já no thread de fundo, para não montar na troca de andar
+        map.getRoomGraph();
+        map.getDistanceField();
+        int[] spawn = new int[2];
+        if (!GameEngine.findSpawnTile(map, spawn)) spawn[0] = spawn[1] = -1;
+        R prepared = preparer != null ? preparer.prepare(map, spawn[0], spawn[1]) : null;
+        return new Floor<>(depth, map, spawn[0], spawn[1], prepared);
+    }
+
+    /** Último andar entregue por {@link #take} (pode ser lido de qualquer thread). */
+    public Floor<R> current() { return current; }
+
+    /**
+     * Pega o pré-render do último andar entregue, se for o de {@code map} e ninguém o pegou
+     * ainda; daí em diante fechá-lo é com quem pegou. Null se não houver (pode ser chamado de
+     * qualquer thread).
+     */
+    public synchronized R claim(DungeonMap map) {
+        Floor<R> floor = current;
+        if (floor == null || floor.map != map || floor.claimed) return null;
+        floor.claimed = true;
+        return floor.prepared;
+    }
+
+    // Fecha o pré-render de um andar que saiu do pipeline sem ser pego
+    private void release(Floor<R> floor) {
+        synchronized (this) {
+            if (floor.claimed) return;
+            floor.claimed = true;
+        }
+        if (floor.prepared instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) floor.prepared).close();
+            } catch (Exception e) {
+                // Chega aqui pelo thread da simulação (descer, prefetch): só avisa e segue
+                System.err.println("Falha ao descartar o pré-render do andar " + floor.depth + ": " + e);
+            }
+        }
+    }
+
+    // Cancela um andar pendente; se já estava pronto, o pré-render é descartado
+    private void discard(Future<Floor<R>> f) {
+        if (!f.cancel(true) && f.isDone()) {
+            Floor<R> floor = result(f);
+            if (floor != null) release(floor);
+        }
+        cancelled++;
+    }
+
+    /** Cancela os andares pendentes (ex.: ao sair da partida). */
+    public synchronized void cancel() {
+        for (Future<Floor<R>> f : pending.values()) discard(f);
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    public synchronized int getPendingCount() { return pending.size(); }
+    /** Memória aproximada dos mapas pendentes (sem contar o pré-render). */
+    public synchronized long getPendingBytes() {
+        long words = (width + 63) / 64;
+        return pending.size() * ((long) width * height + 2 * words * height * 8);
+    }
+    /** Andares entregues já prontos / que ainda tiveram de ser esperados ou construídos. */
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getCancelled() { return cancelled; }
+    public long getLastTakeNs() { return lastTakeNs; }
+    public long getWorstTakeNs() { return worstTakeNs; }
+}
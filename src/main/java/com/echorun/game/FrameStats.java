@@ -0,0 +1,47 @@
+package com.echorun.game;
+
+/**
+ * Janela deslizante dos intervalos entre quadros apresentados. Escrita por um único
+ * thread (quem apresenta o quadro); as leituras de outros threads são aproximadas.
+ */
+final class FrameStats {
+    private final long[] intervals;
+    private int index;
+    private int count;
+    private long lastNs;
+    private long sumNs;
+
+    FrameStats(int window) {
+        intervals = new long[window];
+    }
+
+    void framePresented(long nowNs) {
+        if (lastNs != 0L) {
+            long dt = nowNs - lastNs;
+            if (count == intervals.length) {
+                sumNs -= intervals[index];
+            } else {
+                count++;
+            }
+            intervals[index] = dt;
+            sumNs += dt;
+            index = (index + 1) % intervals.length;
+        }
+        lastNs = nowNs;
+    }
+
+    double averageMs() {
+        return count == 0 ? 0.0 : sumNs / (double) count / 1_000_000.0;
+    }
+
+    double worstMs() {
+        long worst = 0L;
+        for (int i = 0; i < count; i++) worst = Math.max(worst, intervals[i]);
+        return worst / 1_000_000.0;
+    }
+
+    double fps() {
+        double avg = averageMs();
+        return avg <= 0.0 ? 0.0 : 1000.0 / avg;
+    }
+}
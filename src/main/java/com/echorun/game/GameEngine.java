@@ -0,0 +1,665 @@
+package com.echorun.game;
+
+import com.echorun.ecs.EntitySystem;
+import com.echorun.ecs.ParallelFor;
+import com.echorun.ecs.SystemScheduler;
+import com.echorun.ecs.View;
+import com.echorun.map.DistanceField;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.RayHit;
+import com.echorun.map.StreamingDungeon;
+import com.echorun.map.Tile;
+import com.echorun.map.TileGrid;
+import com.echorun.nav.FlowField;
+import com.echorun.nav.HierarchicalPathfinder;
+import com.echorun.sprite.Direction;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simulação do jogo sem dependência de AWT/Swing: mapa, jogador, câmera e efeitos de combate.
+ * Avança em ticks fixos de {@link #TICK_DT}; quem a dirige (GamePanel em tempo real ou o
+ * HeadlessRunner em lote) decide quantos ticks rodar e quando.
+ *
+ * <p>Jogador, projéteis, efeitos e partículas são entidades de um {@link GameWorld}; cada
+ * tick roda os sistemas em ordem fixa pelo {@link SystemScheduler}, que mede cada um.
+ */
+public class GameEngine {
+    // Simulação em passo fixo: velocidades são "pixels por tick"
+    public static final int TICK_RATE = 60;
+    public static final double TICK_DT = 1.0 / TICK_RATE;
+    public static final long TICK_NS = 1_000_000_000L / TICK_RATE;
+    // Orçamento de partículas (struct-of-arrays, sem alocação em regime)
+    public static final int PARTICLE_BUDGET = 1 << 17;
+    // Tamanho de cada andar
+    public static final int FLOOR_WIDTH = 100;
+    public static final int FLOOR_HEIGHT = 70;
+    public static final int TILE_SIZE = 24;
+
+    private final PlayerClass playerClass;
+    private final Random rng;
+
+    // Mundo / mapa: andares (floors != null), mapa fixo ou sem fim (streaming != null)
+    private TileGrid map;
+    private final StreamingDungeon streaming;
+    private final FloorPipeline<?> floors;
+    private int depth;
+    private boolean descendPending;
+    private final int tileSize;
+    // Campo de fluxo até o jogador, para perseguidores; null no mundo sem fim
+    private final FlowField flow;
+    // Caminhos longos pelo grafo de salas (cache por andar); null no mundo sem fim
+    private final HierarchicalPathfinder paths;
+    // Distância até a parede do andar atual; null no mundo sem fim
+    private DistanceField walls;
+
+    /** Viewport (em pixels) até o primeiro {@link #setViewport}. */
+    public static final int DEFAULT_VIEW_WIDTH = 1280, DEFAULT_VIEW_HEIGHT = 720;
+
+    // Viewport (em pixels) usado para enquadrar a câmera
+    private int viewWidth = DEFAULT_VIEW_WIDTH;
+    private int viewHeight = DEFAULT_VIEW_HEIGHT;
+
+    // Entidades e sistemas (ECS); o jogador também é uma entidade
+    private final GameWorld world = new GameWorld(PARTICLE_BUDGET);
+    private final SystemScheduler systems = new SystemScheduler();
+    private final ParallelFor parallel = new ParallelFor();
+    private final int player;
+    private final int playerSize = 18;
+
+    // Câmera
+    private double camX = 0;
+    private double camY = 0;
+    private double prevCamX = 0;
+    private double prevCamY = 0;
+
+    // Ataque (recarga medida em ticks para ser determinística)
+    private long tick = 0L;
+    private long lastAttackTick = Long.MIN_VALUE / 2;
+    private final RayHit beamHit = new RayHit();
+    private static final byte FLOOR_CODE = Tile.FLOOR.code();
+    private static final byte STAIRS_CODE = Tile.STAIRS.code();
+    // Busca do ponto de partida em volta da origem, no mundo sem fim (em tiles)
+    private static final int ENDLESS_SPAWN_RADIUS = 64;
+    private static final double HALF_DIAGONAL = Math.sqrt(0.5);
+
+    // Junções reutilizadas pelo snapshot (sem alocação por quadro)
+    private final View projectileView = new View(world.projectiles, world.transforms);
+    private final View effectView = new View(world.effects, world.lifetimes);
+
+    // Latência entre o evento de entrada e o tick que o aplicou
+    private long inputLatencyAvgNs;
+    private long inputLatencyMaxNs;
+
+    public GameEngine(PlayerClass playerClass, long seed) {
+        this(playerClass, new FloorPipeline<>(seed, FLOOR_WIDTH, FLOOR_HEIGHT, TILE_SIZE, 1, null));
+    }
+
+    /**
+     * Partida em andares: a escada de cada andar desce para o próximo, que o {@code floors}
+     * já vai gerando em segundo plano. Chame {@link #close()} ao descartar o motor.
+     */
+    public GameEngine(PlayerClass playerClass, FloorPipeline<?> floors) {
+        this(playerClass, floors.take(0).map, null, floors, floors.getSeed());
+        floors.prefetch(1);
+    }
+
+    /** Um mapa só, sem escadas para outros andares. */
+    public GameEngine(PlayerClass playerClass, DungeonMap map, long seed) {
+        this(playerClass, map, null, null, seed);
+    }
+
+    /**
+     * Modo sem fim: o mundo é gerado em pedaços em volta do jogador, em segundo plano.
+     * Chame {@link #close()} ao descartar o motor para encerrar o gerador.
+     */
+    public static GameEngine endless(PlayerClass playerClass, long seed) {
+        StreamingDungeon world = new StreamingDungeon(TILE_SIZE, seed);
+        // Pedaços em volta da origem, onde o jogador começa
+        world.update(0, 0);
+        return new GameEngine(playerClass, world, world, null, seed);
+    }
+
+    private GameEngine(PlayerClass playerClass, TileGrid map, StreamingDungeon streaming, FloorPipeline<?> floors, long seed) {
+        this.playerClass = playerClass;
+        this.map = map;
+        this.streaming = streaming;
+        this.floors = floors;
+        this.tileSize = map.getTileSize();
+        this.rng = new Random(seed);
+        this.flow = map instanceof DungeonMap ? new FlowField((DungeonMap) map) : null;
+        this.paths = map instanceof DungeonMap ? new HierarchicalPathfinder((DungeonMap) map) : null;
+        this.walls = map instanceof DungeonMap ? ((DungeonMap) map).getDistanceField() : null;
+
+        player = world.registry.create();
+        world.players.add(player, playerSize, playerClass.getBaseHp());
+        world.motions.add(player, 0, 0);
+        world.transforms.add(player, 100, 100);
+        spawnPlayer();
+
+        // Ordem de execução por tick
+        if (streaming != null) systems.add("streaming", this::updateStreaming);
+        systems.add("player", new PlayerMovement());
+        if (flow != null) systems.add("navigation", this::updateFlowField);
+        systems.add("camera", this::updateCamera);
+        systems.add("projectiles", new ProjectileMotion());
+        systems.add("effects", new EffectLifetime());
+        systems.add("particles", new ParticleSystem(world.particles, parallel));
+
+        updateCamera();
+        prevCamX = camX;
+        prevCamY = camY;
+    }
+
+    public PlayerClass getPlayerClass() { return playerClass; }
+    public TileGrid getMap() { return map; }
+    /** Gerador do mundo sem fim; null com mapa fixo. */
+    public StreamingDungeon getStreaming() { return streaming; }
+    /** Andares pré-gerados; null com mapa fixo ou no mundo sem fim. */
+    public FloorPipeline<?> getFloors() { return floors; }
+    /** Campo de fluxo até o tile do jogador (atualizado a cada tick); null no mundo sem fim. */
+    public FlowField getFlowField() { return flow; }
+    /** Busca de caminhos entre dois tiles quaisquer do andar atual; null no mundo sem fim. */
+    public HierarchicalPathfinder getPathfinder() { return paths; }
+    /** Andar atual (0 = o primeiro). */
+    public int getDepth() { return depth; }
+    public int getPlayerSize() { return playerSize; }
+    public long getTick() { return tick; }
+    public double getPlayerX() { return world.transforms.x[world.transforms.indexOf(player)]; }
+    public double getPlayerY() { return world.transforms.y[world.transforms.indexOf(player)]; }
+    public int getProjectileCount() { return world.projectiles.size(); }
+    public int getParticleCount() { return world.particles.size(); }
+    public int getEffectCount() { return world.effects.size(); }
+    public int getEntityCount() { return world.registry.aliveCount(); }
+
+    /**
+     * Liga o modo paralelo: integração de partículas e projéteis dividida no {@code pool}
+     * quando houver pelo menos {@code threshold} entidades. {@code null} volta ao serial.
+     * O resultado é o mesmo do caminho serial, tick a tick.
+     */
+    public void setParallel(ForkJoinPool pool, int threshold) {
+        parallel.configure(pool, threshold);
+    }
+
+    /** Libera recursos do mapa (o gerador em segundo plano do modo sem fim). */
+    public void close() {
+        if (streaming != null) streaming.close();
+        if (floors != null) floors.close();
+    }
+
+    /** Resumo do estado da simulação (posições e contagens), para comparar execuções. */
+    public long checksum() {
+        long h = tick;
+        TransformStore tr = world.transforms;
+        for (int i = 0, n = tr.size(); i < n; i++) {
+            h = h * 31 + Double.doubleToLongBits(tr.x[i]);
+            h = h * 31 + Double.doubleToLongBits(tr.y[i]);
+        }
+        h = h * 31 + world.particles.checksum();
+        h = h * 31 + depth;
+        return h * 31 + world.registry.aliveCount();
+    }
+
+    /** Sistemas na ordem de execução, com o tempo gasto por cada um. */
+    public SystemScheduler getSystems() { return systems; }
+
+    /** Tamanho da área visível; só afeta o enquadramento da câmera. */
+    public void setViewport(int width, int height) {
+        this.viewWidth = Math.max(1, width);
+        this.viewHeight = Math.max(1, height);
+    }
+
+    // ========= Entrada =========
+
+    /**
+     * Aplica, em ordem, todos os comandos pendentes na fila. Deve ser chamado no início do
+     * tick, no thread da simulação; a mira dos ataques é lida só agora (o mais tarde possível).
+     */
+    public void processInput(InputQueue queue, long nowNs) {
+        Direction[] dirs = Direction.values();
+        for (int n = queue.available(); n > 0; n--) {
+            int type = queue.peekType();
+            int arg = queue.peekArg();
+            long latency = nowNs - queue.peekTimestamp();
+            queue.advance();
+
+            switch (type) {
+                case InputQueue.PRESS: press(dirs[arg]); break;
+                case InputQueue.RELEASE: release(dirs[arg]); break;
+                case InputQueue.ATTACK: attackScreen(queue.aimX(), queue.aimY()); break;
+            }
+            // média móvel exponencial (1/16) e pico
+            inputLatencyAvgNs += (latency - inputLatencyAvgNs) >> 4;
+            if (latency > inputLatencyMaxNs) inputLatencyMaxNs = latency;
+        }
+    }
+
+    public long getInputLatencyAvgNs() { return inputLatencyAvgNs; }
+    public long getInputLatencyMaxNs() { return inputLatencyMaxNs; }
+
+    /** Início de movimento numa direção (tecla pressionada). */
+    public void press(Direction dir) {
+        MotionStore m = world.motions;
+        int i = m.indexOf(player);
+        double speed = playerClass.getMoveSpeed();
+        switch (dir) {
+            case UP: m.vy[i] = -speed; break;
+            case DOWN: m.vy[i] = speed; break;
+            case LEFT: m.vx[i] = -speed; break;
+            case RIGHT: m.vx[i] = speed; break;
+        }
+    }
+
+    /** Fim de movimento numa direção (tecla solta). */
+    public void release(Direction dir) {
+        MotionStore m = world.motions;
+        int i = m.indexOf(player);
+        switch (dir) {
+            case UP: if (m.vy[i] < 0) m.vy[i] = 0; break;
+            case DOWN: if (m.vy[i] > 0) m.vy[i] = 0; break;
+            case LEFT: if (m.vx[i] < 0) m.vx[i] = 0; break;
+            case RIGHT: if (m.vx[i] > 0) m.vx[i] = 0; break;
+        }
+    }
+
+    /** Ataca na direção de um ponto em coordenadas de tela (relativas à câmera). */
+    public boolean attackScreen(double screenX, double screenY) {
+        double px = getPlayerX() + playerSize/2.0;
+        double py = getPlayerY() + playerSize/2.0;
+        return attack(Math.atan2(camY + screenY - py, camX + screenX - px));
+    }
+
+    /** Ataca no ângulo dado (radianos); retorna false se ainda em recarga. */
+    public boolean attack(double ang) {
+        if (tick - lastAttackTick < attackCooldownTicks()) return false;
+        lastAttackTick = tick;
+
+        // Ajusta facing ao quadrante do mouse
+        double a = Math.toDegrees(ang);
+        Direction facing;
+        // Corrige mapeamento para "cima" e "baixo" conforme esperado
+        if (a >= -45 && a < 45) facing = Direction.RIGHT;
+        else if (a >= 45 && a < 135) facing = Direction.UP;    // antes estava DOWN
+        else if (a >= -135 && a < -45) facing = Direction.DOWN; // antes estava UP
+        else facing = Direction.LEFT;
+        world.players.facing[world.players.indexOf(player)] = facing;
+
+        switch (playerClass) {
+            case WARRIOR:
+                spawnSwordSwing(ang);
+                break;
+            case MAGE:
+                spawnBeam(ang);
+                break;
+            case ROGUE:
+                spawnProjectile(ang, 7.5, 160, 0xFFD2DCDC, 3, ProjectileKind.DAGGER);
+                break;
+            case RANGER:
+                spawnProjectile(ang, 7.0, 220, 0xFFF0D2A0, 4, ProjectileKind.ARROW);
+                break;
+            case CLERIC:
+                spawnProjectile(ang, 5.5, 200, 0xFFFFEB96, 6, ProjectileKind.ORB);
+                break;
+        }
+        return true;
+    }
+
+    private int attackCooldownTicks() {
+        long ms;
+        switch (playerClass) {
+            case WARRIOR: ms = 400; break;
+            case MAGE: ms = 600; break;
+            case ROGUE: ms = 250; break;
+            case RANGER: ms = 500; break;
+            case CLERIC: ms = 700; break;
+            default: ms = 500; break;
+        }
+        return (int) ((ms * TICK_RATE + 999) / 1000);
+    }
+
+    // ========= Simulação =========
+
+    /** Avança a simulação em exatamente um tick. */
+    public void tick() {
+        tick++;
+        systems.run();
+        // Troca de andar entre ticks, com todos os sistemas já rodados
+        if (descendPending) descend();
+    }
+
+    /**
+     * Desce para o próximo andar: troca o mapa pelo pré-gerado, descarta projéteis, efeitos e
+     * partículas e põe o jogador no ponto de partida. Sem andares, não faz nada.
+     */
+    public void descend() {
+        descendPending = false;
+        if (floors == null) return;
+        FloorPipeline.Floor<?> next = floors.take(depth + 1);
+        depth = next.depth;
+        map = next.map;
+        flow.setMap(next.map);
+        paths.setMap(next.map);
+        walls = next.map.getDistanceField();
+        world.clearTransient();
+        placePlayer(next.spawnTileX >= 0, next.spawnTileX, next.spawnTileY);
+        // Sem interpolar a câmera de um andar para o outro
+        updateCamera();
+        prevCamX = camX;
+        prevCamY = camY;
+        floors.prefetch(depth + 1);
+    }
+
+    // ========= Sistemas =========
+
+    /** Refaz o campo de fluxo quando o centro do jogador muda de tile. */
+    private void updateFlowField() {
+        TransformStore tr = world.transforms;
+        int t = tr.indexOf(player);
+        double half = playerSize / 2.0;
+        flow.update((int) Math.floor((tr.x[t] + half) / tileSize), (int) Math.floor((tr.y[t] + half) / tileSize));
+    }
+
+    /** Direção, animação e movimento com colisão por tiles (separado por eixo). */
+    private final class PlayerMovement implements EntitySystem {
+        private final View view = new View(world.players, world.transforms, world.motions);
+
+        @Override
+        public void update() {
+            PlayerStore pl = world.players;
+            TransformStore tr = world.transforms;
+            MotionStore mo = world.motions;
+            for (view.reset(); view.next(); ) {
+                int p = view.driverIndex(), t = view.index(0), m = view.index(1);
+                double vx = mo.vx[m], vy = mo.vy[m];
+                // Atualiza direção e animação com base no movimento (padrão)
+                if (vx > 0) pl.facing[p] = Direction.RIGHT;
+                else if (vx < 0) pl.facing[p] = Direction.LEFT;
+                else if (vy > 0) pl.facing[p] = Direction.DOWN;
+                else if (vy < 0) pl.facing[p] = Direction.UP;
+                pl.animTime[p] += TICK_DT;
+
+                tr.prevX[t] = tr.x[t];
+                tr.prevY[t] = tr.y[t];
+
+                int size = pl.size[p];
+                double nextX = tr.x[t] + vx;
+                if (!collides(nextX, tr.y[t], size)) tr.x[t] = nextX;
+
+                double nextY = tr.y[t] + vy;
+                if (!collides(tr.x[t], nextY, size)) tr.y[t] = nextY;
+
+                // Escada sob o centro do jogador: desce no fim do tick
+                if (floors != null) {
+                    int cx = (int) Math.floor((tr.x[t] + size / 2.0) / tileSize);
+                    int cy = (int) Math.floor((tr.y[t] + size / 2.0) / tileSize);
+                    if (map.contains(cx, cy) && map.getCode(cx, cy) == STAIRS_CODE) descendPending = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move os projéteis, solta a trilha e troca por um impacto ao bater na parede. Em duas
+     * passadas: movimento e teste de parede (paralelizável, cada índice só escreve em si
+     * mesmo) e depois, em série e em ordem fixa, trilhas, impactos e remoções. O teste de
+     * parede varre o segmento inteiro do tick com um raio, então nenhum projétil atravessa
+     * parede fina ou quina, por mais rápido que seja.
+     */
+    private final class ProjectileMotion implements EntitySystem {
+        private static final byte EXPIRED = 1;
+        private static final byte HIT_WALL = 2;
+
+        private final ParallelFor.RangeBody moveBody = this::move;
+        private byte[] outcome = new byte[64];
+        // Um raio por thread (o do loop e os do pool), criado no primeiro pedaço e reaproveitado
+        private final ThreadLocal<RayHit> hits = ThreadLocal.withInitial(RayHit::new);
+
+        @Override
+        public void update() {
+            ProjectileStore pr = world.projectiles;
+            int n = pr.size();
+            if (outcome.length < n) outcome = new byte[Math.max(n, outcome.length * 2)];
+            parallel.run(n, moveBody);
+
+            TransformStore tr = world.transforms;
+            MotionStore mo = world.motions;
+            for (int i = n - 1; i >= 0; i--) {
+                int e = pr.entityAt(i);
+                int t = tr.indexOf(e), m = mo.indexOf(e);
+                if (t < 0 || m < 0) continue;
+                // trilha
+                spawnTrail(pr.kind[i], pr.argb[i], tr.x[t], tr.y[t], mo.vx[m], mo.vy[m]);
+                // colisão com parede
+                if ((outcome[i] & HIT_WALL) != 0) spawnImpact(tr.x[t], tr.y[t], pr.argb[i]);
+                if (outcome[i] != 0) world.registry.destroy(e);
+            }
+        }
+
+        private void move(int from, int to) {
+            ProjectileStore pr = world.projectiles;
+            TransformStore tr = world.transforms;
+            MotionStore mo = world.motions;
+            LifetimeStore li = world.lifetimes;
+            RayHit hit = hits.get();
+            for (int i = from; i < to; i++) {
+                int e = pr.entityAt(i);
+                int t = tr.indexOf(e), m = mo.indexOf(e), l = li.indexOf(e);
+                if (t < 0 || m < 0 || l < 0) { outcome[i] = 0; continue; }
+                double vx = mo.vx[m], vy = mo.vy[m];
+                tr.prevX[t] = tr.x[t];
+                tr.prevY[t] = tr.y[t];
+                byte r = --li.life[l] <= 0 ? EXPIRED : 0;
+                if (castRay(tr.x[t], tr.y[t], vx, vy, Math.sqrt(vx * vx + vy * vy), hit)) {
+                    // para na face da parede
+                    tr.x[t] = hit.x;
+                    tr.y[t] = hit.y;
+                    r |= HIT_WALL;
+                } else {
+                    tr.x[t] += vx;
+                    tr.y[t] += vy;
+                }
+                outcome[i] = r;
+            }
+        }
+    }
+
+    /** Conta a vida de golpes, feixes e impactos. */
+    private final class EffectLifetime implements EntitySystem {
+        private final View view = new View(world.effects, world.lifetimes);
+
+        @Override
+        public void update() {
+            LifetimeStore li = world.lifetimes;
+            for (view.reset(); view.next(); ) {
+                if (--li.life[view.index(0)] <= 0) world.registry.destroy(view.entity());
+            }
+        }
+    }
+
+    private void updateCamera() {
+        prevCamX = camX;
+        prevCamY = camY;
+        // Centraliza no jogador
+        camX = getPlayerX() - viewWidth / 2.0 + playerSize / 2.0;
+        camY = getPlayerY() - viewHeight / 2.0 + playerSize / 2.0;
+
+        // Limitar câmera aos limites do mapa (o mundo sem fim não tem)
+        if (!map.isBounded()) return;
+        int worldW = map.getWidth() * tileSize;
+        int worldH = map.getHeight() * tileSize;
+        camX = Math.max(0, Math.min(worldW - viewWidth, camX));
+        camY = Math.max(0, Math.min(worldH - viewHeight, camY));
+    }
+
+    private void updateStreaming() {
+        // Centro do jogador, em tiles; os pedaços em volta ficam prontos antes de ele se mover
+        int tx = (int) Math.floor((getPlayerX() + playerSize / 2.0) / tileSize);
+        int ty = (int) Math.floor((getPlayerY() + playerSize / 2.0) / tileSize);
+        streaming.update(tx, ty);
+    }
+
+    private boolean collides(double x, double y, int size) {
+        // Longe das paredes o campo de distância responde sem olhar tiles
+        if (walls != null && walls.isCircleClear(x + size / 2.0, y + size / 2.0, size * HALF_DIAGONAL)) return false;
+        int left = (int)Math.floor(x / tileSize);
+        int right = (int)Math.floor((x + size - 1) / tileSize);
+        int top = (int)Math.floor(y / tileSize);
+        int bottom = (int)Math.floor((y + size - 1) / tileSize);
+        // Fora do mapa e paredes bloqueiam (consulta por bitset, linha a linha)
+        return map.anySolid(left, top, right, bottom);
+    }
+
+    private void spawnPlayer() {
+        int[] spawn = new int[2];
+        placePlayer(findSpawnTile(map, spawn), spawn[0], spawn[1]);
+    }
+
+    /** Põe o jogador no centro do tile; sem tile ({@code found} false), perto do canto do mapa. */
+    private void placePlayer(boolean found, int tx, int ty) {
+        TransformStore tr = world.transforms;
+        int t = tr.indexOf(player);
+        double playerX = 2 * tileSize;
+        double playerY = 2 * tileSize;
+        if (found) {
+            playerX = tx * tileSize + (tileSize - playerSize) / 2.0;
+            playerY = ty * tileSize + (tileSize - playerSize) / 2.0;
+        }
+        tr.x[t] = tr.prevX[t] = playerX;
+        tr.y[t] = tr.prevY[t] = playerY;
+    }
+
+    /** Raio contra as paredes; com campo de distância, cruza as áreas abertas em saltos. */
+    private boolean castRay(double ox, double oy, double dx, double dy, double maxDistance, RayHit out) {
+        return walls != null ? walls.raycast(ox, oy, dx, dy, maxDistance, out) : map.raycast(ox, oy, dx, dy, maxDistance, out);
+    }
+
+    /**
+     * Escolhe a célula de piso do ponto de partida e a escreve em {@code out}; false se não
+     * houver. Num {@link DungeonMap}, {@link DistanceField#findSpawnTile} (o piso com folga mais
+     * perto do centro, o mesmo que o {@code SeedScanner} usa); no mundo sem fim, o primeiro piso
+     * numa espiral a partir da origem. Só lê o mapa, então serve também para o
+     * {@link FloorPipeline} preparar andares em segundo plano.
+     */
+    static boolean findSpawnTile(TileGrid map, int[] out) {
+        if (map instanceof DungeonMap) return ((DungeonMap) map).getDistanceField().findSpawnTile(out);
+        boolean bounded = map.isBounded();
+        int cx = bounded ? map.getWidth() / 2 : 0;
+        int cy = bounded ? map.getHeight() / 2 : 0;
+        int radius = bounded ? Math.max(map.getWidth(), map.getHeight()) : ENDLESS_SPAWN_RADIUS;
+        for (int r = 0; r < radius; r++) {
+            for (int dy = -r; dy <= r; dy++) {
+                for (int dx = -r; dx <= r; dx++) {
+                    int tx = cx + dx; int ty = cy + dy;
+                    if (!map.contains(tx, ty)) continue;
+                    if (map.getCode(tx, ty) == FLOOR_CODE) {
+                        out[0] = tx;
+                        out[1] = ty;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void spawnProjectile(double ang, double speed, int lifeFrames, int argb, int radius, ProjectileKind kind) {
+        double px = getPlayerX() + playerSize/2.0;
+        double py = getPlayerY() + playerSize/2.0;
+        double vx = Math.cos(ang) * speed;
+        double vy = Math.sin(ang) * speed;
+        world.spawnProjectile(px, py, vx, vy, lifeFrames, argb, radius, ang, kind);
+    }
+
+    private void spawnSwordSwing(double ang) {
+        world.spawnSwing(ang, 14, playerSize * 1.6f);
+    }
+
+    private void spawnBeam(double ang) {
+        world.spawnBeam(ang, 10, beamLength(ang)); // rajada curta e intensa
+    }
+
+    private double beamLength(double ang) {
+        // Até a parede ou o alcance, o que vier antes
+        double px = getPlayerX() + playerSize/2.0;
+        double py = getPlayerY() + playerSize/2.0;
+        castRay(px, py, Math.cos(ang), Math.sin(ang), tileSize * 10.0, beamHit);
+        return beamHit.distance;
+    }
+
+    private void spawnTrail(ProjectileKind kind, int argb, double x, double y, double vx, double vy) {
+        // Partícula pequena com cor ajustada por tipo
+        int c = argb;
+        float size = 3f;
+        switch (kind) {
+            case ARROW: c = 0xFFC8C8D2; size = 2.5f; break;
+            case DAGGER: c = 0xFFDCE6EB; size = 2.2f; break;
+            case ORB: size = 3.2f; break;
+        }
+        // spawn atrás do projétil
+        double tx = x - vx * 0.4;
+        double ty = y - vy * 0.4;
+        world.particles.spawn(tx, ty, -vx*0.05, -vy*0.05, size, 16, c);
+    }
+
+    private void spawnImpact(double x, double y, int argb) {
+        // anel
+        world.spawnImpact(x, y, 14, argb);
+        // estilhaços
+        int shards = 6;
+        for (int i = 0; i < shards; i++) {
+            double ang = (Math.PI * 2.0 / shards) * i;
+            double sp = 2.0 + rng.nextDouble() * 2.5;
+            world.particles.spawn(x, y, Math.cos(ang)*sp, Math.sin(ang)*sp, 2.8f, 18, argb);
+        }
+    }
+
+    // ========= Snapshot =========
+
+    /** Copia o estado visível para o snapshot do próximo quadro. */
+    void writeSnapshot(RenderSnapshot snap) {
+        snap.beginFrame();
+        snap.map = map;
+        snap.depth = depth;
+        PlayerStore pl = world.players;
+        TransformStore tr = world.transforms;
+        int p = pl.indexOf(player);
+        int t = tr.indexOf(player);
+        snap.playerX = tr.x[t]; snap.playerY = tr.y[t];
+        snap.prevPlayerX = tr.prevX[t]; snap.prevPlayerY = tr.prevY[t];
+        snap.camX = camX; snap.camY = camY;
+        snap.prevCamX = prevCamX; snap.prevCamY = prevCamY;
+        snap.facing = pl.facing[p];
+        snap.animTime = pl.animTime[p];
+        snap.hp = pl.hp[p];
+        snap.inputLatencyNs = inputLatencyAvgNs;
+
+        ProjectileStore pr = world.projectiles;
+        for (projectileView.reset(); projectileView.next(); ) {
+            int i = projectileView.driverIndex(), j = projectileView.index(0);
+            snap.addProjectile(tr.x[j], tr.y[j], tr.prevX[j], tr.prevY[j], pr.ang[i], pr.radius[i], pr.argb[i], pr.kind[i]);
+        }
+        snap.copyParticles(world.particles);
+
+        EffectStore fx = world.effects;
+        LifetimeStore li = world.lifetimes;
+        for (effectView.reset(); effectView.next(); ) {
+            int i = effectView.driverIndex(), l = effectView.index(0);
+            switch (fx.type[i]) {
+                case EffectStore.IMPACT: {
+                    int j = tr.indexOf(effectView.entity());
+                    snap.addImpact(tr.x[j], tr.y[j], li.progress(l), fx.argb[i]);
+                    break;
+                }
+                case EffectStore.SWING: {
+                    double sweep = Math.toRadians(120); // arco amplo
+                    snap.addSwing(fx.angle[i] - sweep/2 + sweep * li.progress(l), fx.extent[i]);
+                    break;
+                }
+                case EffectStore.BEAM:
+                    snap.addBeam(fx.angle[i], fx.extent[i], 1f - li.progress(l));
+                    break;
+            }
+        }
+    }
+}
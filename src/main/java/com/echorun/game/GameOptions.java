@@ -0,0 +1,62 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ParallelFor;
+
+/**
+ * Opções de inicialização do jogo, lidas da linha de comando
+ * (ex.: {@code --render=active --fps=144 --threads=4 --endless}).
+ */
+public class GameOptions {
+    private RenderMode renderMode = RenderMode.PASSIVE;
+    private int targetFps = -1; // -1 = taxa de atualização da tela
+    private int threads = 1; // 1 = atualização serial
+    private int parallelThreshold = ParallelFor.DEFAULT_THRESHOLD;
+    private boolean endless = false;
+
+    public static GameOptions fromArgs(String[] args) {
+        GameOptions o = new GameOptions();
+        for (String arg : args) {
+            if (arg.startsWith("--render=")) {
+                String v = arg.substring("--render=".length());
+                o.renderMode = "active".equalsIgnoreCase(v) ? RenderMode.ACTIVE : RenderMode.PASSIVE;
+            } else if (arg.startsWith("--fps=")) {
+                try {
+                    o.targetFps = Math.max(0, Integer.parseInt(arg.substring("--fps=".length())));
+                } catch (NumberFormatException ignored) {
+                }
+            } else if (arg.startsWith("--threads=")) {
+                try {
+                    o.threads = Math.max(1, Integer.parseInt(arg.substring("--threads=".length())));
+                } catch (NumberFormatException ignored) {
+                }
+            } else if (arg.startsWith("--parallel-threshold=")) {
+                try {
+                    o.parallelThreshold = Math.max(1, Integer.parseInt(arg.substring("--parallel-threshold=".length())));
+                } catch (NumberFormatException ignored) {
+                }
+            } else if (arg.equals("--endless")) {
+                o.endless = true;
+            }
+        }
+        return o;
+    }
+
+    public RenderMode getRenderMode() { return renderMode; }
+    public GameOptions setRenderMode(RenderMode renderMode) { this.renderMode = renderMode; return this; }
+
+    /** Quadros por segundo desejados; 0 = sem limite, negativo = taxa da tela. */
+    public int getTargetFps() { return targetFps; }
+    public GameOptions setTargetFps(int targetFps) { this.targetFps = targetFps; return this; }
+
+    /** Threads da atualização paralela de partículas e projéteis; 1 = serial. */
+    public int getThreads() { return threads; }
+    public GameOptions setThreads(int threads) { this.threads = Math.max(1, threads); return this; }
+
+    /** Quantidade mínima de entidades para dividir a atualização entre threads. */
+    public int getParallelThreshold() { return parallelThreshold; }
+    public GameOptions setParallelThreshold(int parallelThreshold) { this.parallelThreshold = Math.max(1, parallelThreshold); return this; }
+
+    /** Masmorra sem fim, gerada em pedaços em volta do jogador. */
+    public boolean isEndless() { return endless; }
+    public GameOptions setEndless(boolean endless) { this.endless = endless; return this; }
+}
@@ -1,93 +1,121 @@
 package com.echorun.game;
 
-import com.echorun.map.DungeonGenerator;
 import com.echorun.map.DungeonMap;
-import com.echorun.map.Tile;
+import com.echorun.render.MapChunkCache;
+import com.echorun.sprite.Direction;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.awt.event.KeyEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
-import java.awt.image.BufferedImage;
-import java.awt.geom.AffineTransform;
-import com.echorun.sprite.*;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Casca Swing do jogo: dirige o {@link GameEngine} em tempo real com passo fixo,
+ * traduz teclado/mouse e apresenta os quadros pelo {@link GameRenderer}.
+ */
 public class GamePanel extends JPanel implements Runnable {
-    private final PlayerClass playerClass;
+    // Limite de recuperação após travadas (GC, EDT ocupada): no máximo N ticks por quadro
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    private static final long TICK_NS = GameEngine.TICK_NS;
+    private static final long MAX_FRAME_NS = TICK_NS * MAX_TICKS_PER_FRAME;
+
     private final Runnable onExitToMenu;
+    private final GameEngine engine;
+    private final GameRenderer renderer;
 
     private Thread loopThread;
     private volatile boolean running = false;
-
-    // Mundo / mapa
-    private DungeonMap map;
-    private final int tileSize = 24;
-
-    // Jogador
-    private double playerX = 100;
-    private double playerY = 100;
-    private double velX = 0;
-    private double velY = 0;
-    private int playerSize = 18;
-    private int hp;
-
-    // Câmera
-    private double camX = 0;
-    private double camY = 0;
-
-    // Sprite e direção
-    private CharacterSprite sprite;
-    private Direction facing = Direction.DOWN;
-    private double animTime = 0.0;
-
-    private final Color bgColor = new Color(12, 12, 16);
-    private final Color playerColor = new Color(80, 200, 160);
-
-    // Render buffers
-    private BufferedImage mapImage;        // pré-render do mapa (mundo inteiro)
-    private BufferedImage vignetteImage;   // vinheta do tamanho do painel
-
-    // Mouse e ataque
-    private int mouseX = 0;
-    private int mouseY = 0;
-    private long lastAttackNs = 0L;
-    private final List<Projectile> projectiles = new ArrayList<>();
-    private final List<SwordSwing> slashEffects = new ArrayList<>();
-    private final List<PowerBeam> beams = new ArrayList<>();
-    private final List<Particle> particles = new ArrayList<>();
-    private final List<Impact> impacts = new ArrayList<>();
+    private volatile int targetFps; // 0 = sem limite
+    // Tamanho do painel, gravado na EDT e lido pelo loop (0 até o primeiro layout)
+    private volatile int viewWidth, viewHeight;
+    private final int threads;
+    private final int parallelThreshold;
+
+    // Renderização ativa: o loop desenha direto num Canvas com BufferStrategy
+    private final RenderMode renderMode;
+    private final Canvas canvas;
+    private BufferStrategy bufferStrategy;
+    private final FrameStats frameStats = new FrameStats(120);
+
+    // Entrada: EDT produz comandos, o loop consome no início de cada tick
+    private final InputQueue input = new InputQueue(256);
+
+    // Quadros publicados pela simulação e lidos pelo renderizador (sem locks)
+    private final TripleBuffer<RenderSnapshot> snapshots = new TripleBuffer<>(
+            new RenderSnapshot(64, 2048, 16),
+            new RenderSnapshot(64, 2048, 16),
+            new RenderSnapshot(64, 2048, 16));
 
     public GamePanel(PlayerClass playerClass, Runnable onExitToMenu) {
-        this.playerClass = playerClass;
+        this(playerClass, new GameOptions(), onExitToMenu);
+    }
+
+    public GamePanel(PlayerClass playerClass, GameOptions options, Runnable onExitToMenu) {
         this.onExitToMenu = onExitToMenu;
-        this.hp = playerClass.getBaseHp();
+        this.renderMode = options.getRenderMode();
+        this.targetFps = options.getTargetFps() < 0 ? detectRefreshRate() : options.getTargetFps();
+        this.threads = options.getThreads();
+        this.parallelThreshold = options.getParallelThreshold();
+        long seed = System.currentTimeMillis();
+        // O próximo andar já vem gerado e com a tela inicial pré-renderizada
+        FloorPipeline<MapChunkCache> floors = options.isEndless() ? null : new FloorPipeline<>(seed,
+                GameEngine.FLOOR_WIDTH, GameEngine.FLOOR_HEIGHT, GameEngine.TILE_SIZE, 1, this::prerenderFloor);
+        this.engine = floors != null ? new GameEngine(playerClass, floors) : GameEngine.endless(playerClass, seed);
+        this.renderer = new GameRenderer(playerClass, engine.getPlayerSize(), renderMode, getFont());
+        renderer.setFloors(floors);
 
         setFocusable(true);
-        setBackground(bgColor);
+        setBackground(renderer.getBackground());
         setDoubleBuffered(true);
 
-        sprite = Sprites.forClass(playerClass);
-        generateMap();
-        buildMapImage();
-        spawnPlayer();
-        setupKeyBindings();
-        setupMouseInput();
+        if (renderMode == RenderMode.ACTIVE) {
+            // Canvas pesado cobre o painel; o foco fica no painel para os key bindings
+            canvas = new Canvas();
+            canvas.setBackground(renderer.getBackground());
+            canvas.setIgnoreRepaint(true);
+            canvas.setFocusable(false);
+            setLayout(new BorderLayout());
+            add(canvas, BorderLayout.CENTER);
+            setIgnoreRepaint(true);
+        } else {
+            canvas = null;
+        }
 
-        // Recria vinheta ao redimensionar (para evitar custo por frame)
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                rebuildVignette();
+                viewWidth = getWidth();
+                viewHeight = getHeight();
             }
         });
+
+        renderer.setMap(engine.getMap());
+        publishSnapshot(0f);
+        setupKeyBindings();
+        setupMouseInput(canvas != null ? canvas : this);
+    }
+
+    /**
+     * Roda no thread dos andares: desenha os pedaços que a tela verá em volta do ponto de
+     * partida. O tamanho vem do último gravado pela EDT (o padrão do motor antes do layout).
+     */
+    private MapChunkCache prerenderFloor(DungeonMap map, int spawnTileX, int spawnTileY) {
+        MapChunkCache cache = new MapChunkCache(map);
+        int ts = map.getTileSize();
+        int vw = viewWidth, vh = viewHeight;
+        int w = vw > 0 ? vw : GameEngine.DEFAULT_VIEW_WIDTH, h = vh > 0 ? vh : GameEngine.DEFAULT_VIEW_HEIGHT;
+        // Mesmo enquadramento que a câmera terá (centrada no jogador, presa ao mapa)
+        double camX = Math.max(0, Math.min(map.getWidth() * ts - w, (spawnTileX + 0.5) * ts - w / 2.0));
+        double camY = Math.max(0, Math.min(map.getHeight() * ts - h, (spawnTileY + 0.5) * ts - h / 2.0));
+        cache.prewarm(camX, camY, w, h);
+        return cache;
     }
 
     private void setupKeyBindings() {
@@ -95,23 +123,28 @@ public class GamePanel extends JPanel implements Runnable {
         ActionMap am = getActionMap();
 
         // Movimento contínuo com key pressed/released
-        bindKey(im, am, KeyEvent.VK_W, "up-pressed", () -> velY = -playerClass.getMoveSpeed());
-        bindKey(im, am, KeyEvent.VK_S, "down-pressed", () -> velY = playerClass.getMoveSpeed());
-        bindKey(im, am, KeyEvent.VK_A, "left-pressed", () -> velX = -playerClass.getMoveSpeed());
-        bindKey(im, am, KeyEvent.VK_D, "right-pressed", () -> velX = playerClass.getMoveSpeed());
+        bindKey(im, am, KeyEvent.VK_W, "up-pressed", () -> sendMove(InputQueue.PRESS, Direction.UP));
+        bindKey(im, am, KeyEvent.VK_S, "down-pressed", () -> sendMove(InputQueue.PRESS, Direction.DOWN));
+        bindKey(im, am, KeyEvent.VK_A, "left-pressed", () -> sendMove(InputQueue.PRESS, Direction.LEFT));
+        bindKey(im, am, KeyEvent.VK_D, "right-pressed", () -> sendMove(InputQueue.PRESS, Direction.RIGHT));
 
-        bindKey(im, am, KeyEvent.VK_W, "up-released", () -> { if (velY < 0) velY = 0; }, true);
-        bindKey(im, am, KeyEvent.VK_S, "down-released", () -> { if (velY > 0) velY = 0; }, true);
-        bindKey(im, am, KeyEvent.VK_A, "left-released", () -> { if (velX < 0) velX = 0; }, true);
-        bindKey(im, am, KeyEvent.VK_D, "right-released", () -> { if (velX > 0) velX = 0; }, true);
+        bindKey(im, am, KeyEvent.VK_W, "up-released", () -> sendMove(InputQueue.RELEASE, Direction.UP), true);
+        bindKey(im, am, KeyEvent.VK_S, "down-released", () -> sendMove(InputQueue.RELEASE, Direction.DOWN), true);
+        bindKey(im, am, KeyEvent.VK_A, "left-released", () -> sendMove(InputQueue.RELEASE, Direction.LEFT), true);
+        bindKey(im, am, KeyEvent.VK_D, "right-released", () -> sendMove(InputQueue.RELEASE, Direction.RIGHT), true);
 
         // ESC para voltar ao menu
         bindKey(im, am, KeyEvent.VK_ESCAPE, "escape", () -> {
             stopLoop();
+            engine.close();
             if (onExitToMenu != null) onExitToMenu.run();
         });
     }
 
+    private void sendMove(int type, Direction dir) {
+        input.offer(type, dir.ordinal(), System.nanoTime());
+    }
+
     private void bindKey(InputMap im, ActionMap am, int keyCode, String name, Runnable action) {
         bindKey(im, am, keyCode, name, action, false);
     }
@@ -152,310 +185,152 @@ public class GamePanel extends JPanel implements Runnable {
             try { loopThread.join(200); } catch (InterruptedException ignored) {}
             loopThread = null;
         }
+        // A estratégia pertence ao peer do Canvas; é recriada no próximo startLoop
+        bufferStrategy = null;
+    }
+
+    public RenderMode getRenderMode() { return renderMode; }
+
+    /** Taxa alvo de renderização em quadros por segundo; 0 renderiza sem limite. */
+    public void setTargetFps(int targetFps) {
+        this.targetFps = Math.max(0, targetFps);
+    }
+
+    public int getTargetFps() { return targetFps; }
+
+    private static int detectRefreshRate() {
+        try {
+            if (GraphicsEnvironment.isHeadless()) return 60;
+            int hz = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+            return hz == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : hz;
+        } catch (RuntimeException e) {
+            return 60;
+        }
     }
 
     @Override
     public void run() {
-        final int fps = 60;
-        final long frameTimeMs = 1000L / fps;
+        // Pool da atualização paralela vive enquanto o loop roda (dono: este thread)
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        engine.setParallel(pool, parallelThreshold);
+        try {
+            loop();
+        } finally {
+            engine.setParallel(null, parallelThreshold);
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private void loop() {
+        long previous = System.nanoTime();
+        long accumulator = 0L;
+        long nextFrame = previous;
         while (running) {
-            long start = System.nanoTime();
+            long now = System.nanoTime();
+            long frameNs = now - previous;
+            previous = now;
+            // Travadas longas não viram uma avalanche de ticks: com o teto, o laço abaixo
+            // sempre deixa menos de um tick no acumulador
+            if (frameNs > MAX_FRAME_NS) frameNs = MAX_FRAME_NS;
+            accumulator += frameNs;
+
+            int ticks = 0;
+            int vw = viewWidth, vh = viewHeight;
+            if (vw > 0 && vh > 0) engine.setViewport(vw, vh);
+            while (accumulator >= TICK_NS && ticks < MAX_TICKS_PER_FRAME) {
+                engine.processInput(input, System.nanoTime());
+                engine.tick();
+                accumulator -= TICK_NS;
+                ticks++;
+            }
 
-            updateGame();
-            repaint();
+            if (ticks > 0) publishSnapshot((float) (accumulator / (double) TICK_NS));
+            if (renderMode == RenderMode.ACTIVE) {
+                renderActive();
+            } else {
+                repaint();
+            }
 
-            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
-            long sleep = frameTimeMs - elapsedMs;
-            if (sleep > 1) {
-                try { Thread.sleep(sleep); } catch (InterruptedException ignored) {}
+            int fps = targetFps;
+            if (fps > 0) {
+                long frameBudget = 1_000_000_000L / fps;
+                nextFrame += frameBudget;
+                // Se ficou muito para trás, reancora em vez de tentar recuperar quadros
+                if (now - nextFrame > frameBudget) nextFrame = now + frameBudget;
+                sleepUntil(nextFrame);
             } else {
                 Thread.yield();
             }
         }
     }
 
-    private void updateGame() {
-        // Movimento com colisão por tiles (separado por eixo)
-        // Atualiza direção e animação com base no movimento (padrão)
-        if (velX > 0) facing = Direction.RIGHT;
-        else if (velX < 0) facing = Direction.LEFT;
-        else if (velY > 0) facing = Direction.DOWN;
-        else if (velY < 0) facing = Direction.UP;
-        animTime += 1.0/60.0;
-
-        double nextX = playerX + velX;
-        if (!collides(nextX, playerY)) playerX = nextX;
-
-        double nextY = playerY + velY;
-        if (!collides(playerX, nextY)) playerY = nextY;
-
-        // Atualiza câmera para centralizar no jogador
-        camX = playerX - getWidth() / 2.0 + playerSize / 2.0;
-        camY = playerY - getHeight() / 2.0 + playerSize / 2.0;
-
-        // Limitar câmera aos limites do mapa
-        int worldW = map.getWidth() * tileSize;
-        int worldH = map.getHeight() * tileSize;
-        camX = Math.max(0, Math.min(worldW - getWidth(), camX));
-        camY = Math.max(0, Math.min(worldH - getHeight(), camY));
-
-        // Atualiza projéteis (com trilha e impacto)
-        Iterator<Projectile> it = projectiles.iterator();
-        while (it.hasNext()) {
-            Projectile p = it.next();
-            p.update();
-            // trilha
-            spawnTrail(p);
-            // colisão com parede
-            if (hitsWall(p.x, p.y)) {
-                spawnImpact(p.x, p.y, p.kind, p.color);
-                p.dead = true;
-            }
-            if (p.dead) {
-                it.remove();
-            }
-        }
-
-        // Atualiza efeitos de corte (espada)
-        Iterator<SwordSwing> it2 = slashEffects.iterator();
-        while (it2.hasNext()) {
-            SwordSwing s = it2.next();
-            if (!s.update()) it2.remove();
+    private static void sleepUntil(long deadlineNs) {
+        long remaining = deadlineNs - System.nanoTime();
+        // Dorme grosso e termina com yield para não depender da granularidade do sleep
+        if (remaining > 2_000_000L) {
+            try { Thread.sleep((remaining - 1_000_000L) / 1_000_000L); } catch (InterruptedException ignored) {}
         }
-
-        // Atualiza feixes de poder
-        Iterator<PowerBeam> it3 = beams.iterator();
-        while (it3.hasNext()) {
-            PowerBeam b = it3.next();
-            if (!b.update()) it3.remove();
-        }
-        // Atualiza partículas
-        Iterator<Particle> ip = particles.iterator();
-        while (ip.hasNext()) {
-            Particle pr = ip.next();
-            pr.update();
-            if (pr.dead) ip.remove();
-        }
-
-        // Atualiza impactos
-        Iterator<Impact> ii = impacts.iterator();
-        while (ii.hasNext()) {
-            Impact im = ii.next();
-            if (!im.update()) ii.remove();
+        while (System.nanoTime() < deadlineNs) {
+            Thread.yield();
         }
     }
 
-    private boolean collides(double x, double y) {
-        int left = (int)Math.floor(x / tileSize);
-        int right = (int)Math.floor((x + playerSize - 1) / tileSize);
-        int top = (int)Math.floor(y / tileSize);
-        int bottom = (int)Math.floor((y + playerSize - 1) / tileSize);
-
-        for (int ty = top; ty <= bottom; ty++) {
-            for (int tx = left; tx <= right; tx++) {
-                if (tx < 0 || ty < 0 || tx >= map.getWidth() || ty >= map.getHeight()) return true;
-                Tile t = map.get(tx, ty);
-                if (t == Tile.WALL) return true;
+    /** Desenha e apresenta um quadro pelo BufferStrategy, no próprio thread do loop. */
+    private void renderActive() {
+        // O canvas cobre o painel: mesmo tamanho, gravado pela EDT
+        int w = viewWidth;
+        int h = viewHeight;
+        if (!canvas.isDisplayable() || w <= 0 || h <= 0) return;
+        if (bufferStrategy == null) {
+            try {
+                canvas.createBufferStrategy(2);
+            } catch (IllegalStateException e) {
+                return; // peer ainda não está pronto
             }
-        }
-        return false;
-    }
-
-    private void generateMap() {
-        int tilesWide = 100;
-        int tilesHigh = 70;
-        long seed = System.currentTimeMillis();
-        DungeonGenerator gen = new DungeonGenerator(tilesWide, tilesHigh, tileSize, seed);
-        map = gen.generate();
-    }
-
-    private void spawnPlayer() {
-        // Busca uma célula piso aproximada do centro
-        int cx = map.getWidth() / 2;
-        int cy = map.getHeight() / 2;
-        int radius = Math.max(map.getWidth(), map.getHeight());
-        boolean found = false;
-        outer: for (int r = 0; r < radius; r++) {
-            for (int dy = -r; dy <= r; dy++) {
-                for (int dx = -r; dx <= r; dx++) {
-                    int tx = cx + dx; int ty = cy + dy;
-                    if (tx < 0 || ty < 0 || tx >= map.getWidth() || ty >= map.getHeight()) continue;
-                    if (map.get(tx, ty) == Tile.FLOOR) {
-                        playerX = tx * tileSize + (tileSize - playerSize) / 2.0;
-                        playerY = ty * tileSize + (tileSize - playerSize) / 2.0;
-                        found = true;
-                        break outer;
-                    }
+            bufferStrategy = canvas.getBufferStrategy();
+        }
+        BufferStrategy bs = bufferStrategy;
+        do {
+            do {
+                Graphics g = bs.getDrawGraphics();
+                try {
+                    renderer.render((Graphics2D) g, w, h, snapshots.acquire(), frameStats);
+                } finally {
+                    g.dispose();
                 }
-            }
-        }
-        if (!found) {
-            playerX = 2 * tileSize;
-            playerY = 2 * tileSize;
-        }
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        frameStats.framePresented(System.nanoTime());
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (renderMode == RenderMode.ACTIVE) return;
         Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Fundo
-        g2.setColor(getBackground());
-        g2.fillRect(0, 0, getWidth(), getHeight());
-
-        // Desenha pré-render do mapa
-        if (mapImage != null) {
-            g2.drawImage(mapImage, (int) -camX, (int) -camY, null);
-        }
-
-        // Feixes de poder (Mago)
-        for (PowerBeam b : beams) {
-            b.paint(g2, (float)(playerX - camX + playerSize/2.0), (float)(playerY - camY + playerSize/2.0));
-        }
-
-        // Efeitos de espada (Guerreiro)
-        for (SwordSwing s : slashEffects) {
-            s.paint(g2, (float)(playerX - camX + playerSize/2.0), (float)(playerY - camY + playerSize/2.0));
-        }
-
-        // Partículas de trilha
-        for (Particle pr : particles) {
-             pr.paint(g2, (int)(pr.x - camX), (int)(pr.y - camY));
-        }
-
-        // Impactos
-        for (Impact im : impacts) {
-            im.paint(g2, (int)(im.x - camX), (int)(im.y - camY));
-        }
-
-        // Projéteis (Ranger/Ladino/Clérigo)
-        for (Projectile p : projectiles) {
-            p.paint(g2, (int)(p.x - camX), (int)(p.y - camY));
-        }
-
-        // Jogador com sprite
-        if (sprite != null) {
-            sprite.paint(g2, (int)(playerX - camX), (int)(playerY - camY), playerSize, facing, animTime);
-        }
-
-        // HUD
-        g2.setColor(new Color(230, 230, 235));
-        g2.setFont(getFont().deriveFont(Font.BOLD, 14f));
-        String hud = String.format("Classe: %s | HP: %d | Vel: %.1f | ATK: %d | ESC: Menu",
-                playerClass.getDisplayName(), hp, playerClass.getMoveSpeed(), playerClass.getAttackDamage());
-        g2.drawString(hud, 12, 20);
-
-        // Vinheta sutil (pré-gerada)
-        drawVignette(g2);
-
+        renderer.render(g2, getWidth(), getHeight(), snapshots.acquire(), frameStats);
         g2.dispose();
+        frameStats.framePresented(System.nanoTime());
     }
 
-    private void buildMapImage() {
-        int worldW = map.getWidth() * tileSize;
-        int worldH = map.getHeight() * tileSize;
-        mapImage = new BufferedImage(worldW, worldH, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = mapImage.createGraphics();
-        // Anti-alias não é necessário para tiles retangulares; prioriza performance
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-
-        int w = map.getWidth();
-        int h = map.getHeight();
-        Color wall = new Color(45, 49, 66);
-        Color wallShadow = new Color(25, 28, 38);
-        Color floorBase = new Color(62, 68, 89);
-        Color floorAlt = new Color(66, 72, 95);
-        Color doorColor = new Color(120, 98, 70);
-        Color pebble = new Color(50, 55, 72);
-
-        for (int ty = 0; ty < h; ty++) {
-            for (int tx = 0; tx < w; tx++) {
-                Tile t = map.get(tx, ty);
-                int px = tx * tileSize;
-                int py = ty * tileSize;
-
-                switch (t) {
-                    case FLOOR: {
-                        float r = map.random01(tx, ty);
-                        Color c = mix(floorBase, floorAlt, r * 0.5f);
-                        g2.setColor(c);
-                        g2.fillRect(px, py, tileSize, tileSize);
-
-                        // detalhes de pedras
-                        g2.setColor(pebble);
-                        if (r > 0.85f) g2.fillRect(px + 4, py + 6, 2, 2);
-                        if (r < 0.15f) g2.fillRect(px + 12, py + 12, 2, 2);
-                        break;
-                    }
-                    case WALL: {
-                        g2.setColor(wall);
-                        g2.fillRect(px, py, tileSize, tileSize);
-                        // Top highlight se acima for piso
-                        if (ty + 1 < h && map.get(tx, ty + 1) == Tile.FLOOR) {
-                            g2.setColor(wallShadow);
-                            g2.fillRect(px, py + tileSize - 5, tileSize, 5);
-                        }
-                        break;
-                    }
-                    case DOOR: {
-                        g2.setColor(doorColor);
-                        g2.fillRect(px, py, tileSize, tileSize);
-                        g2.setColor(doorColor.darker());
-                        g2.fillRect(px + 2, py + 2, tileSize - 4, tileSize - 4);
-                        break;
-                    }
-                }
-            }
-        }
-
-        g2.dispose();
-    }
-
-    private Color mix(Color a, Color b, float t) {
-        t = Math.max(0, Math.min(1, t));
-        int r = (int)(a.getRed() * (1 - t) + b.getRed() * t);
-        int g = (int)(a.getGreen() * (1 - t) + b.getGreen() * t);
-        int bl = (int)(a.getBlue() * (1 - t) + b.getBlue() * t);
-        return new Color(r, g, bl);
-    }
-
-    private void drawVignette(Graphics2D g2) {
-        if (vignetteImage == null || vignetteImage.getWidth() != getWidth() || vignetteImage.getHeight() != getHeight()) {
-            rebuildVignette();
-        }
-        if (vignetteImage != null) {
-            g2.drawImage(vignetteImage, 0, 0, null);
-        }
-    }
-
-    private void rebuildVignette() {
-        int w = Math.max(1, getWidth());
-        int h = Math.max(1, getHeight());
-        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = img.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        Paint old = g.getPaint();
-        RadialGradientPaint rg = new RadialGradientPaint(
-                new Point(w/2, h/2), Math.max(w, h) * 0.7f,
-                new float[]{0f, 1f},
-                new Color[]{new Color(0,0,0,0), new Color(0, 0, 0, 110)}
-        );
-        g.setPaint(rg);
-        g.fillRect(0, 0, w, h);
-        g.setPaint(old);
-        g.dispose();
-        vignetteImage = img;
+    /** Copia o estado visível da simulação para o próximo quadro e o publica. */
+    private void publishSnapshot(float alpha) {
+        RenderSnapshot snap = snapshots.back();
+        engine.writeSnapshot(snap);
+        snap.publishedNs = System.nanoTime();
+        snap.alphaAtPublish = alpha;
+        snapshots.publish();
     }
 
     // ========= Mouse e ataque =========
-    private void setupMouseInput() {
-        addMouseMotionListener(new MouseMotionAdapter() {
+    private void setupMouseInput(Component surface) {
+        surface.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
-                mouseX = e.getX();
-                mouseY = e.getY();
+                input.setAim(e.getX(), e.getY());
             }
 
             @Override
@@ -464,316 +339,14 @@ public class GamePanel extends JPanel implements Runnable {
             }
         });
 
-        addMouseListener(new MouseAdapter() {
+        surface.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 if (SwingUtilities.isLeftMouseButton(e)) {
-                    mouseX = e.getX();
-                    mouseY = e.getY();
-                    tryAttack();
+                    input.setAim(e.getX(), e.getY());
+                    input.offer(InputQueue.ATTACK, 0, System.nanoTime());
                 }
             }
         });
     }
-
-    private void tryAttack() {
-        long now = System.nanoTime();
-        long cd = attackCooldownNanos();
-        if (now - lastAttackNs < cd) return;
-        lastAttackNs = now;
-
-        double px = playerX + playerSize/2.0;
-        double py = playerY + playerSize/2.0;
-        double mx = camX + mouseX;
-        double my = camY + mouseY;
-        double ang = Math.atan2(my - py, mx - px);
-
-        // Ajusta facing ao quadrante do mouse
-        double a = Math.toDegrees(ang);
-        // Corrige mapeamento para "cima" e "baixo" conforme esperado
-        if (a >= -45 && a < 45) facing = Direction.RIGHT;
-        else if (a >= 45 && a < 135) facing = Direction.UP;    // antes estava DOWN
-        else if (a >= -135 && a < -45) facing = Direction.DOWN; // antes estava UP
-        else facing = Direction.LEFT;
-
-        switch (playerClass) {
-            case WARRIOR:
-                spawnSwordSwing(ang);
-                break;
-            case MAGE:
-                spawnBeam(ang);
-                break;
-            case ROGUE:
-                spawnProjectile(ang, 7.5, 160, new Color(210, 220, 220), 3, ProjectileKind.DAGGER);
-                break;
-            case RANGER:
-                spawnProjectile(ang, 7.0, 220, new Color(240, 210, 160), 4, ProjectileKind.ARROW);
-                break;
-            case CLERIC:
-                spawnProjectile(ang, 5.5, 200, new Color(255, 235, 150), 6, ProjectileKind.ORB);
-                break;
-        }
-    }
-
-    private long attackCooldownNanos() {
-        long ms;
-        switch (playerClass) {
-            case WARRIOR: ms = 400; break;
-            case MAGE: ms = 600; break;
-            case ROGUE: ms = 250; break;
-            case RANGER: ms = 500; break;
-            case CLERIC: ms = 700; break;
-            default: ms = 500; break;
-        }
-        return ms * 1_000_000L;
-    }
-
-    private boolean hitsWall(double x, double y) {
-        int tx = (int)Math.floor(x / tileSize);
-        int ty = (int)Math.floor(y / tileSize);
-        if (tx < 0 || ty < 0 || tx >= map.getWidth() || ty >= map.getHeight()) return true;
-        return map.get(tx, ty) == Tile.WALL;
-    }
-
-    private void spawnProjectile(double ang, double speed, int lifeFrames, Color color, int radius, ProjectileKind kind) {
-        double px = playerX + playerSize/2.0;
-        double py = playerY + playerSize/2.0;
-        double vx = Math.cos(ang) * speed;
-        double vy = Math.sin(ang) * speed;
-        projectiles.add(new Projectile(px, py, vx, vy, lifeFrames, color, radius, ang, kind));
-    }
-
-    private void spawnSwordSwing(double ang) {
-        SwordSwing s = new SwordSwing(ang, 14, playerSize * 1.6f);
-        slashEffects.add(s);
-    }
-
-    private void spawnBeam(double ang) {
-        beams.add(new PowerBeam(ang, 10)); // rajada curta e intensa
-    }
-
-    // ========= Tipos auxiliares =========
-    private enum ProjectileKind { ARROW, DAGGER, ORB }
-
-    private static class Projectile {
-        double x, y, vx, vy;
-        int life;
-        boolean dead = false;
-        final Color color;
-        final int radius;
-        final double ang;
-        final ProjectileKind kind;
-
-        Projectile(double x, double y, double vx, double vy, int lifeFrames, Color color, int radius, double ang, ProjectileKind kind) {
-            this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.life = lifeFrames; this.color = color; this.radius = radius; this.ang = ang; this.kind = kind;
-        }
-
-        void update() {
-            x += vx; y += vy;
-            if (--life <= 0) dead = true;
-        }
-
-        void paint(Graphics2D g2, int sx, int sy) {
-            switch (kind) {
-                case ARROW: {
-                    AffineTransform old = g2.getTransform();
-                    g2.translate(sx, sy);
-                    g2.rotate(ang);
-                    // haste
-                    g2.setColor(new Color(130, 100, 70));
-                    g2.fillRect(-radius, -2, radius*2, 4);
-                    // ponta
-                    g2.setColor(new Color(200, 200, 210));
-                    int tip = radius*2;
-                    g2.fillPolygon(new int[]{tip, tip-6, tip-6}, new int[]{0, -4, 4}, 3);
-                    // penas
-                    g2.setColor(new Color(160, 160, 180));
-                    g2.fillPolygon(new int[]{-radius, -radius-6, -radius-4}, new int[]{0, -4, 4}, 3);
-                    g2.setTransform(old);
-                    break;
-                }
-                case DAGGER: {
-                    AffineTransform old = g2.getTransform();
-                    g2.translate(sx, sy);
-                    g2.rotate(ang);
-                    // lâmina
-                    g2.setColor(new Color(220, 230, 235));
-                    g2.fillPolygon(new int[]{0, radius*2, 0}, new int[]{-3, 0, 3}, 3);
-                    // cabo
-                    g2.setColor(new Color(120, 80, 50));
-                    g2.fillRect(-6, -2, 6, 4);
-                    g2.setTransform(old);
-                    break;
-                }
-                case ORB: {
-                    g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 220));
-                    g2.fillOval(sx - radius, sy - radius, radius*2, radius*2);
-                    g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 140));
-                    g2.drawOval(sx - radius - 2, sy - radius - 2, radius*2 + 4, radius*2 + 4);
-                    break;
-                }
-            }
-        }
-    }
-
-    // ===== Partículas de trilha e impacto =====
-    private static class Particle {
-        double x, y, vx, vy;
-        float size;
-        int life, lifeMax;
-        Color color;
-        boolean dead = false;
-
-        Particle(double x, double y, double vx, double vy, float size, int life) {
-            this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.size = size; this.life = life; this.lifeMax = life; this.color = new Color(220,220,230);
-        }
-
-        Particle colorize(Color c) { this.color = c; return this; }
-
-        void update() {
-            x += vx; y += vy;
-            vy *= 0.98; vx *= 0.98;
-            size *= 0.98f;
-            if (--life <= 0 || size < 0.5f) dead = true;
-        }
-
-        void paint(Graphics2D g2, int sx, int sy) {
-            int alpha = (int)(180 * (life / (float)Math.max(1, lifeMax)));
-            alpha = Math.max(0, Math.min(200, alpha));
-            g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
-            int s = Math.max(1, (int)Math.ceil(size));
-            g2.fillOval(sx - s/2, sy - s/2, s, s);
-        }
-    }
-
-    private static class Impact {
-        final double x, y;
-        int life;
-        final int lifeMax;
-        final Color color;
-
-        Impact(double x, double y, int lifeFrames, Color color) {
-            this.x = x; this.y = y; this.life = lifeFrames; this.lifeMax = lifeFrames; this.color = color;
-        }
-
-        boolean update() { return --life > 0; }
-
-        void paint(Graphics2D g2, int sx, int sy) {
-            float t = (float)(1.0 - life / (double)lifeMax);
-            int r = (int)(6 + 22 * t);
-            int alpha = (int)(180 * (1 - t));
-            alpha = Math.max(0, Math.min(200, alpha));
-            Stroke old = g2.getStroke();
-            g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
-            g2.setStroke(new BasicStroke(2f));
-            g2.drawOval(sx - r, sy - r, r*2, r*2);
-            g2.setStroke(old);
-        }
-    }
-
-    private void spawnTrail(Projectile p) {
-        // Partícula pequena com cor ajustada por tipo
-        Color c = p.color;
-        float size = 3f;
-        switch (p.kind) {
-            case ARROW: c = new Color(200, 200, 210); size = 2.5f; break;
-            case DAGGER: c = new Color(220, 230, 235); size = 2.2f; break;
-            case ORB: c = new Color(c.getRed(), c.getGreen(), c.getBlue()); size = 3.2f; break;
-        }
-        // spawn atrás do projétil
-        double tx = p.x - p.vx * 0.4;
-        double ty = p.y - p.vy * 0.4;
-        Particle pr = new Particle(tx, ty, -p.vx*0.05, -p.vy*0.05, size, 16).colorize(c);
-        if (particles.size() < 2000) particles.add(pr);
-    }
-
-    private void spawnImpact(double x, double y, ProjectileKind kind, Color base) {
-        // anel
-        impacts.add(new Impact(x, y, 14, base));
-        // estilhaços
-        int shards = 6;
-        for (int i = 0; i < shards; i++) {
-            double ang = (Math.PI * 2.0 / shards) * i;
-            double sp = 2.0 + Math.random() * 2.5;
-            Particle pr = new Particle(x, y, Math.cos(ang)*sp, Math.sin(ang)*sp, 2.8f, 18).colorize(base);
-            if (particles.size() < 2000) particles.add(pr);
-        }
-    }
-
-    private static class SwordSwing {
-        final double baseAng;
-        final int lifeMax;
-        int life;
-        final float reach;
-
-        SwordSwing(double ang, int lifeFrames, float reach) {
-            this.baseAng = ang; this.lifeMax = lifeFrames; this.life = lifeFrames; this.reach = reach;
-        }
-
-        boolean update() { return --life > 0; }
-
-        void paint(Graphics2D g2, float cx, float cy) {
-            double progress = 1.0 - (life / (double)lifeMax);
-            double sweep = Math.toRadians(120); // arco amplo
-            double angle = baseAng - sweep/2 + sweep * progress;
-
-            AffineTransform old = g2.getTransform();
-            g2.translate(cx, cy);
-            g2.rotate(angle);
-
-            // cabo
-            g2.setColor(new Color(120, 80, 50));
-            g2.fillRoundRect(4, -3, 10, 6, 4, 4);
-            // guarda-mão
-            g2.setColor(new Color(150, 110, 70));
-            g2.fillRect(12, -5, 3, 10);
-            // lâmina
-            g2.setColor(new Color(210, 220, 230));
-            g2.fillRoundRect(15, -2, (int)(reach), 4, 3, 3);
-
-            g2.setTransform(old);
-        }
-    }
-
-    private class PowerBeam {
-        final double ang;
-        int life;
-        final int lifeMax;
-        double maxLen;
-
-        PowerBeam(double ang, int lifeFrames) {
-            this.ang = ang; this.life = lifeFrames; this.lifeMax = lifeFrames;
-            this.maxLen = computeLength();
-        }
-
-        boolean update() { return --life > 0; }
-
-        private double computeLength() {
-            // Avança até parede ou limite
-            double px = playerX + playerSize/2.0;
-            double py = playerY + playerSize/2.0;
-            double step = 6.0;
-            double len = 0.0; double maxL = tileSize * 10.0; // alcance
-            while (len < maxL) {
-                double x = px + Math.cos(ang) * len;
-                double y = py + Math.sin(ang) * len;
-                if (hitsWall(x, y)) break;
-                len += step;
-            }
-            return len;
-        }
-
-        void paint(Graphics2D g2, float cx, float cy) {
-            float alpha = (float)(life / (double)lifeMax);
-            AffineTransform old = g2.getTransform();
-            g2.translate(cx, cy);
-            g2.rotate(ang);
-            // feixe com núcleo e brilho
-            g2.setColor(new Color(140, 200, 255, (int)(220 * alpha)));
-            g2.fillRect(0, -3, (int)maxLen, 6);
-            g2.setColor(new Color(200, 230, 255, (int)(120 * alpha)));
-            g2.fillRect(0, -6, (int)maxLen, 12);
-            g2.setTransform(old);
-        }
-    }
 }
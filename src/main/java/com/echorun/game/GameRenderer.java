@@ -0,0 +1,268 @@
+package com.echorun.game;
+
+import com.echorun.map.DungeonMap;
+import com.echorun.map.TileGrid;
+import com.echorun.render.CachedLayer;
+import com.echorun.render.MapChunkCache;
+import com.echorun.render.RotationCache;
+import com.echorun.render.WeaponShapes;
+import com.echorun.sprite.CharacterSprite;
+import com.echorun.sprite.SpriteAtlas;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+
+/**
+ * Desenho Java2D de um {@link RenderSnapshot}. Só deve ser usado por um thread de cada vez
+ * (o EDT no modo passivo, o loop no modo ativo), pois guarda caches de imagem e do HUD.
+ */
+final class GameRenderer {
+    private final PlayerClass playerClass;
+    private final CharacterSprite sprite;
+    private final int playerSize;
+    private final String modeLabel;
+
+    private final Color bgColor = new Color(12, 12, 16);
+
+    // Render buffers
+    private MapChunkCache mapCache;        // pré-render do mapa em pedaços (LRU)
+    private FloorPipeline<MapChunkCache> floors; // andares com o pré-render feito em segundo plano
+    private CachedLayer vignette;          // vinheta do tamanho do painel
+
+    // Cores fixas dos efeitos e caches (nada é alocado por entidade desenhada)
+    private static final Stroke IMPACT_STROKE = new BasicStroke(2f);
+    private final Color[] colorCache = new Color[4096];
+
+    // Flechas, adagas e espada pré-rotacionadas em 64 ângulos (~8 MB no máximo)
+    private static final int SHAPE_ARROW = 0;
+    private static final int SHAPE_DAGGER = 1;
+    private static final int SHAPE_SWORD = 2;
+    private final WeaponShapes shapes = new WeaponShapes();
+    private final RotationCache rotations = new RotationCache(this::paintShape, 1L << 21);
+
+    // HUD
+    private final Color hudColor = new Color(230, 230, 235);
+    private final Font baseFont;
+    private Font hudFont;
+    private String hudText;
+    private int hudHp;
+    private int hudDepth;
+    private String perfText;
+    private long perfTextNs;
+
+    GameRenderer(PlayerClass playerClass, int playerSize, RenderMode mode, Font baseFont) {
+        this.playerClass = playerClass;
+        this.playerSize = playerSize;
+        this.sprite = SpriteAtlas.forClass(playerClass, playerSize);
+        this.modeLabel = mode == RenderMode.ACTIVE ? "Ativo" : "Swing";
+        this.baseFont = baseFont;
+    }
+
+    Color getBackground() { return bgColor; }
+
+    /** Andares pré-gerados; ao trocar de andar, usa o cache que já veio pré-renderizado. */
+    void setFloors(FloorPipeline<MapChunkCache> floors) {
+        this.floors = floors;
+    }
+
+    /**
+     * Troca o mapa desenhado; usa o pré-render do andar se houver, senão os pedaços são
+     * feitos sob demanda. Também é chamado sozinho quando o snapshot traz outro mapa. O cache
+     * anterior é fechado (sai da lista de ouvintes do mapa).
+     */
+    void setMap(TileGrid map) {
+        if (mapCache != null) mapCache.close();
+        MapChunkCache prepared = floors != null && map instanceof DungeonMap ? floors.claim((DungeonMap) map) : null;
+        mapCache = prepared != null ? prepared : new MapChunkCache(map);
+    }
+
+    void render(Graphics2D g2, int width, int height, RenderSnapshot snap, FrameStats frameStats) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Fundo
+        g2.setColor(bgColor);
+        g2.fillRect(0, 0, width, height);
+
+        // Interpola entre o tick anterior e o atual
+        float a = snap.alphaAt(System.nanoTime(), GameEngine.TICK_NS);
+        double camX = lerp(snap.prevCamX, snap.camX, a);
+        double camY = lerp(snap.prevCamY, snap.camY, a);
+        double playerX = lerp(snap.prevPlayerX, snap.playerX, a);
+        double playerY = lerp(snap.prevPlayerY, snap.playerY, a);
+        float centerX = (float)(playerX - camX + playerSize/2.0);
+        float centerY = (float)(playerY - camY + playerSize/2.0);
+
+        // Desenha só os pedaços do pré-render que aparecem na tela
+        if (snap.map != null && (mapCache == null || mapCache.getMap() != snap.map)) setMap(snap.map);
+        if (mapCache != null) {
+            mapCache.draw(g2, camX, camY, width, height);
+        }
+
+        // Feixes de poder (Mago)
+        for (int i = 0; i < snap.beamCount; i++) {
+            paintBeam(g2, centerX, centerY, snap.beamAngle[i], snap.beamLength[i], snap.beamAlpha[i]);
+        }
+
+        // Efeitos de espada (Guerreiro)
+        for (int i = 0; i < snap.swingCount; i++) {
+            paintSwing(g2, centerX, centerY, snap.swingAngle[i], snap.swingReach[i]);
+        }
+
+        // Partículas de trilha
+        for (int i = 0; i < snap.particleCount; i++) {
+            paintParticle(g2, (int)(lerp(snap.partPrevX[i], snap.partX[i], a) - camX),
+                    (int)(lerp(snap.partPrevY[i], snap.partY[i], a) - camY), snap.partSize[i], snap.partArgb[i]);
+        }
+
+        // Impactos
+        for (int i = 0; i < snap.impactCount; i++) {
+            paintImpact(g2, (int)(snap.impactX[i] - camX), (int)(snap.impactY[i] - camY),
+                    snap.impactProgress[i], snap.impactArgb[i]);
+        }
+
+        // Projéteis (Ranger/Ladino/Clérigo)
+        for (int i = 0; i < snap.projectileCount; i++) {
+            paintProjectile(g2, (int)(lerp(snap.projPrevX[i], snap.projX[i], a) - camX),
+                    (int)(lerp(snap.projPrevY[i], snap.projY[i], a) - camY),
+                    snap.projKind[i], snap.projAng[i], snap.projRadius[i], snap.projArgb[i]);
+        }
+
+        // Jogador com sprite
+        if (sprite != null) {
+            sprite.paint(g2, (int)(playerX - camX), (int)(playerY - camY), playerSize, snap.facing, snap.animTime);
+        }
+
+        // HUD (textos só são refeitos quando mudam)
+        if (hudFont == null) hudFont = baseFont.deriveFont(Font.BOLD, 14f);
+        if (hudText == null || hudHp != snap.hp || hudDepth != snap.depth) {
+            hudHp = snap.hp;
+            hudDepth = snap.depth;
+            hudText = String.format("Classe: %s | HP: %d | Vel: %.1f | ATK: %d | Andar: %d | ESC: Menu",
+                    playerClass.getDisplayName(), snap.hp, playerClass.getMoveSpeed(), playerClass.getAttackDamage(),
+                    snap.depth + 1);
+        }
+        long nowNs = System.nanoTime();
+        if (perfText == null || nowNs - perfTextNs > 500_000_000L) {
+            perfTextNs = nowNs;
+            perfText = String.format("%s | FPS: %.0f | quadro: %.1f ms (pior %.1f) | entrada: %.1f ms | pedaços: %d",
+                    modeLabel, frameStats.fps(), frameStats.averageMs(), frameStats.worstMs(),
+                    snap.inputLatencyNs / 1_000_000.0, mapCache != null ? mapCache.size() : 0);
+        }
+        g2.setColor(hudColor);
+        g2.setFont(hudFont);
+        g2.drawString(hudText, 12, 20);
+        g2.drawString(perfText, 12, 38);
+
+        // Vinheta sutil (pré-gerada)
+        drawVignette(g2, width, height);
+    }
+
+    private static double lerp(double from, double to, float t) {
+        return from + (to - from) * t;
+    }
+
+    private void drawVignette(Graphics2D g2, int width, int height) {
+        if (vignette == null || vignette.getWidth() != Math.max(1, width) || vignette.getHeight() != Math.max(1, height)) {
+            rebuildVignette(width, height);
+        }
+        vignette.draw(g2, 0, 0);
+    }
+
+    private void rebuildVignette(int width, int height) {
+        int w = Math.max(1, width);
+        int h = Math.max(1, height);
+        if (vignette != null) vignette.flush();
+        vignette = new CachedLayer(w, h, Transparency.TRANSLUCENT);
+        Graphics2D g = vignette.beginPaint();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Paint old = g.getPaint();
+        RadialGradientPaint rg = new RadialGradientPaint(
+                new Point(w/2, h/2), Math.max(w, h) * 0.7f,
+                new float[]{0f, 1f},
+                new Color[]{new Color(0,0,0,0), new Color(0, 0, 0, 110)}
+        );
+        g.setPaint(rg);
+        g.fillRect(0, 0, w, h);
+        g.setPaint(old);
+        g.dispose();
+    }
+
+    // ========= Efeitos =========
+
+    private void paintProjectile(Graphics2D g2, int sx, int sy, ProjectileKind kind, double ang, int radius, int argb) {
+        switch (kind) {
+            case ARROW:
+                rotations.draw(g2, SHAPE_ARROW << 16 | radius, WeaponShapes.arrowExtent(radius), ang, sx, sy);
+                break;
+            case DAGGER:
+                rotations.draw(g2, SHAPE_DAGGER << 16 | radius, WeaponShapes.daggerExtent(radius), ang, sx, sy);
+                break;
+            case ORB: {
+                int rgb = argb & 0xFFFFFF;
+                g2.setColor(cachedColor(220 << 24 | rgb));
+                g2.fillOval(sx - radius, sy - radius, radius*2, radius*2);
+                g2.setColor(cachedColor(140 << 24 | rgb));
+                g2.drawOval(sx - radius - 2, sy - radius - 2, radius*2 + 4, radius*2 + 4);
+                break;
+            }
+        }
+    }
+
+    /** Desenha as variantes do cache de rotação; o tipo de forma vai nos 16 bits altos. */
+    private void paintShape(Graphics2D g2, int variant) {
+        int param = variant & 0xFFFF;
+        switch (variant >>> 16) {
+            case SHAPE_ARROW: shapes.paintArrow(g2, param); break;
+            case SHAPE_DAGGER: shapes.paintDagger(g2, param); break;
+            case SHAPE_SWORD: shapes.paintSword(g2, param); break;
+        }
+    }
+
+    private void paintParticle(Graphics2D g2, int sx, int sy, float size, int argb) {
+        g2.setColor(cachedColor(argb));
+        int s = Math.max(1, (int)Math.ceil(size));
+        // Com 1-2 px um oval e um quadrado rasterizam igual; o quadrado é bem mais barato
+        if (s <= 2) g2.fillRect(sx - s/2, sy - s/2, s, s);
+        else g2.fillOval(sx - s/2, sy - s/2, s, s);
+    }
+
+    /** Cache direto de Colors por ARGB, para não alocar uma cor por partícula. */
+    private Color cachedColor(int argb) {
+        int h = (argb ^ (argb >>> 12) ^ (argb >>> 24)) & (colorCache.length - 1);
+        Color c = colorCache[h];
+        if (c == null || c.getRGB() != argb) {
+            c = new Color(argb, true);
+            colorCache[h] = c;
+        }
+        return c;
+    }
+
+    private void paintImpact(Graphics2D g2, int sx, int sy, float t, int argb) {
+        int r = (int)(6 + 22 * t);
+        int alpha = (int)(180 * (1 - t));
+        alpha = Math.max(0, Math.min(200, alpha));
+        Stroke old = g2.getStroke();
+        g2.setColor(cachedColor(alpha << 24 | (argb & 0xFFFFFF)));
+        g2.setStroke(IMPACT_STROKE);
+        g2.drawOval(sx - r, sy - r, r*2, r*2);
+        g2.setStroke(old);
+    }
+
+    private void paintSwing(Graphics2D g2, float cx, float cy, double angle, float reach) {
+        int r = (int) reach;
+        rotations.draw(g2, SHAPE_SWORD << 16 | r, WeaponShapes.swordExtent(r), angle, Math.round(cx), Math.round(cy));
+    }
+
+    // Comprimento e alpha variam continuamente: o feixe continua com transformação (2 retângulos)
+    private void paintBeam(Graphics2D g2, float cx, float cy, double ang, float maxLen, float alpha) {
+        AffineTransform old = g2.getTransform();
+        g2.translate(cx, cy);
+        g2.rotate(ang);
+        // feixe com núcleo e brilho
+        g2.setColor(cachedColor((int)(220 * alpha) << 24 | 0x8CC8FF));
+        g2.fillRect(0, -3, (int)maxLen, 6);
+        g2.setColor(cachedColor((int)(120 * alpha) << 24 | 0xC8E6FF));
+        g2.fillRect(0, -6, (int)maxLen, 12);
+        g2.setTransform(old);
+    }
+}
@@ -0,0 +1,72 @@
+package com.echorun.game;
+
+import com.echorun.ecs.EntityRegistry;
+
+/**
+ * Registro de entidades e armazenamentos de componentes do jogo. Composições usadas:
+ * <ul>
+ *   <li>jogador: Player + Transform + Motion</li>
+ *   <li>projétil: Projectile + Transform + Motion + Lifetime</li>
+ *   <li>impacto: Effect + Transform + Lifetime; golpe e feixe: Effect + Lifetime</li>
+ *   <li>partícula: Particle (todos os campos num só componente)</li>
+ * </ul>
+ */
+final class GameWorld {
+    final EntityRegistry registry;
+    final PlayerStore players;
+    final TransformStore transforms;
+    final MotionStore motions;
+    final LifetimeStore lifetimes;
+    final ProjectileStore projectiles;
+    final EffectStore effects;
+    final ParticleStore particles;
+
+    GameWorld(int particleBudget) {
+        registry = new EntityRegistry(particleBudget + 1024);
+        players = registry.register(new PlayerStore(1));
+        transforms = registry.register(new TransformStore(128));
+        motions = registry.register(new MotionStore(128));
+        lifetimes = registry.register(new LifetimeStore(128));
+        projectiles = registry.register(new ProjectileStore(64));
+        effects = registry.register(new EffectStore(32));
+        particles = registry.register(new ParticleStore(registry, particleBudget));
+    }
+
+    int spawnProjectile(double x, double y, double vx, double vy, int lifeTicks, int argb, int radius, double ang, ProjectileKind kind) {
+        int e = registry.create();
+        transforms.add(e, x, y);
+        motions.add(e, vx, vy);
+        lifetimes.add(e, lifeTicks);
+        projectiles.add(e, kind, radius, argb, ang);
+        return e;
+    }
+
+    int spawnImpact(double x, double y, int lifeTicks, int argb) {
+        int e = registry.create();
+        transforms.add(e, x, y);
+        lifetimes.add(e, lifeTicks);
+        effects.add(e, EffectStore.IMPACT, 0.0, 0f, argb);
+        return e;
+    }
+
+    int spawnSwing(double ang, int lifeTicks, float reach) {
+        int e = registry.create();
+        lifetimes.add(e, lifeTicks);
+        effects.add(e, EffectStore.SWING, ang, reach, 0);
+        return e;
+    }
+
+    int spawnBeam(double ang, int lifeTicks, double length) {
+        int e = registry.create();
+        lifetimes.add(e, lifeTicks);
+        effects.add(e, EffectStore.BEAM, ang, (float) length, 0);
+        return e;
+    }
+
+    /** Destrói projéteis, efeitos e partículas (ex.: ao trocar de andar); o jogador fica. */
+    void clearTransient() {
+        for (int i = projectiles.size() - 1; i >= 0; i--) registry.destroy(projectiles.entityAt(i));
+        for (int i = effects.size() - 1; i >= 0; i--) registry.destroy(effects.entityAt(i));
+        particles.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.echorun.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila circular lock-free de um produtor (EDT) e um consumidor (loop do jogo) para comandos
+ * de entrada. Cada comando é guardado em vetores primitivos pré-alocados: tipo, argumento e
+ * instante em que o evento aconteceu. Se a fila encher, o comando novo é descartado e contado.
+ */
+public final class InputQueue {
+    // Tipos de comando
+    public static final int PRESS = 1;    // arg = Direction.ordinal()
+    public static final int RELEASE = 2;  // arg = Direction.ordinal()
+    public static final int ATTACK = 3;   // mira lida no momento do consumo (ver aim)
+
+    private final int mask;
+    private final int[] types;
+    private final int[] args;
+    private final long[] timestamps;
+
+    // head: próximo a ler (consumidor); tail: próximo a escrever (produtor)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Última posição do mouse em coordenadas de tela, empacotada (x alto, y baixo)
+    private final AtomicLong aim = new AtomicLong();
+
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        types = new int[size];
+        args = new int[size];
+        timestamps = new long[size];
+    }
+
+    /** Produtor: enfileira um comando; retorna false se a fila estiver cheia. */
+    public boolean offer(int type, int arg, long timestampNs) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int i = (int) t & mask;
+        types[i] = type;
+        args[i] = arg;
+        timestamps[i] = timestampNs;
+        tail.lazySet(t + 1); // publica os dados escritos acima
+        return true;
+    }
+
+    /** Produtor: atualiza a mira; o consumidor sempre lê o valor mais recente. */
+    public void setAim(int screenX, int screenY) {
+        aim.lazySet(((long) screenX << 32) | (screenY & 0xFFFFFFFFL));
+    }
+
+    public int aimX() { return (int) (aim.get() >> 32); }
+    public int aimY() { return (int) aim.get(); }
+
+    /** Consumidor: quantidade de comandos disponíveis agora. */
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int peekType() { return types[(int) head.get() & mask]; }
+    public int peekArg() { return args[(int) head.get() & mask]; }
+    public long peekTimestamp() { return timestamps[(int) head.get() & mask]; }
+
+    /** Consumidor: descarta o comando da frente depois de lido com peek*. */
+    public void advance() {
+        head.lazySet(head.get() + 1);
+    }
+
+    public long getDropped() { return dropped.get(); }
+}
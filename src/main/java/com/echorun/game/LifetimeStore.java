@@ -0,0 +1,38 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+
+import java.util.Arrays;
+
+/** Ticks de vida restantes (e o total, para calcular o progresso). */
+final class LifetimeStore extends ComponentStore {
+    int[] life, lifeMax;
+
+    LifetimeStore(int capacity) {
+        super(capacity);
+        life = new int[capacity()];
+        lifeMax = new int[capacity()];
+    }
+
+    int add(int entity, int ticks) {
+        int i = insert(entity);
+        life[i] = ticks; lifeMax[i] = ticks;
+        return i;
+    }
+
+    /** Fração já vivida, 0..1. */
+    float progress(int i) {
+        return (float)(1.0 - life[i] / (double) lifeMax[i]);
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        life[to] = life[from]; lifeMax[to] = lifeMax[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        life = Arrays.copyOf(life, capacity);
+        lifeMax = Arrays.copyOf(lifeMax, capacity);
+    }
+}
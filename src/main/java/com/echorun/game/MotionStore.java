@@ -0,0 +1,33 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+
+import java.util.Arrays;
+
+/** Velocidade em pixels por tick. */
+final class MotionStore extends ComponentStore {
+    double[] vx, vy;
+
+    MotionStore(int capacity) {
+        super(capacity);
+        vx = new double[capacity()];
+        vy = new double[capacity()];
+    }
+
+    int add(int entity, double pvx, double pvy) {
+        int i = insert(entity);
+        vx[i] = pvx; vy[i] = pvy;
+        return i;
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        vx[to] = vx[from]; vy[to] = vy[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+    }
+}
@@ -0,0 +1,92 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+import com.echorun.ecs.EntityRegistry;
+
+import java.util.Arrays;
+
+/**
+ * Partículas em struct-of-arrays: um vetor primitivo por campo, cor em ARGB empacotado.
+ * Cada partícula é uma entidade só com este componente; o orçamento limita quantas podem
+ * existir ao mesmo tempo e os vetores já nascem com esse tamanho (sem alocação em regime).
+ */
+public final class ParticleStore extends ComponentStore {
+    private final EntityRegistry registry;
+    private final int budget;
+
+    float[] x, y, prevX, prevY, vx, vy, size;
+    int[] life, lifeMax, argb;
+
+    public ParticleStore(EntityRegistry registry, int budget) {
+        super(budget);
+        this.registry = registry;
+        this.budget = budget;
+        growData(capacity());
+    }
+
+    public int budget() { return budget; }
+
+    /** Cria uma partícula; retorna false (e não faz nada) se o orçamento estiver cheio. */
+    public boolean spawn(double px, double py, double pvx, double pvy, float psize, int plife, int pargb) {
+        if (size() == budget) return false;
+        int i = insert(registry.create());
+        x[i] = (float) px; y[i] = (float) py;
+        prevX[i] = (float) px; prevY[i] = (float) py;
+        vx[i] = (float) pvx; vy[i] = (float) pvy;
+        size[i] = psize;
+        life[i] = plife; lifeMax[i] = plife;
+        argb[i] = pargb;
+        return true;
+    }
+
+    /** Destrói as entidades de todas as partículas vivas. */
+    public void clear() {
+        for (int i = size() - 1; i >= 0; i--) registry.destroy(entityAt(i));
+    }
+
+    /** Resumo de posições e vidas, para comparar execuções (ex.: serial x paralela). */
+    public long checksum() {
+        long h = size();
+        for (int i = 0, n = size(); i < n; i++) {
+            h = h * 31 + Float.floatToIntBits(x[i]);
+            h = h * 31 + Float.floatToIntBits(y[i]);
+            h = h * 31 + life[i];
+        }
+        return h;
+    }
+
+    void destroyAt(int i) {
+        registry.destroy(entityAt(i));
+    }
+
+    /** Cor com alpha proporcional à vida restante (mesma curva das partículas antigas). */
+    int argbWithAlpha(int i) {
+        int alpha = (int)(180 * (life[i] / (float)Math.max(1, lifeMax[i])));
+        alpha = Math.max(0, Math.min(200, alpha));
+        return alpha << 24 | (argb[i] & 0xFFFFFF);
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        x[to] = x[from]; y[to] = y[from];
+        prevX[to] = prevX[from]; prevY[to] = prevY[from];
+        vx[to] = vx[from]; vy[to] = vy[from];
+        size[to] = size[from];
+        life[to] = life[from]; lifeMax[to] = lifeMax[from];
+        argb[to] = argb[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        x = x == null ? new float[capacity] : Arrays.copyOf(x, capacity);
+        y = y == null ? new float[capacity] : Arrays.copyOf(y, capacity);
+        prevX = prevX == null ? new float[capacity] : Arrays.copyOf(prevX, capacity);
+        prevY = prevY == null ? new float[capacity] : Arrays.copyOf(prevY, capacity);
+        vx = vx == null ? new float[capacity] : Arrays.copyOf(vx, capacity);
+        vy = vy == null ? new float[capacity] : Arrays.copyOf(vy, capacity);
+        size = size == null ? new float[capacity] : Arrays.copyOf(size, capacity);
+        life = life == null ? new int[capacity] : Arrays.copyOf(life, capacity);
+        lifeMax = lifeMax == null ? new int[capacity] : Arrays.copyOf(lifeMax, capacity);
+        argb = argb == null ? new int[capacity] : Arrays.copyOf(argb, capacity);
+    }
+}
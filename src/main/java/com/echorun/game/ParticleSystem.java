@@ -0,0 +1,59 @@
+package com.echorun.game;
+
+import com.echorun.ecs.EntitySystem;
+import com.echorun.ecs.ParallelFor;
+
+/**
+ * Integra as partículas um tick e destrói as mortas. Percorre os vetores do
+ * {@link ParticleStore} diretamente, sem junção com outros componentes. A integração pode
+ * ser dividida entre threads ({@link ParallelFor}); a remoção é sempre serial.
+ */
+public final class ParticleSystem implements EntitySystem {
+    private static final float DAMPING = 0.98f;
+    private static final float MIN_SIZE = 0.5f;
+
+    private final ParticleStore particles;
+    private final ParallelFor parallel;
+    private final ParallelFor.RangeBody integrateBody = this::integrate;
+
+    public ParticleSystem(ParticleStore particles) {
+        this(particles, new ParallelFor());
+    }
+
+    public ParticleSystem(ParticleStore particles, ParallelFor parallel) {
+        this.particles = particles;
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void update() {
+        int n = particles.size();
+        parallel.run(n, integrateBody);
+        removeDead(n);
+    }
+
+    /** Integra o intervalo {@code [from, to)}. */
+    void integrate(int from, int to) {
+        ParticleStore p = particles;
+        float[] x = p.x, y = p.y, prevX = p.prevX, prevY = p.prevY, vx = p.vx, vy = p.vy, size = p.size;
+        int[] life = p.life;
+        for (int i = from; i < to; i++) {
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vx[i] *= DAMPING;
+            vy[i] *= DAMPING;
+            size[i] *= DAMPING;
+            life[i]--;
+        }
+    }
+
+    /** Destrói as mortas de {@code [0, n)}; de trás para frente, a troca só traz partículas já checadas. */
+    void removeDead(int n) {
+        ParticleStore p = particles;
+        for (int i = n - 1; i >= 0; i--) {
+            if (p.life[i] <= 0 || p.size[i] < MIN_SIZE) p.destroyAt(i);
+        }
+    }
+}
@@ -9,7 +9,7 @@ public enum PlayerClass {
 
     private final String displayName;
     private final int baseHp;
-    private final double moveSpeed; // pixels por frame em 60 FPS aprox
+    private final double moveSpeed; // pixels por tick (GameEngine.TICK_RATE)
     private final int attackDamage;
 
     PlayerClass(String displayName, int baseHp, double moveSpeed, int attackDamage) {
@@ -0,0 +1,41 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+import com.echorun.sprite.Direction;
+
+import java.util.Arrays;
+
+/** Estado próprio do jogador: tamanho da caixa de colisão, direção, animação e vida. */
+final class PlayerStore extends ComponentStore {
+    int[] size, hp;
+    Direction[] facing;
+    double[] animTime;
+
+    PlayerStore(int capacity) {
+        super(capacity);
+        size = new int[capacity()];
+        hp = new int[capacity()];
+        facing = new Direction[capacity()];
+        animTime = new double[capacity()];
+    }
+
+    int add(int entity, int psize, int php) {
+        int i = insert(entity);
+        size[i] = psize; hp[i] = php; facing[i] = Direction.DOWN; animTime[i] = 0.0;
+        return i;
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        size[to] = size[from]; hp[to] = hp[from];
+        facing[to] = facing[from]; animTime[to] = animTime[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        size = Arrays.copyOf(size, capacity);
+        hp = Arrays.copyOf(hp, capacity);
+        facing = Arrays.copyOf(facing, capacity);
+        animTime = Arrays.copyOf(animTime, capacity);
+    }
+}
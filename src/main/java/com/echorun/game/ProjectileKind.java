@@ -0,0 +1,3 @@
+package com.echorun.game;
+
+enum ProjectileKind { ARROW, DAGGER, ORB }
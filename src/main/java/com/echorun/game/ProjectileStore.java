@@ -0,0 +1,40 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+
+import java.util.Arrays;
+
+/** Dados de projétil: tipo, raio, cor e ângulo de disparo (o resto vem de Transform/Motion/Lifetime). */
+final class ProjectileStore extends ComponentStore {
+    ProjectileKind[] kind;
+    int[] radius, argb;
+    double[] ang;
+
+    ProjectileStore(int capacity) {
+        super(capacity);
+        kind = new ProjectileKind[capacity()];
+        radius = new int[capacity()];
+        argb = new int[capacity()];
+        ang = new double[capacity()];
+    }
+
+    int add(int entity, ProjectileKind pkind, int pradius, int pargb, double pang) {
+        int i = insert(entity);
+        kind[i] = pkind; radius[i] = pradius; argb[i] = pargb; ang[i] = pang;
+        return i;
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        kind[to] = kind[from]; radius[to] = radius[from];
+        argb[to] = argb[from]; ang[to] = ang[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        kind = Arrays.copyOf(kind, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        argb = Arrays.copyOf(argb, capacity);
+        ang = Arrays.copyOf(ang, capacity);
+    }
+}
@@ -0,0 +1,9 @@
+package com.echorun.game;
+
+/** Como os quadros chegam à tela. */
+public enum RenderMode {
+    /** {@code repaint()} do Swing; o EDT desenha em {@code paintComponent}. */
+    PASSIVE,
+    /** {@link java.awt.image.BufferStrategy} num {@code Canvas}; o loop desenha e chama {@code show()}. */
+    ACTIVE
+}
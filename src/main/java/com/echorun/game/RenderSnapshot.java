@@ -0,0 +1,178 @@
+package com.echorun.game;
+
+import com.echorun.map.TileGrid;
+import com.echorun.sprite.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Descrição imutável (após publicada) de um quadro, produzida pela simulação e consumida
+ * pelo renderizador. Os vetores são pré-dimensionados e só crescem quando a quantidade de
+ * entidades ultrapassa a maior já vista, então em regime não há alocação por quadro.
+ */
+final class RenderSnapshot {
+    // Tempo da publicação e fração já acumulada do próximo tick, para interpolar no desenho
+    long publishedNs;
+    float alphaAtPublish;
+
+    // Mapa do quadro (muda ao descer de andar) e andar atual
+    TileGrid map;
+    int depth;
+
+    // Jogador e câmera (tick anterior e atual)
+    double playerX, playerY, prevPlayerX, prevPlayerY;
+    double camX, camY, prevCamX, prevCamY;
+    Direction facing = Direction.DOWN;
+    double animTime;
+    int hp;
+    long inputLatencyNs;
+
+    // Projéteis
+    int projectileCount;
+    float[] projX, projY, projPrevX, projPrevY, projAng;
+    int[] projRadius, projArgb;
+    ProjectileKind[] projKind;
+
+    // Partículas (alpha já aplicado na cor)
+    int particleCount;
+    float[] partX, partY, partPrevX, partPrevY, partSize;
+    int[] partArgb;
+
+    // Impactos (progresso 0..1)
+    int impactCount;
+    float[] impactX, impactY, impactProgress;
+    int[] impactArgb;
+
+    // Golpes de espada (ângulo já varrido) e feixes
+    int swingCount;
+    float[] swingAngle, swingReach;
+    int beamCount;
+    float[] beamAngle, beamLength, beamAlpha;
+
+    RenderSnapshot(int projectileCapacity, int particleCapacity, int effectCapacity) {
+        projX = new float[projectileCapacity];
+        projY = new float[projectileCapacity];
+        projPrevX = new float[projectileCapacity];
+        projPrevY = new float[projectileCapacity];
+        projAng = new float[projectileCapacity];
+        projRadius = new int[projectileCapacity];
+        projArgb = new int[projectileCapacity];
+        projKind = new ProjectileKind[projectileCapacity];
+
+        partX = new float[particleCapacity];
+        partY = new float[particleCapacity];
+        partPrevX = new float[particleCapacity];
+        partPrevY = new float[particleCapacity];
+        partSize = new float[particleCapacity];
+        partArgb = new int[particleCapacity];
+
+        impactX = new float[effectCapacity];
+        impactY = new float[effectCapacity];
+        impactProgress = new float[effectCapacity];
+        impactArgb = new int[effectCapacity];
+
+        swingAngle = new float[effectCapacity];
+        swingReach = new float[effectCapacity];
+        beamAngle = new float[effectCapacity];
+        beamLength = new float[effectCapacity];
+        beamAlpha = new float[effectCapacity];
+    }
+
+    /** Fração de interpolação entre o tick anterior e o atual no instante {@code nowNs}. */
+    float alphaAt(long nowNs, long tickNs) {
+        float a = alphaAtPublish + (nowNs - publishedNs) / (float) tickNs;
+        return Math.max(0f, Math.min(1f, a));
+    }
+
+    void beginFrame() {
+        projectileCount = 0;
+        particleCount = 0;
+        impactCount = 0;
+        swingCount = 0;
+        beamCount = 0;
+    }
+
+    void addProjectile(double x, double y, double prevX, double prevY, double ang, int radius, int argb, ProjectileKind kind) {
+        int i = projectileCount;
+        if (i == projX.length) growProjectiles();
+        projX[i] = (float) x; projY[i] = (float) y;
+        projPrevX[i] = (float) prevX; projPrevY[i] = (float) prevY;
+        projAng[i] = (float) ang; projRadius[i] = radius; projArgb[i] = argb; projKind[i] = kind;
+        projectileCount = i + 1;
+    }
+
+    /** Copia as partículas vivas em bloco (arraycopy por campo). */
+    void copyParticles(ParticleStore ps) {
+        int n = ps.size();
+        if (n > partX.length) growParticles(n);
+        System.arraycopy(ps.x, 0, partX, 0, n);
+        System.arraycopy(ps.y, 0, partY, 0, n);
+        System.arraycopy(ps.prevX, 0, partPrevX, 0, n);
+        System.arraycopy(ps.prevY, 0, partPrevY, 0, n);
+        System.arraycopy(ps.size, 0, partSize, 0, n);
+        for (int i = 0; i < n; i++) partArgb[i] = ps.argbWithAlpha(i);
+        particleCount = n;
+    }
+
+    void addImpact(double x, double y, float progress, int argb) {
+        int i = impactCount;
+        if (i == impactX.length) {
+            int n = grow(i);
+            impactX = Arrays.copyOf(impactX, n);
+            impactY = Arrays.copyOf(impactY, n);
+            impactProgress = Arrays.copyOf(impactProgress, n);
+            impactArgb = Arrays.copyOf(impactArgb, n);
+        }
+        impactX[i] = (float) x; impactY[i] = (float) y; impactProgress[i] = progress; impactArgb[i] = argb;
+        impactCount = i + 1;
+    }
+
+    void addSwing(double angle, float reach) {
+        int i = swingCount;
+        if (i == swingAngle.length) {
+            int n = grow(i);
+            swingAngle = Arrays.copyOf(swingAngle, n);
+            swingReach = Arrays.copyOf(swingReach, n);
+        }
+        swingAngle[i] = (float) angle; swingReach[i] = reach;
+        swingCount = i + 1;
+    }
+
+    void addBeam(double angle, double length, float alpha) {
+        int i = beamCount;
+        if (i == beamAngle.length) {
+            int n = grow(i);
+            beamAngle = Arrays.copyOf(beamAngle, n);
+            beamLength = Arrays.copyOf(beamLength, n);
+            beamAlpha = Arrays.copyOf(beamAlpha, n);
+        }
+        beamAngle[i] = (float) angle; beamLength[i] = (float) length; beamAlpha[i] = alpha;
+        beamCount = i + 1;
+    }
+
+    private void growProjectiles() {
+        int n = grow(projX.length);
+        projX = Arrays.copyOf(projX, n);
+        projY = Arrays.copyOf(projY, n);
+        projPrevX = Arrays.copyOf(projPrevX, n);
+        projPrevY = Arrays.copyOf(projPrevY, n);
+        projAng = Arrays.copyOf(projAng, n);
+        projRadius = Arrays.copyOf(projRadius, n);
+        projArgb = Arrays.copyOf(projArgb, n);
+        projKind = Arrays.copyOf(projKind, n);
+    }
+
+    private void growParticles(int min) {
+        int n = Math.max(min, grow(partX.length));
+        partX = Arrays.copyOf(partX, n);
+        partY = Arrays.copyOf(partY, n);
+        partPrevX = Arrays.copyOf(partPrevX, n);
+        partPrevY = Arrays.copyOf(partPrevY, n);
+        partSize = Arrays.copyOf(partSize, n);
+        partArgb = Arrays.copyOf(partArgb, n);
+    }
+
+    private static int grow(int length) {
+        return Math.max(16, length * 2);
+    }
+}
@@ -0,0 +1,39 @@
+package com.echorun.game;
+
+import com.echorun.ecs.ComponentStore;
+
+import java.util.Arrays;
+
+/** Posição no mundo (pixels) no tick atual e no anterior, para interpolação. */
+final class TransformStore extends ComponentStore {
+    double[] x, y, prevX, prevY;
+
+    TransformStore(int capacity) {
+        super(capacity);
+        x = new double[capacity()];
+        y = new double[capacity()];
+        prevX = new double[capacity()];
+        prevY = new double[capacity()];
+    }
+
+    int add(int entity, double px, double py) {
+        int i = insert(entity);
+        x[i] = px; y[i] = py;
+        prevX[i] = px; prevY[i] = py;
+        return i;
+    }
+
+    @Override
+    protected void moveData(int from, int to) {
+        x[to] = x[from]; y[to] = y[from];
+        prevX[to] = prevX[from]; prevY[to] = prevY[from];
+    }
+
+    @Override
+    protected void growData(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+    }
+}
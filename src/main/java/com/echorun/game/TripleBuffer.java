@@ -0,0 +1,42 @@
+package com.echorun.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Troca lock-free entre um produtor e um consumidor: o escritor preenche o slot de trás,
+ * publica trocando-o pelo slot do meio e o leitor pega sempre o mais recente publicado.
+ * Nenhum dos lados bloqueia nem aloca; quadros não lidos são simplesmente sobrescritos.
+ */
+final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH = 0b100;
+
+    private final Object[] slots;
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int back = 0;   // exclusivo do escritor
+    private int front = 1;  // exclusivo do leitor
+
+    TripleBuffer(T a, T b, T c) {
+        slots = new Object[]{a, b, c};
+    }
+
+    /** Slot em que o escritor pode preencher o próximo quadro. */
+    @SuppressWarnings("unchecked")
+    T back() {
+        return (T) slots[back];
+    }
+
+    /** Torna o slot de trás visível ao leitor e recebe um slot livre em troca. */
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /** Retorna o quadro publicado mais recente (ou o último lido, se não houver novo). */
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,316 @@
+package com.echorun.map;
+
+/**
+ * Distância de cada tile até a parede mais próxima, calculada uma vez por mapa: transformada
+ * de distância euclidiana exata em duas passadas lineares (colunas e depois linhas, com o
+ * envelope inferior de parábolas de Felzenszwalb-Huttenlocher). Fora do mapa conta como
+ * parede. Guarda a distância entre centros de tile, em {@code 1/}{@value #SCALE} de tile
+ * arredondada para baixo, num {@code short[]} (2 bytes por tile).
+ *
+ * <p>Daí saem, em O(1), a folga de um ponto em pixels ({@link #clearance}, sempre um limite
+ * inferior da distância real até a parede), o teste de círculo livre, a direção para longe
+ * das paredes e o raio por "sphere tracing" ({@link #raycast}); e, por blocos de
+ * {@value #SPAWN_BLOCK} x {@value #SPAWN_BLOCK} tiles com o piso de maior folga de cada um,
+ * a escolha de ponto de partida sem varrer o mapa tile a tile.
+ *
+ * <p>Quando tiles do mapa mudam, {@link #update} refaz só a vizinhança da mudança.
+ */
+public final class DistanceField {
+    /** Frações de tile por unidade guardada. */
+    public static final int SCALE = 8;
+    public static final int SPAWN_BLOCK = 8;
+    /** Folga mínima do ponto de partida, em tiles (longe de portas e corredores). */
+    public static final float SPAWN_CLEARANCE = 2f;
+    // Metade da diagonal de um tile, em tiles
+    private static final double HALF_DIAGONAL = Math.sqrt(0.5);
+    private static final int INF = Integer.MAX_VALUE / 4;
+    private static final byte FLOOR = Tile.FLOOR.code();
+
+    private final TileGrid map;
+    private final int width, height, tileSize;
+    private final short[] dist;
+    private final int blocksX, blocksY;
+    private final int[] blockBest;      // tile de piso de maior folga no bloco; -1 = nenhum
+    private final short[] blockBestDist;
+    private int maxRaw;                 // maior valor guardado: alcance de uma mudança
+    private long partialUpdates;
+
+    private DistanceField(TileGrid map) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.tileSize = map.getTileSize();
+        this.dist = new short[width * height];
+        this.blocksX = (width + SPAWN_BLOCK - 1) / SPAWN_BLOCK;
+        this.blocksY = (height + SPAWN_BLOCK - 1) / SPAWN_BLOCK;
+        this.blockBest = new int[blocksX * blocksY];
+        this.blockBestDist = new short[blocksX * blocksY];
+    }
+
+    /** Monta o campo de um mapa limitado (usa só {@link TileGrid#isSolid} e {@link TileGrid#getCode}). */
+    public static DistanceField build(TileGrid map) {
+        DistanceField field = new DistanceField(map);
+        field.rebuild();
+        return field;
+    }
+
+    /** Refaz o campo inteiro (ex.: a grade toda foi trocada por baixo do campo). */
+    public void rebuild() {
+        // Janela com uma borda de parede em volta: fora do mapa é sólido
+        maxRaw = transform(-1, -1, width, height, 0, 0, width - 1, height - 1);
+        refreshBlocks(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Refaz o campo depois de mudarem os tiles de {@code [x0, x1] x [y0, y1]} (inclusivo). Uma
+     * parede que some ou aparece só muda tiles a até a maior distância do campo, então a
+     * transformada roda numa janela em volta do retângulo, com mais essa margem (onde estão
+     * as paredes mais próximas deles); se algum tile ficar mais longe da parede que a margem,
+     * refaz tudo. Sem mudança de passagem, só os melhores pisos dos blocos.
+     */
+    public void update(int x0, int y0, int x1, int y1, boolean passabilityChanged) {
+        if (!passabilityChanged) {
+            refreshBlocks(x0, y0, x1, y1);
+            return;
+        }
+        int reach = maxRaw / SCALE + 2;
+        int ix0 = Math.max(0, x0 - reach), iy0 = Math.max(0, y0 - reach);
+        int ix1 = Math.min(width - 1, x1 + reach), iy1 = Math.min(height - 1, y1 + reach);
+        int max = transform(Math.max(-1, ix0 - reach), Math.max(-1, iy0 - reach),
+                Math.min(width, ix1 + reach), Math.min(height, iy1 + reach), ix0, iy0, ix1, iy1);
+        if (max >= reach * SCALE) {
+            rebuild();
+            return;
+        }
+        maxRaw = Math.max(maxRaw, max);
+        refreshBlocks(ix0, iy0, ix1, iy1);
+        partialUpdates++;
+    }
+
+    /**
+     * Transformada na janela {@code [wx0, wx1] x [wy0, wy1]} (em tiles; -1 e a largura/altura
+     * são a borda de parede de fora do mapa), gravando só {@code [ix0, ix1] x [iy0, iy1]}.
+     * Além da janela não há parede, então um tile gravado só sai exato se a parede mais
+     * próxima estiver dentro dela. Devolve o maior valor gravado.
+     */
+    private int transform(int wx0, int wy0, int wx1, int wy1, int ix0, int iy0, int ix1, int iy1) {
+        int pw = wx1 - wx0 + 1, ph = wy1 - wy0 + 1;
+        int[] sq = new int[pw * ph];
+        int n = Math.max(pw, ph);
+        int[] f = new int[n], d = new int[n], v = new int[n];
+        double[] z = new double[n + 1];
+
+        // Passada 1: colunas (distância ao quadrado só na vertical)
+        for (int x = 0; x < pw; x++) {
+            for (int y = 0; y < ph; y++) f[y] = solidPadded(map, wx0 + x, wy0 + y) ? 0 : INF;
+            edt1d(f, ph, d, v, z);
+            for (int y = 0; y < ph; y++) sq[y * pw + x] = d[y];
+        }
+        // Passada 2: linhas, sobre o resultado das colunas
+        int max = 0;
+        for (int ty = iy0; ty <= iy1; ty++) {
+            int row = (ty - wy0) * pw;
+            for (int x = 0; x < pw; x++) f[x] = sq[row + x];
+            edt1d(f, pw, d, v, z);
+            for (int tx = ix0; tx <= ix1; tx++) {
+                double tiles = Math.sqrt(d[tx - wx0]);
+                int value = Math.min(Short.MAX_VALUE, (int) Math.floor(tiles * SCALE));
+                dist[ty * width + tx] = (short) value;
+                if (value > max) max = value;
+            }
+        }
+        return max;
+    }
+
+    /** Piso de maior folga de cada bloco que cruza {@code [x0, x1] x [y0, y1]}, para o ponto de partida. */
+    private void refreshBlocks(int x0, int y0, int x1, int y1) {
+        for (int by = y0 / SPAWN_BLOCK; by <= y1 / SPAWN_BLOCK; by++) {
+            for (int bx = x0 / SPAWN_BLOCK; bx <= x1 / SPAWN_BLOCK; bx++) {
+                int best = -1;
+                short bestDist = 0;
+                for (int y = by * SPAWN_BLOCK, yEnd = Math.min(height, y + SPAWN_BLOCK); y < yEnd; y++) {
+                    for (int x = bx * SPAWN_BLOCK, xEnd = Math.min(width, x + SPAWN_BLOCK); x < xEnd; x++) {
+                        int i = y * width + x;
+                        if (map.getCode(x, y) != FLOOR) continue;
+                        if (best < 0 || dist[i] > bestDist) {
+                            best = i;
+                            bestDist = dist[i];
+                        }
+                    }
+                }
+                blockBest[by * blocksX + bx] = best;
+                blockBestDist[by * blocksX + bx] = bestDist;
+            }
+        }
+    }
+
+    private static boolean solidPadded(TileGrid map, int x, int y) {
+        return !map.contains(x, y) || map.isSolid(x, y);
+    }
+
+    /**
+     * Transformada 1D ao quadrado: {@code d[q] = min_p ((q - p)^2 + f[p])}, pelo envelope
+     * inferior das parábolas com vértice em cada {@code (p, f[p])}. O(n).
+     */
+    private static void edt1d(int[] f, int n, int[] d, int[] v, double[] z) {
+        // Só entram no envelope os pontos com valor finito
+        int first = 0;
+        while (first < n && f[first] >= INF) first++;
+        if (first == n) {
+            for (int q = 0; q < n; q++) d[q] = INF;
+            return;
+        }
+        int k = 0;
+        v[0] = first;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = first + 1; q < n; q++) {
+            if (f[q] >= INF) continue;
+            double s;
+            // Tira do envelope as parábolas que a nova cobre inteiras
+            while (true) {
+                int p = v[k];
+                s = ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * (q - p));
+                if (s > z[k]) break;
+                k--;
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) k++;
+            int p = v[k];
+            d[q] = (q - p) * (q - p) + f[p];
+        }
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    /** Quantas {@link #update} refizeram só uma janela (o resto refez o campo inteiro). */
+    public long getPartialUpdateCount() { return partialUpdates; }
+
+    /** Distância do centro do tile ao centro da parede mais próxima, em tiles; 0 em parede ou fora. */
+    public float tileDistance(int tx, int ty) {
+        if (tx < 0 || ty < 0 || tx >= width || ty >= height) return 0f;
+        return dist[ty * width + tx] / (float) SCALE;
+    }
+
+    /** Valor guardado do tile (em {@code 1/SCALE} de tile), sem teste de limites. */
+    public int raw(int tx, int ty) { return dist[ty * width + tx]; }
+
+    /**
+     * Folga do ponto em pixels: nenhuma parede está mais perto que isso (limite inferior; perto
+     * das paredes fica abaixo da real em até meia diagonal de tile). 0 dentro de parede.
+     */
+    public double clearance(double px, double py) {
+        if (px < 0 || py < 0) return 0;
+        int tx = (int) (px / tileSize), ty = (int) (py / tileSize);
+        if (tx >= width || ty >= height) return 0;
+        int raw = dist[ty * width + tx];
+        if (raw == 0) return 0;
+        double ox = px - (tx + 0.5) * tileSize, oy = py - (ty + 0.5) * tileSize;
+        double c = (raw / (double) SCALE - HALF_DIAGONAL) * tileSize - Math.sqrt(ox * ox + oy * oy);
+        return c > 0 ? c : 0;
+    }
+
+    /** Se o círculo cabe sem tocar parede, com certeza; false pode ser só falta de folga garantida. */
+    public boolean isCircleClear(double cx, double cy, double radius) {
+        return clearance(cx, cy) > radius;
+    }
+
+    /**
+     * Direção para longe das paredes no tile (diferenças centrais da distância, sem
+     * normalizar) em {@code out[0]}, {@code out[1]}; 0,0 longe de tudo ou num vale simétrico.
+     */
+    public void gradient(int tx, int ty, double[] out) {
+        out[0] = tileDistance(tx + 1, ty) - tileDistance(tx - 1, ty);
+        out[1] = tileDistance(tx, ty + 1) - tileDistance(tx, ty - 1);
+    }
+
+    /**
+     * Mesmo acerto de {@link TileGrid#raycast} (tile, ponto e normal), avançando em saltos do
+     * tamanho da folga enquanto ela for de pelo menos um tile; perto da parede termina com o
+     * DDA do mapa. Em salas abertas o raio cruza vários tiles por consulta.
+     */
+    public boolean raycast(double ox, double oy, double dirX, double dirY, double maxDistance, RayHit out) {
+        double len = Math.sqrt(dirX * dirX + dirY * dirY);
+        double c = clearance(ox, oy);
+        // Perto da parede (ou sem direção) o DDA já é o caminho curto
+        if (c < tileSize && c < maxDistance || len == 0) return map.raycast(ox, oy, dirX, dirY, maxDistance, out);
+        double dx = dirX / len, dy = dirY / len;
+        double t = 0;
+        while (c < maxDistance - t) {
+            t += c;
+            c = clearance(ox + dx * t, oy + dy * t);
+            if (c < tileSize) {
+                boolean hit = map.raycast(ox + dx * t, oy + dy * t, dx, dy, maxDistance - t, out);
+                out.distance += t;
+                return hit;
+            }
+        }
+        // Nenhuma parede até o alcance: o caso comum de um projétil longe das paredes
+        double x = ox + dx * maxDistance, y = oy + dy * maxDistance;
+        out.hit = false;
+        out.tileX = (int) Math.floor(x / tileSize);
+        out.tileY = (int) Math.floor(y / tileSize);
+        out.tile = null;
+        out.distance = maxDistance;
+        out.x = x;
+        out.y = y;
+        out.normalX = out.normalY = 0;
+        return false;
+    }
+
+    /**
+     * Piso perto de {@code (cx, cy)} com pelo menos {@code minClearance} tiles de distância da
+     * parede: percorre os blocos em anéis a partir do bloco do centro e, no primeiro anel com
+     * algum bloco que sirva, pega o melhor piso do bloco mais perto do centro. Escreve o tile
+     * em {@code out}; false se nenhum bloco serve.
+     */
+    public boolean findOpenTile(int cx, int cy, float minClearance, int[] out) {
+        int need = (int) Math.ceil(minClearance * SCALE);
+        int bcx = Math.max(0, Math.min(blocksX - 1, cx / SPAWN_BLOCK));
+        int bcy = Math.max(0, Math.min(blocksY - 1, cy / SPAWN_BLOCK));
+        int rings = Math.max(blocksX, blocksY);
+        for (int r = 0; r < rings; r++) {
+            int found = -1;
+            long bestD2 = Long.MAX_VALUE;
+            for (int by = bcy - r; by <= bcy + r; by++) {
+                if (by < 0 || by >= blocksY) continue;
+                // Só a borda do anel
+                int step = (by == bcy - r || by == bcy + r) ? 1 : 2 * r;
+                for (int bx = bcx - r; bx <= bcx + r; bx += Math.max(1, step)) {
+                    if (bx < 0 || bx >= blocksX) continue;
+                    int b = by * blocksX + bx;
+                    int tile = blockBest[b];
+                    if (tile < 0 || blockBestDist[b] < need) continue;
+                    long ddx = tile % width - cx, ddy = tile / width - cy;
+                    long d2 = ddx * ddx + ddy * ddy;
+                    if (d2 < bestD2) {
+                        bestD2 = d2;
+                        found = tile;
+                    }
+                }
+            }
+            if (found >= 0) {
+                out[0] = found % width;
+                out[1] = found / width;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ponto de partida do andar: o piso com folga de {@link #SPAWN_CLEARANCE} tiles mais perto
+     * do centro ({@link #findOpenTile}), ou qualquer piso se nenhum tiver essa folga. Escreve o
+     * tile em {@code out}; false se o mapa não tem piso.
+     */
+    public boolean findSpawnTile(int[] out) {
+        int cx = width / 2, cy = height / 2;
+        return findOpenTile(cx, cy, SPAWN_CLEARANCE, out) || findOpenTile(cx, cy, 0f, out);
+    }
+}
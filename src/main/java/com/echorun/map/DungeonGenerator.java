@@ -1,22 +1,30 @@
 package com.echorun.map;
 
-import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 public class DungeonGenerator {
     public static class Room {
         public int x, y, w, h;
-        public Point center() { return new Point(x + w / 2, y + h / 2); }
+        public int centerX() { return x + w / 2; }
+        public int centerY() { return y + h / 2; }
     }
 
     private final int width;
     private final int height;
     private final int tileSize;
-    private final long seed;
+    private long seed;
 
     private final Random rng;
+    private long[] occupied; // reaproveitado entre gerações do mesmo gerador
+
+    // Portais nas bordas (coluna/linha do tile de borda; -1 = sem portal)
+    private int portalNorth = -1, portalSouth = -1, portalWest = -1, portalEast = -1;
+    private boolean stairs = false;
+    private int roomAttempts = 80;
+    private List<Room> rooms = new ArrayList<>();
 
     public DungeonGenerator(int width, int height, int tileSize, long seed) {
         this.width = width;
@@ -26,29 +34,90 @@ public class DungeonGenerator {
         this.rng = new Random(seed);
     }
 
+    /**
+     * Abre corredores até a borda: {@code north}/{@code south} são colunas na primeira e na
+     * última linha, {@code west}/{@code east} são linhas na primeira e na última coluna
+     * (-1 = sem portal). Os corredores não consomem o rng, então o resto do mapa sai igual
+     * ao gerado sem portais; usado para costurar pedaços vizinhos do mundo sem fim.
+     */
+    public DungeonGenerator setPortals(int north, int south, int west, int east) {
+        this.portalNorth = north;
+        this.portalSouth = south;
+        this.portalWest = west;
+        this.portalEast = east;
+        return this;
+    }
+
+    /**
+     * Põe uma escada ({@link Tile#STAIRS}) no centro da última sala (a mais à direita), para
+     * descer ao próximo andar. Não consome o rng.
+     */
+    public DungeonGenerator setStairs(boolean stairs) {
+        this.stairs = stairs;
+        return this;
+    }
+
+    /**
+     * Quantas salas sortear (as que encostam em outra são descartadas). O teste de cada
+     * candidata é O(altura da sala), então mapas grandes podem pedir milhares de salas.
+     */
+    public DungeonGenerator setRoomAttempts(int attempts) {
+        this.roomAttempts = Math.max(0, attempts);
+        return this;
+    }
+
+    /**
+     * Troca a seed, para reaproveitar o gerador (e seus buffers) em outro mapa; o resultado é
+     * o mesmo de um gerador novo com essa seed.
+     */
+    public DungeonGenerator reset(long seed) {
+        this.seed = seed;
+        this.rng.setSeed(seed);
+        return this;
+    }
+
+    private static final byte WALL = Tile.WALL.code();
+    private static final byte FLOOR = Tile.FLOOR.code();
+    private static final byte DOOR = Tile.DOOR.code();
+    private static final byte STAIRS = Tile.STAIRS.code();
+
     public DungeonMap generate() {
-        Tile[][] tiles = new Tile[height][width];
+        // Grade plana (y * width + x), já no formato do DungeonMap
+        byte[] tiles = new byte[width * height];
+        List<Room> rooms = carve(tiles);
+        return new DungeonMap(width, height, tileSize, tiles, seed, rooms);
+    }
+
+    /**
+     * Gera o mapa direto em {@code tiles} (códigos de {@link Tile}, {@code y * width + x}), sem
+     * criar o {@link DungeonMap}; com {@link #reset} permite gerar muitos mapas sem alocar
+     * grades novas. Retorna as salas, como {@link #getRooms()}.
+     */
+    public List<Room> carve(byte[] tiles) {
+        if (tiles.length != width * height) throw new IllegalArgumentException("tiles.length != width * height");
         // Fill walls
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                tiles[y][x] = Tile.WALL;
-            }
-        }
+        Arrays.fill(tiles, WALL);
 
-        int attempts = 80;
         int minSize = 6;
         int maxSize = 14;
         List<Room> rooms = new ArrayList<>();
+        this.rooms = rooms;
+        // Células já ocupadas por salas, em bits por linha (como os bitsets do DungeonMap)
+        int wordsPerRow = (width + 63) >>> 6;
+        long[] occupied = this.occupied;
+        if (occupied == null) occupied = this.occupied = new long[wordsPerRow * height];
+        else Arrays.fill(occupied, 0L);
 
-        for (int i = 0; i < attempts; i++) {
+        for (int i = 0; i < roomAttempts; i++) {
             int w = minSize + rng.nextInt(maxSize - minSize + 1);
             int h = minSize + rng.nextInt(maxSize - minSize + 1);
             int x = 1 + rng.nextInt(Math.max(1, width - w - 2));
             int y = 1 + rng.nextInt(Math.max(1, height - h - 2));
             Room r = new Room();
             r.x = x; r.y = y; r.w = w; r.h = h;
-            if (overlaps(r, rooms)) continue;
+            if (overlaps(r, occupied, wordsPerRow)) continue;
             rooms.add(r);
+            occupy(r, occupied, wordsPerRow);
             carveRoom(tiles, r);
         }
 
@@ -57,65 +126,134 @@ public class DungeonGenerator {
         for (int i = 1; i < rooms.size(); i++) {
             Room a = rooms.get(i - 1);
             Room b = rooms.get(i);
-            connect(tiles, a.center(), b.center());
+            connect(tiles, a.centerX(), a.centerY(), b.centerX(), b.centerY());
         }
 
+        // Corredores retos da borda até a sala mais próxima
+        if (portalNorth >= 0) carvePortal(tiles, rooms, portalNorth, 0, true);
+        if (portalSouth >= 0) carvePortal(tiles, rooms, portalSouth, height - 1, true);
+        if (portalWest >= 0) carvePortal(tiles, rooms, 0, portalWest, false);
+        if (portalEast >= 0) carvePortal(tiles, rooms, width - 1, portalEast, false);
+
         // Portas simples: marcar junções parede->chão
-        placeDoors(tiles);
+        placeDoors(tiles, width, height);
 
-        return new DungeonMap(width, height, tileSize, tiles, seed);
+        if (stairs && !rooms.isEmpty()) {
+            Room last = rooms.get(rooms.size() - 1);
+            tiles[last.centerY() * width + last.centerX()] = STAIRS;
+        }
+        return rooms;
     }
 
-    private boolean overlaps(Room r, List<Room> rooms) {
-        Rectangle R = new Rectangle(r.x - 1, r.y - 1, r.w + 2, r.h + 2);
-        for (Room o : rooms) {
-            Rectangle O = new Rectangle(o.x, o.y, o.w, o.h);
-            if (R.intersects(O)) return true;
+    /** Salas do último {@link #generate()}, ordenadas por x. */
+    public List<Room> getRooms() { return rooms; }
+
+    /** Se a sala, com uma borda de 1 tile, cobre alguma célula de sala já aceita. */
+    private boolean overlaps(Room r, long[] occupied, int wordsPerRow) {
+        int x0 = Math.max(0, r.x - 1), x1 = Math.min(width - 1, r.x + r.w);
+        int y0 = Math.max(0, r.y - 1), y1 = Math.min(height - 1, r.y + r.h);
+        if (x1 < x0) return false;
+        int w0 = x0 >>> 6, w1 = x1 >>> 6;
+        for (int y = y0; y <= y1; y++) {
+            int base = y * wordsPerRow;
+            for (int w = w0; w <= w1; w++) {
+                if ((occupied[base + w] & spanMask(w, w0, w1, x0, x1)) != 0) return true;
+            }
         }
         return false;
     }
 
-    private void carveRoom(Tile[][] tiles, Room r) {
+    private void occupy(Room r, long[] occupied, int wordsPerRow) {
+        int x0 = r.x, x1 = Math.min(width, r.x + r.w) - 1;
+        if (x1 < x0) return;
+        int w0 = x0 >>> 6, w1 = x1 >>> 6;
+        for (int y = r.y, yEnd = Math.min(height, r.y + r.h); y < yEnd; y++) {
+            int base = y * wordsPerRow;
+            for (int w = w0; w <= w1; w++) occupied[base + w] |= spanMask(w, w0, w1, x0, x1);
+        }
+    }
+
+    /** Bits de {@code [x0, x1]} dentro da palavra {@code w} (de {@code w0} a {@code w1}). */
+    private static long spanMask(int w, int w0, int w1, int x0, int x1) {
+        long m = -1L;
+        if (w == w0) m &= -1L << x0;
+        if (w == w1) m &= -1L >>> (63 - (x1 & 63));
+        return m;
+    }
+
+    private void carveRoom(byte[] tiles, Room r) {
         for (int y = r.y; y < r.y + r.h; y++) {
-            for (int x = r.x; x < r.x + r.w; x++) {
-                tiles[y][x] = Tile.FLOOR;
-            }
+            int row = y * width;
+            Arrays.fill(tiles, row + r.x, row + r.x + r.w, FLOOR);
         }
     }
 
-    private void connect(Tile[][] tiles, Point a, Point b) {
+    private void connect(byte[] tiles, int ax, int ay, int bx, int by) {
         // L-carve: horizontal then vertical (ou vice-versa)
         if (rng.nextBoolean()) {
-            carveH(tiles, a.x, b.x, a.y);
-            carveV(tiles, a.y, b.y, b.x);
+            carveH(tiles, ax, bx, ay);
+            carveV(tiles, ay, by, bx);
+        } else {
+            carveV(tiles, ay, by, ax);
+            carveH(tiles, ax, bx, by);
+        }
+    }
+
+    private void carvePortal(byte[] tiles, List<Room> rooms, int x, int y, boolean vertical) {
+        int tx = width / 2, ty = height / 2;
+        int best = Integer.MAX_VALUE;
+        for (Room r : rooms) {
+            int cx = r.centerX(), cy = r.centerY();
+            int d = Math.abs(cx - x) + Math.abs(cy - y);
+            if (d < best) { best = d; tx = cx; ty = cy; }
+        }
+        // Primeiro perpendicular à borda, para o corredor atravessá-la
+        if (vertical) {
+            carveV(tiles, y, ty, x);
+            carveH(tiles, x, tx, ty);
         } else {
-            carveV(tiles, a.y, b.y, a.x);
-            carveH(tiles, a.x, b.x, b.y);
+            carveH(tiles, x, tx, y);
+            carveV(tiles, y, ty, tx);
         }
     }
 
-    private void carveH(Tile[][] tiles, int x1, int x2, int y) {
+    private void carveH(byte[] tiles, int x1, int x2, int y) {
         int from = Math.min(x1, x2); int to = Math.max(x1, x2);
-        for (int x = from; x <= to; x++) tiles[y][x] = Tile.FLOOR;
+        Arrays.fill(tiles, y * width + from, y * width + to + 1, FLOOR);
     }
 
-    private void carveV(Tile[][] tiles, int y1, int y2, int x) {
+    private void carveV(byte[] tiles, int y1, int y2, int x) {
         int from = Math.min(y1, y2); int to = Math.max(y1, y2);
-        for (int y = from; y <= to; y++) tiles[y][x] = Tile.FLOOR;
-    }
-
-    private void placeDoors(Tile[][] tiles) {
-        int h = tiles.length; int w = tiles[0].length;
-        for (int y = 1; y < h - 1; y++) {
-            for (int x = 1; x < w - 1; x++) {
-                if (tiles[y][x] != Tile.WALL) continue;
-                int floors = 0;
-                if (tiles[y][x-1] == Tile.FLOOR) floors++;
-                if (tiles[y][x+1] == Tile.FLOOR) floors++;
-                if (tiles[y-1][x] == Tile.FLOOR) floors++;
-                if (tiles[y+1][x] == Tile.FLOOR) floors++;
-                if (floors >= 2) tiles[y][x] = Tile.DOOR;
+        for (int y = from; y <= to; y++) tiles[y * width + x] = FLOOR;
+    }
+
+    /**
+     * Portas simples: parede fora da borda com pelo menos dois dos quatro vizinhos de piso
+     * (passo final do {@link #carve}, público para as ferramentas medirem). Por palavras de 64
+     * tiles, com os bitsets de piso das linhas de cima, do meio e de baixo (os deslocamentos do
+     * {@link NeighborMask}); só as paredes que viram porta tocam o vetor.
+     */
+    public static void placeDoors(byte[] tiles, int width, int height) {
+        if (width < 3 || height < 3) return;
+        int words = (width + 63) >>> 6;
+        long[] up = new long[words], mid = new long[words], down = new long[words];
+        // Colunas 1..width-2: a borda nunca vira porta
+        int lastWord = (width - 2) >>> 6;
+        NeighborMask.packRow(tiles, width, height, 0, FLOOR, up, 0, words - 1);
+        NeighborMask.packRow(tiles, width, height, 1, FLOOR, mid, 0, words - 1);
+        for (int y = 1; y < height - 1; y++) {
+            NeighborMask.packRow(tiles, width, height, y + 1, FLOOR, down, 0, words - 1);
+            for (int k = 0; k <= lastWord; k++) {
+                long n = up[k], s = down[k], e = NeighborMask.east(mid, k), o = NeighborMask.west(mid, k);
+                // Dois ou mais dos quatro: um par do mesmo eixo, ou um de cada eixo
+                long doors = ((n & s) | (e & o) | ((n | s) & (e | o))) & ~mid[k] & spanMask(k, 0, lastWord, 1, width - 2);
+                while (doors != 0) {
+                    int i = y * width + (k << 6) + Long.numberOfTrailingZeros(doors);
+                    if (tiles[i] == WALL) tiles[i] = DOOR;
+                    doors &= doors - 1;
+                }
             }
+            long[] t = up; up = mid; mid = down; down = t;
         }
     }
 }
@@ -1,39 +1,312 @@
 package com.echorun.map;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Grade de tiles guardada num {@code byte[]} plano ({@code y * width + x}, um
+ * {@link Tile#code()} por célula), mais dois bitsets por linha, um de tiles caminháveis e
+ * outro de sólidos. Cada linha ocupa {@link #wordsPerRow()} longs, então consultas de linha e
+ * de retângulo testam até 64 tiles por operação. Um mapa de 4096x4096 ocupa ~20 MB (contra
+ * ~64 MB de referências num {@code Tile[][]}).
+ *
+ * <p>Guarda também as salas do gerador, de onde sai o {@link RoomGraph} (salas, corredores e
+ * as passagens entre eles) usado na busca de caminhos hierárquica, e monta sob demanda o
+ * {@link DistanceField} (distância até a parede) para colisão, raios e pontos de partida, e a
+ * {@link NeighborMask} dos vizinhos de piso de cada tile, para sombras e variações de tile.
+ *
+ * <p>Tiles podem mudar depois de montado ({@link #set}, {@link #fill}: porta que abre, parede
+ * que cai): os bitsets, a máscara, o campo de distância e, se a passagem mudou, o grafo de
+ * salas são refeitos só em volta da mudança, e cada {@link TileChangeListener}
+ * recebe o retângulo alterado (o cache de render redesenha só ele).
+ */
+public class DungeonMap implements TileGrid {
+    private static final byte WALL = Tile.WALL.code();
+    private static final byte FLOOR = Tile.FLOOR.code();
 
-public class DungeonMap {
     private final int width;
     private final int height;
     private final int tileSize;
-    private final Tile[][] tiles;
+    private final byte[] cells;
+    private final int wordsPerRow;
+    private final long[] walkable;
+    private final long[] solid;
     private final long seed;
+    private final List<DungeonGenerator.Room> rooms;
+    private RoomGraph roomGraph; // montados na primeira consulta
+    private DistanceField distanceField;
+    private volatile NeighborMask floorNeighbors; // lido por tile no render, sem trava
+    private final List<TileChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private long tileChanges;
 
     public DungeonMap(int width, int height, int tileSize, Tile[][] tiles, long seed) {
+        this(width, height, tileSize, pack(width, height, tiles), seed);
+    }
+
+    /** Usa {@code cells} diretamente (sem cópia); {@code cells[y * width + x]} = {@link Tile#code()}. */
+    public DungeonMap(int width, int height, int tileSize, byte[] cells, long seed) {
+        this(width, height, tileSize, cells, seed, Collections.emptyList());
+    }
+
+    /** Como o anterior, com as salas de onde o mapa foi escavado. */
+    public DungeonMap(int width, int height, int tileSize, byte[] cells, long seed, List<DungeonGenerator.Room> rooms) {
+        if (cells.length != width * height) throw new IllegalArgumentException("cells.length != width * height");
         this.width = width;
         this.height = height;
         this.tileSize = tileSize;
-        this.tiles = tiles;
+        this.cells = cells;
         this.seed = seed;
+        this.rooms = Collections.unmodifiableList(rooms);
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.walkable = new long[wordsPerRow * height];
+        this.solid = new long[wordsPerRow * height];
+        for (int y = 0; y < height; y++) rebuildRowBits(y);
+    }
+
+    private static byte[] pack(int width, int height, Tile[][] tiles) {
+        byte[] cells = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            Tile[] row = tiles[y];
+            for (int x = 0; x < width; x++) cells[y * width + x] = row[x].code();
+        }
+        return cells;
     }
 
+    private void rebuildRowBits(int y) {
+        int base = y * wordsPerRow;
+        int row = y * width;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long walk = 0, sol = 0;
+            int x0 = w << 6;
+            int n = Math.min(64, width - x0);
+            for (int b = 0; b < n; b++) {
+                byte c = cells[row + x0 + b];
+                if (c == WALL) sol |= 1L << b;
+                else walk |= 1L << b; // piso, porta e escada
+            }
+            walkable[base + w] = walk;
+            solid[base + w] = sol;
+        }
+    }
+
+    @Override
     public int getWidth() { return width; }
+    @Override
     public int getHeight() { return height; }
+    @Override
     public int getTileSize() { return tileSize; }
-    public Tile get(int x, int y) { return tiles[y][x]; }
+    @Override
+    public Tile get(int x, int y) { return Tile.fromCode(cells[y * width + x]); }
     public long getSeed() { return seed; }
+    /** Salas do gerador (vazia se o mapa não veio de um), ordenadas por x. */
+    public List<DungeonGenerator.Room> getRooms() { return rooms; }
+
+    /**
+     * Grafo de salas e corredores do mapa, montado na primeira chamada (de qualquer thread;
+     * o {@code FloorPipeline} já chama no thread de fundo).
+     */
+    public synchronized RoomGraph getRoomGraph() {
+        if (roomGraph == null) roomGraph = RoomGraph.build(this);
+        return roomGraph;
+    }
+
+    /** Distância até a parede por tile, montada na primeira chamada (como {@link #getRoomGraph()}). */
+    public synchronized DistanceField getDistanceField() {
+        if (distanceField == null) distanceField = DistanceField.build(this);
+        return distanceField;
+    }
+
+    /**
+     * Máscara de vizinhos de piso por tile (1 byte por tile), montada na primeira chamada; o
+     * pré-render do {@code FloorPipeline} já a monta no thread de fundo.
+     */
+    public NeighborMask getNeighborMask() {
+        NeighborMask m = floorNeighbors;
+        if (m == null) {
+            synchronized (this) {
+                if (floorNeighbors == null) floorNeighbors = NeighborMask.build(cells, width, height, FLOOR);
+                m = floorNeighbors;
+            }
+        }
+        return m;
+    }
+
+    @Override
+    public int floorNeighbors(int x, int y) { return getNeighborMask().get(x, y); }
+
+    // ========= Mudanças de tiles =========
+
+    /** Troca um tile; como {@link #fill} num retângulo de um tile. */
+    public void set(int x, int y, Tile tile) {
+        fill(x, y, x, y, tile);
+    }
+
+    /**
+     * Troca os tiles de {@code [x0, x1] x [y0, y1]} (inclusivo, recortado ao mapa). Atualiza os
+     * bitsets e as estruturas já montadas só em volta do retângulo (o grafo de salas só se algum
+     * tile mudou de andável para sólido ou o contrário, com {@link RoomGraph#repair}) e avisa
+     * os listeners.
+     * Chame de um thread só (o da simulação); o render lê sem trava e redesenha pelo aviso.
+     */
+    public synchronized void fill(int x0, int y0, int x1, int y1, Tile tile) {
+        x0 = Math.max(0, x0); y0 = Math.max(0, y0);
+        x1 = Math.min(width - 1, x1); y1 = Math.min(height - 1, y1);
+        if (x1 < x0 || y1 < y0) return;
+        byte code = tile.code();
+        boolean changed = false, passability = false;
+        boolean toSolid = code == WALL;
+        for (int y = y0; y <= y1; y++) {
+            int row = y * width;
+            for (int x = x0; x <= x1; x++) {
+                byte old = cells[row + x];
+                if (old == code) continue;
+                changed = true;
+                if ((old == WALL) != toSolid) passability = true;
+                cells[row + x] = code;
+            }
+        }
+        if (!changed) return;
+        tileChanges++;
+        if (passability) {
+            for (int y = y0; y <= y1; y++) setRowBits(y, x0, x1, toSolid);
+            if (roomGraph != null) roomGraph = RoomGraph.repair(roomGraph, this, x0, y0, x1, y1);
+        }
+        NeighborMask mask = floorNeighbors;
+        if (mask != null) mask.update(x0, y0, x1, y1);
+        if (distanceField != null) distanceField.update(x0, y0, x1, y1, passability);
+        for (TileChangeListener l : listeners) l.tilesChanged(this, x0, y0, x1, y1, passability);
+    }
+
+    /** Marca {@code [x0, x1]} da linha {@code y} como sólida ou andável nos dois bitsets. */
+    private void setRowBits(int y, int x0, int x1, boolean toSolid) {
+        int base = y * wordsPerRow;
+        int w0 = x0 >>> 6, w1 = x1 >>> 6;
+        for (int w = w0; w <= w1; w++) {
+            long m = rangeMask(w, w0, w1, x0, x1);
+            if (toSolid) {
+                solid[base + w] |= m;
+                walkable[base + w] &= ~m;
+            } else {
+                walkable[base + w] |= m;
+                solid[base + w] &= ~m;
+            }
+        }
+    }
+
+    public void addTileChangeListener(TileChangeListener l) { listeners.add(l); }
+    public void removeTileChangeListener(TileChangeListener l) { listeners.remove(l); }
+    /** Quantas chamadas de {@link #fill} mudaram algum tile. */
+    public long getTileChangeCount() { return tileChanges; }
+
+    @Override
+    public boolean isBounded() { return true; }
 
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /** {@link Tile#code()} da célula, sem passar pelo enum. */
+    @Override
+    public byte getCode(int x, int y) { return cells[y * width + x]; }
+
+    @Override
     public boolean isWalkable(int tx, int ty) {
         if (tx < 0 || ty < 0 || tx >= width || ty >= height) return false;
-        Tile t = get(tx, ty);
-        return t == Tile.FLOOR || t == Tile.DOOR;
+        return (walkable[ty * wordsPerRow + (tx >>> 6)] & (1L << tx)) != 0;
+    }
+
+    /** Bloqueia projéteis e raios: parede ou fora do mapa. */
+    @Override
+    public boolean isSolid(int tx, int ty) {
+        if (tx < 0 || ty < 0 || tx >= width || ty >= height) return true;
+        return (solid[ty * wordsPerRow + (tx >>> 6)] & (1L << tx)) != 0;
+    }
+
+    // ========= Consultas em bloco =========
+
+    /** Longs por linha nos bitsets ({@code (width + 63) / 64}); bit {@code x & 63} da palavra {@code x >>> 6}. */
+    public int wordsPerRow() { return wordsPerRow; }
+
+    /** Palavra {@code word} do bitset de caminháveis da linha {@code y}. */
+    public long walkableWord(int y, int word) { return walkable[y * wordsPerRow + word]; }
+
+    /** Palavra {@code word} do bitset de sólidos da linha {@code y}. */
+    public long solidWord(int y, int word) { return solid[y * wordsPerRow + word]; }
+
+    /** Copia os códigos da linha {@code y}, colunas {@code [x0, x0+count)}, para {@code dst}. */
+    public void copyRow(int y, int x0, int count, byte[] dst, int dstOffset) {
+        System.arraycopy(cells, y * width + x0, dst, dstOffset, count);
+    }
+
+    /**
+     * Se algum tile do retângulo {@code [x0, x1] x [y0, y1]} (inclusivo) é sólido; a parte
+     * fora do mapa conta como sólida. Usado na colisão de caixas.
+     */
+    @Override
+    public boolean anySolid(int x0, int y0, int x1, int y1) {
+        if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height) return true;
+        for (int y = y0; y <= y1; y++) {
+            if (anyBits(solid, y * wordsPerRow, x0, x1)) return true;
+        }
+        return false;
+    }
+
+    /** Se todos os tiles do retângulo (inclusivo) são caminháveis; fora do mapa não é. */
+    public boolean allWalkable(int x0, int y0, int x1, int y1) {
+        if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height) return false;
+        return countWalkable(x0, y0, x1, y1) == (x1 - x0 + 1) * (y1 - y0 + 1);
+    }
+
+    /** Quantos tiles caminháveis há no retângulo (inclusivo, recortado ao mapa). */
+    public int countWalkable(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0); y0 = Math.max(0, y0);
+        x1 = Math.min(width - 1, x1); y1 = Math.min(height - 1, y1);
+        int n = 0;
+        for (int y = y0; y <= y1; y++) {
+            n += countBits(walkable, y * wordsPerRow, x0, x1);
+        }
+        return n;
+    }
+
+    private static long rangeMask(int w, int w0, int w1, int x0, int x1) {
+        long m = -1L;
+        if (w == w0) m &= -1L << (x0 & 63);
+        if (w == w1) m &= -1L >>> (63 - (x1 & 63));
+        return m;
+    }
+
+    private static boolean anyBits(long[] bits, int base, int x0, int x1) {
+        int w0 = x0 >>> 6, w1 = x1 >>> 6;
+        for (int w = w0; w <= w1; w++) {
+            if ((bits[base + w] & rangeMask(w, w0, w1, x0, x1)) != 0) return true;
+        }
+        return false;
+    }
+
+    private static int countBits(long[] bits, int base, int x0, int x1) {
+        if (x1 < x0) return 0;
+        int w0 = x0 >>> 6, w1 = x1 >>> 6;
+        int n = 0;
+        for (int w = w0; w <= w1; w++) {
+            n += Long.bitCount(bits[base + w] & rangeMask(w, w0, w1, x0, x1));
+        }
+        return n;
     }
 
     public int clampX(int x) { return Math.max(0, Math.min(width - 1, x)); }
     public int clampY(int y) { return Math.max(0, Math.min(height - 1, y)); }
 
     // Utilitário simples para pequenas variações pseudo-aleatórias
+    @Override
     public float random01(int x, int y) {
+        return random01(seed, x, y);
+    }
+
+    /** Valor em [0,1) estável para {@code (seed, x, y)}. */
+    public static float random01(long seed, int x, int y) {
         long h = seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL);
         h ^= (h >>> 33);
         h *= 0xff51afd7ed558ccdL;
@@ -0,0 +1,103 @@
+package com.echorun.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Formato binário de um andar ({@code .echf}), little-endian:
+ * <pre>
+ *  0  magic "ECHF"            4 bytes
+ *  4  versão                  u16 (= {@link #VERSION})
+ *  6  codificação dos tiles   u16 (0 = 2 bits por tile, linhas alinhadas em byte)
+ *  8  largura, altura         i32, i32
+ * 16  tamanho do tile         i32
+ * 20  salas                   i32
+ * 24  seed                    i64
+ * 32  reservado               8 bytes
+ * 40  salas: x, y, w, h       i32 x 4 por sala
+ *  …  tiles: linha a linha, {@code (largura * 2 + 7) / 8} bytes cada; o tile x fica nos bits
+ *     {@code 2 * (x % 4)} e seguinte do byte {@code x / 4} ({@link Tile#code()}, 0..3)
+ * </pre>
+ * A gravação vai por {@link FileChannel}, em blocos; {@link #open} mapeia o arquivo
+ * ({@link MappedByteBuffer}) e só lê o cabeçalho, então abrir custa o mesmo para qualquer
+ * tamanho e o sistema traz os tiles do disco conforme são lidos.
+ */
+public final class FloorFile {
+    public static final int VERSION = 1;
+    static final int MAGIC = 'E' | 'C' << 8 | 'H' << 16 | 'F' << 24;
+    static final int HEADER_BYTES = 40;
+    static final int ROOM_BYTES = 16;
+    static final int ENCODING_2BIT = 0;
+
+    private static final int WRITE_BLOCK = 1 << 16;
+
+    private FloorFile() {}
+
+    static int rowBytes(int width) {
+        return (int) (((long) width * 2 + 7) >>> 3);
+    }
+
+    /** Grava o mapa e as salas (pode ser vazia) em {@code path}, substituindo o arquivo. */
+    public static void write(Path path, DungeonMap map, List<DungeonGenerator.Room> rooms) throws IOException {
+        int width = map.getWidth(), height = map.getHeight();
+        int rowBytes = rowBytes(width);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(Math.max(WRITE_BLOCK, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putShort((short) VERSION).putShort((short) ENCODING_2BIT);
+            buf.putInt(width).putInt(height).putInt(map.getTileSize()).putInt(rooms.size());
+            buf.putLong(map.getSeed()).putLong(0L);
+            for (DungeonGenerator.Room r : rooms) {
+                if (buf.remaining() < ROOM_BYTES) drain(ch, buf);
+                buf.putInt(r.x).putInt(r.y).putInt(r.w).putInt(r.h);
+            }
+
+            // Tiles: uma linha por vez, empacotada em 2 bits
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                if (buf.remaining() < rowBytes) drain(ch, buf);
+                map.copyRow(y, 0, width, row, 0);
+                for (int x = 0; x < width; x += 4) {
+                    int b = 0;
+                    for (int k = 0; k < 4 && x + k < width; k++) b |= (row[x + k] & 3) << (2 * k);
+                    buf.put((byte) b);
+                }
+            }
+            drain(ch, buf);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /** Abre o andar mapeado em memória; só o cabeçalho é lido agora. */
+    public static MappedFloor open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) throw new IOException("Arquivo de andar truncado: " + path);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            // O mapeamento continua válido depois de fechar o canal
+            return new MappedFloor(path, buf);
+        }
+    }
+
+    /** Lê o andar inteiro para um {@link DungeonMap} (decodifica todos os tiles). */
+    public static DungeonMap read(Path path) throws IOException {
+        MappedFloor floor = open(path);
+        if ((long) floor.getWidth() * floor.getHeight() > Integer.MAX_VALUE) {
+            throw new IOException("Andar grande demais para decodificar inteiro ("
+                    + floor.getWidth() + "x" + floor.getHeight() + "): " + path);
+        }
+        return floor.toDungeonMap();
+    }
+}
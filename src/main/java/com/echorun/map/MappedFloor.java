@@ -0,0 +1,134 @@
+package com.echorun.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Andar lido direto de um arquivo mapeado em memória ({@link FloorFile}): cada consulta
+ * decodifica o tile no buffer, sem copiar a grade. Serve para abrir andares grandes na hora
+ * e consultar só a parte usada; para simulação intensa, {@link #toDungeonMap()} decodifica
+ * tudo para o formato com bitsets. Leituras podem vir de qualquer thread.
+ */
+public final class MappedFloor implements TileGrid {
+    private static final byte WALL = Tile.WALL.code();
+
+    private final ByteBuffer buf;
+    private final int width, height, tileSize, roomCount;
+    private final long seed;
+    private final int rowBytes;
+    private final int tilesOffset;
+
+    MappedFloor(Path path, ByteBuffer buf) throws IOException {
+        if (buf.getInt(0) != FloorFile.MAGIC) throw new IOException("Não é um arquivo de andar: " + path);
+        int version = buf.getShort(4) & 0xFFFF;
+        if (version != FloorFile.VERSION) throw new IOException("Versão de andar não suportada (" + version + "): " + path);
+        int encoding = buf.getShort(6) & 0xFFFF;
+        if (encoding != FloorFile.ENCODING_2BIT) throw new IOException("Codificação de tiles desconhecida (" + encoding + "): " + path);
+        this.buf = buf;
+        this.width = buf.getInt(8);
+        this.height = buf.getInt(12);
+        this.tileSize = buf.getInt(16);
+        this.roomCount = buf.getInt(20);
+        this.seed = buf.getLong(24);
+        if (width <= 0 || height <= 0 || roomCount < 0) throw corrupt(path);
+        this.rowBytes = FloorFile.rowBytes(width);
+        // Em long: um cabeçalho corrompido não pode dar a volta no int e passar no teste
+        long tiles = FloorFile.HEADER_BYTES + Math.multiplyExact((long) roomCount, FloorFile.ROOM_BYTES);
+        if (tiles + Math.multiplyExact((long) rowBytes, height) > buf.capacity()) throw corrupt(path);
+        this.tilesOffset = (int) tiles;
+    }
+
+    private static IOException corrupt(Path path) {
+        return new IOException("Arquivo de andar truncado ou corrompido: " + path);
+    }
+
+    public long getSeed() { return seed; }
+    public int getRoomCount() { return roomCount; }
+
+    /** Salas gravadas com o andar, na ordem do arquivo. */
+    public List<DungeonGenerator.Room> readRooms() {
+        List<DungeonGenerator.Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            int at = FloorFile.HEADER_BYTES + i * FloorFile.ROOM_BYTES;
+            DungeonGenerator.Room r = new DungeonGenerator.Room();
+            r.x = buf.getInt(at);
+            r.y = buf.getInt(at + 4);
+            r.w = buf.getInt(at + 8);
+            r.h = buf.getInt(at + 12);
+            rooms.add(r);
+        }
+        return rooms;
+    }
+
+    /**
+     * Decodifica a grade inteira (e as salas) num {@link DungeonMap}.
+     *
+     * @throws ArithmeticException se a grade não cabe num {@code byte[]} ({@link FloorFile#read} testa antes)
+     */
+    public DungeonMap toDungeonMap() {
+        byte[] cells = new byte[Math.toIntExact(Math.multiplyExact((long) width, height))];
+        for (int y = 0; y < height; y++) {
+            int src = tilesOffset + y * rowBytes;
+            int dst = y * width;
+            for (int i = 0; i < rowBytes; i++) {
+                int b = buf.get(src + i);
+                int x = i << 2;
+                // Até 4 tiles por byte; o último byte da linha pode estar incompleto
+                for (int k = 0; k < 4 && x + k < width; k++) cells[dst + x + k] = (byte) ((b >>> (2 * k)) & 3);
+            }
+        }
+        return new DungeonMap(width, height, tileSize, cells, seed, readRooms());
+    }
+
+    @Override
+    public int getTileSize() { return tileSize; }
+    @Override
+    public boolean isBounded() { return true; }
+    @Override
+    public int getWidth() { return width; }
+    @Override
+    public int getHeight() { return height; }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    @Override
+    public Tile get(int x, int y) { return Tile.fromCode(getCode(x, y)); }
+
+    @Override
+    public byte getCode(int x, int y) {
+        int b = buf.get(tilesOffset + y * rowBytes + (x >>> 2));
+        return (byte) ((b >>> ((x & 3) << 1)) & 3);
+    }
+
+    @Override
+    public boolean isWalkable(int tx, int ty) {
+        return contains(tx, ty) && getCode(tx, ty) != WALL;
+    }
+
+    @Override
+    public boolean isSolid(int tx, int ty) {
+        return !contains(tx, ty) || getCode(tx, ty) == WALL;
+    }
+
+    @Override
+    public boolean anySolid(int x0, int y0, int x1, int y1) {
+        if (x0 < 0 || y0 < 0 || x1 >= width || y1 >= height) return true;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                if (getCode(x, y) == WALL) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public float random01(int x, int y) {
+        return DungeonMap.random01(seed, x, y);
+    }
+}
@@ -0,0 +1,154 @@
+package com.echorun.map;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Máscara de 8 vizinhos por tile: o bit de cada direção ({@link #N}, {@link #NE}, ...) diz se
+ * o vizinho naquela direção tem o código marcado (no {@link DungeonMap}, piso). Fora da grade
+ * nunca conta. Calculada por palavras: as linhas viram bitsets de 64 tiles, os oito vizinhos
+ * saem de deslocamentos das três linhas em volta e cada grupo de 8 tiles é espalhado para 8
+ * bytes e gravado com uma escrita. Um byte por tile, consulta com uma leitura.
+ *
+ * <p>{@link #update} refaz só as palavras em volta de um retângulo que mudou. Não é
+ * thread-safe: usa linhas de trabalho próprias.
+ */
+public final class NeighborMask {
+    public static final int N = 1, NE = 2, E = 4, SE = 8, S = 16, SW = 32, W = 64, NW = 128;
+    public static final int CARDINALS = N | E | S | W;
+
+    // 8 células como um long, a primeira no byte de baixo
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] cells;
+    private final int width, height, wordsPerRow;
+    private final byte code;
+    private final byte[] mask;
+    // Bits do código marcado nas linhas y-1, y e y+1 (rotativas)
+    private final long[] above, row, below;
+
+    private NeighborMask(byte[] cells, int width, int height, byte code) {
+        this.cells = cells;
+        this.width = width;
+        this.height = height;
+        this.code = code;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.mask = new byte[width * height];
+        this.above = new long[wordsPerRow];
+        this.row = new long[wordsPerRow];
+        this.below = new long[wordsPerRow];
+    }
+
+    /** Máscara dos vizinhos com {@code code} em cada célula de {@code cells} ({@code y * width + x}). */
+    public static NeighborMask build(byte[] cells, int width, int height, byte code) {
+        if (cells.length != width * height) throw new IllegalArgumentException("cells.length != width * height");
+        NeighborMask m = new NeighborMask(cells, width, height, code);
+        m.compute(0, height - 1, 0, m.wordsPerRow - 1);
+        return m;
+    }
+
+    /** Bits dos vizinhos de {@code (x, y)}; 0 fora da grade. */
+    public int get(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        return mask[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Refaz a máscara depois de mudarem as células do retângulo {@code [x0, x1] x [y0, y1]}
+     * (inclusivo): os tiles a um de distância dele, arredondados para palavras inteiras.
+     */
+    public void update(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0 - 1); y0 = Math.max(0, y0 - 1);
+        x1 = Math.min(width - 1, x1 + 1); y1 = Math.min(height - 1, y1 + 1);
+        if (x1 < x0 || y1 < y0) return;
+        compute(y0, y1, x0 >>> 6, x1 >>> 6);
+    }
+
+    private void compute(int y0, int y1, int w0, int w1) {
+        // As palavras vizinhas entram pelos bits que passam de uma palavra para a outra
+        int p0 = Math.max(0, w0 - 1), p1 = Math.min(wordsPerRow - 1, w1 + 1);
+        long[] up = above, mid = row, down = below;
+        packRow(cells, width, height, y0 - 1, code, up, p0, p1);
+        packRow(cells, width, height, y0, code, mid, p0, p1);
+        for (int y = y0; y <= y1; y++) {
+            packRow(cells, width, height, y + 1, code, down, p0, p1);
+            int base = y * width;
+            for (int w = w0; w <= w1; w++) {
+                long n = up[w], s = down[w];
+                long e = east(mid, w), wst = west(mid, w);
+                long ne = east(up, w), nw = west(up, w);
+                long se = east(down, w), sw = west(down, w);
+                int x0 = w << 6, count = Math.min(64, width - x0);
+                for (int g = 0; g < count; g += 8) {
+                    long v = spread((int) (n >>> g) & 0xFF)
+                            | spread((int) (ne >>> g) & 0xFF) << 1
+                            | spread((int) (e >>> g) & 0xFF) << 2
+                            | spread((int) (se >>> g) & 0xFF) << 3
+                            | spread((int) (s >>> g) & 0xFF) << 4
+                            | spread((int) (sw >>> g) & 0xFF) << 5
+                            | spread((int) (wst >>> g) & 0xFF) << 6
+                            | spread((int) (nw >>> g) & 0xFF) << 7;
+                    int i = base + x0 + g;
+                    if (count - g >= 8) LONGS.set(mask, i, v);
+                    else for (int k = 0; k < count - g; k++) mask[i + k] = (byte) (v >>> (k << 3));
+                }
+            }
+            long[] t = up; up = mid; mid = down; down = t;
+        }
+    }
+
+    /** Espalha os 8 bits de {@code bits} para o bit 0 de cada um dos 8 bytes (bit k no byte k). */
+    private static long spread(int bits) {
+        // Invertido, o bit k cai no bit 7 do byte k (cópias a cada 9 bits não se sobrepõem)
+        long r = Integer.reverse(bits) >>> 24;
+        return ((r * 0x8040201008040201L) & 0x8080808080808080L) >>> 7;
+    }
+
+    /**
+     * Bits das células de {@code code} da linha {@code y}, palavras {@code [w0, w1]}, em
+     * {@code dst} (bit {@code x & 63} da palavra {@code x >>> 6}); zeros fora da grade. Lê 8
+     * células por vez como um long e compara os 8 bytes de uma vez.
+     */
+    static void packRow(byte[] cells, int width, int height, int y, byte code, long[] dst, int w0, int w1) {
+        if (y < 0 || y >= height) {
+            for (int w = w0; w <= w1; w++) dst[w] = 0;
+            return;
+        }
+        int base = y * width;
+        long pattern = (code & 0xFFL) * 0x0101010101010101L;
+        for (int w = w0; w <= w1; w++) {
+            int x0 = w << 6, n = Math.min(64, width - x0);
+            long bits = 0;
+            int b = 0;
+            for (; b + 8 <= n; b += 8) {
+                bits |= equalBytes((long) LONGS.get(cells, base + x0 + b) ^ pattern) << b;
+            }
+            for (; b < n; b++) {
+                if (cells[base + x0 + b] == code) bits |= 1L << b;
+            }
+            dst[w] = bits;
+        }
+    }
+
+    /** Bit k = byte k de {@code x} é zero (8 bits). */
+    private static long equalBytes(long x) {
+        // Bit alto de cada byte: 1 se o byte não é zero (sem vai-um entre bytes)
+        long nonZero = ((x & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL) | x;
+        long zero = ~nonZero & 0x8080808080808080L;
+        // Junta os 8 bits altos no byte de cima e desce
+        return ((zero >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    /** Bit {@code x} = célula {@code x + 1} da linha (vizinho a leste). */
+    static long east(long[] row, int w) {
+        long v = row[w] >>> 1;
+        return w + 1 < row.length ? v | row[w + 1] << 63 : v;
+    }
+
+    /** Bit {@code x} = célula {@code x - 1} da linha (vizinho a oeste). */
+    static long west(long[] row, int w) {
+        long v = row[w] << 1;
+        return w > 0 ? v | row[w - 1] >>> 63 : v;
+    }
+}
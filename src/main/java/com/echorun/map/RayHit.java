@@ -0,0 +1,19 @@
+package com.echorun.map;
+
+/**
+ * Resultado de {@link DungeonMap#raycast}. Reutilizável: cada chamada sobrescreve todos os
+ * campos, então quem lança raios a cada tick guarda uma instância e não aloca.
+ */
+public final class RayHit {
+    /** true se o raio parou num tile sólido antes da distância máxima. */
+    public boolean hit;
+    /** Tile atingido (válido só com {@link #hit}); fora do mapa conta como parede. */
+    public int tileX, tileY;
+    public Tile tile;
+    /** Distância em pixels da origem ao ponto de parada (a máxima, se não bateu). */
+    public double distance;
+    /** Ponto de parada em pixels. */
+    public double x, y;
+    /** Normal da face atingida, em tiles (ex.: -1,0 = face esquerda); 0,0 se a origem já está dentro. */
+    public int normalX, normalY;
+}
@@ -0,0 +1,655 @@
+package com.echorun.map;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Camada abstrata de um {@link DungeonMap} para busca de caminhos hierárquica: cada tile
+ * andável pertence a uma região, que é uma sala do gerador (ou cada pedaço dela, se paredes a
+ * partem) ou um trecho de corredor (tiles andáveis conectados fora das salas, dentro de um
+ * bloco de {@value #CORRIDOR_BLOCK} x {@value #CORRIDOR_BLOCK} tiles, para nenhuma região
+ * ficar com centenas de entradas nos mapas grandes, onde os corredores se cruzam). Toda região
+ * é conexa. Onde duas regiões se encostam há uma entrada; cada trecho contínuo de borda vira
+ * uma entrada só, no tile do meio, com um nó de cada lado.
+ *
+ * <p>As arestas ligam os dois lados de cada entrada (custo 1) e os nós de uma mesma região
+ * entre si, com a distância real do caminho por dentro dela. Tudo fica em vetores (listas de
+ * adjacência compactadas), montados uma vez por mapa; o grafo não muda depois (quando a
+ * passagem muda, {@link #repair} monta outro refazendo só as regiões em volta da mudança).
+ *
+ * <p>Para a busca gastar menos nós, o grafo guarda a distância de {@value #LANDMARKS} nós de
+ * referência (escolhidos longe uns dos outros) até todos os outros: pela desigualdade
+ * triangular, {@code |d(L, a) - d(L, b)|} é um limite inferior de {@code d(a, b)} bem mais
+ * justo que a distância em linha reta num labirinto. Num grafo consertado essas distâncias são
+ * refeitas na primeira consulta (copiar as antigas deixaria a estimativa acima da distância
+ * real onde a mudança abriu atalhos), então várias mudanças seguidas pagam por elas uma vez.
+ */
+public final class RoomGraph {
+    public static final int CORRIDOR_BLOCK = 16;
+    public static final int LANDMARKS = 8;
+    /** Distância a um nó de referência de outro componente. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int PENDING = -2; // tile de sala à espera do pedaço (região) dele
+
+    private final int width, height;
+    private final int[] regionOf;      // região por tile; -1 = parede
+    private final int roomCount, regionCount;
+    private final int[] regionBounds;  // x0, y0, x1, y1 por região
+    private final int[] regionRoom;    // sala de cada região; -1 = corredor
+
+    // Nós: 2e e 2e+1 são os dois lados da entrada e
+    private final int nodeCount;
+    private final int[] nodeTile, nodeRegion;
+    private final int[] regionNodeStart, regionNodes;
+    private final int[] edgeStart, edgeTo, edgeCost;
+    private final int landmarkCount;
+    private volatile int[] landmarkDist; // nó * landmarkCount + referência; null até a primeira consulta
+
+    private RoomGraph(int width, int height, int[] regionOf, int roomCount, int regionCount, int[] regionBounds,
+                      int[] regionRoom, int nodeCount, int[] nodeTile, int[] nodeRegion, int[] regionNodeStart, int[] regionNodes,
+                      int[] edgeStart, int[] edgeTo, int[] edgeCost, int landmarkCount, int[] landmarkDist) {
+        this.width = width;
+        this.height = height;
+        this.regionOf = regionOf;
+        this.roomCount = roomCount;
+        this.regionCount = regionCount;
+        this.regionBounds = regionBounds;
+        this.regionRoom = regionRoom;
+        this.nodeCount = nodeCount;
+        this.nodeTile = nodeTile;
+        this.nodeRegion = nodeRegion;
+        this.regionNodeStart = regionNodeStart;
+        this.regionNodes = regionNodes;
+        this.edgeStart = edgeStart;
+        this.edgeTo = edgeTo;
+        this.edgeCost = edgeCost;
+        this.landmarkCount = landmarkCount;
+        this.landmarkDist = landmarkDist;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * Regiões 0 a {@code getRoomCount() - 1} são as salas, na ordem de {@link DungeonMap#getRooms()}.
+     * Uma sala que paredes cortam em pedaços desconectados tem uma região por pedaço: o primeiro
+     * fica com o número da sala, os outros ganham números depois dela ({@link #roomOf}).
+     */
+    public int getRoomCount() { return roomCount; }
+    public int getRegionCount() { return regionCount; }
+    public boolean isRoom(int region) { return regionRoom[region] >= 0; }
+    /** Sala de que a região é (um pedaço), ou -1 se é trecho de corredor. */
+    public int roomOf(int region) { return regionRoom[region]; }
+
+    /** Região do tile, ou -1 (parede ou fora do mapa). */
+    public int regionAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return -1;
+        return regionOf[y * width + x];
+    }
+
+    /** Região do tile {@code y * width + x}, sem teste de limites. */
+    public int regionOfTile(int tile) { return regionOf[tile]; }
+
+    public int regionX0(int region) { return regionBounds[region * 4]; }
+    public int regionY0(int region) { return regionBounds[region * 4 + 1]; }
+    public int regionX1(int region) { return regionBounds[region * 4 + 2]; }
+    public int regionY1(int region) { return regionBounds[region * 4 + 3]; }
+
+    public int getEntranceCount() { return nodeCount / 2; }
+    public int getNodeCount() { return nodeCount; }
+    /** Tile do nó ({@code y * width + x}). */
+    public int nodeTile(int node) { return nodeTile[node]; }
+    public int nodeRegion(int node) { return nodeRegion[node]; }
+    /** Nó do outro lado da mesma entrada. */
+    public static int partner(int node) { return node ^ 1; }
+
+    /** Nós da região: {@code regionNode(k)} para {@code k} em {@code [regionNodeBegin, regionNodeEnd)}. */
+    public int regionNodeBegin(int region) { return regionNodeStart[region]; }
+    public int regionNodeEnd(int region) { return regionNodeStart[region + 1]; }
+    public int regionNode(int k) { return regionNodes[k]; }
+
+    /**
+     * Arestas do nó: {@code edgeTo(k)}/{@code edgeCost(k)} para {@code k} em {@code [edgeBegin, edgeEnd)}.
+     * A primeira é sempre a do outro lado da entrada; as demais, os nós da mesma região.
+     */
+    public int edgeBegin(int node) { return edgeStart[node]; }
+    public int edgeEnd(int node) { return edgeStart[node + 1]; }
+    public int edgeTo(int k) { return edgeTo[k]; }
+    public int edgeCost(int k) { return edgeCost[k]; }
+    public int getEdgeCount() { return edgeTo.length; }
+
+    /** Nós de referência de fato usados (menos que {@link #LANDMARKS} em grafos pequenos). */
+    public int getLandmarkCount() { return landmarkCount; }
+    /**
+     * Distância pelo grafo do nó de referência {@code k} até {@code node}, ou {@link #UNREACHABLE}.
+     * Num grafo consertado, a primeira chamada monta as distâncias (vários Dijkstras no grafo todo).
+     */
+    public int landmarkDistance(int node, int k) {
+        int[] d = landmarkDist;
+        if (d == null) d = landmarkTable();
+        return d[node * landmarkCount + k];
+    }
+
+    private synchronized int[] landmarkTable() {
+        if (landmarkDist == null) landmarkDist = landmarks(nodeCount, landmarkCount, edgeStart, edgeTo, edgeCost);
+        return landmarkDist;
+    }
+
+    // ========= Montagem =========
+
+    /** Monta o grafo das salas de {@link DungeonMap#getRooms()} e dos corredores do mapa. */
+    static RoomGraph build(DungeonMap map) {
+        int w = map.getWidth(), h = map.getHeight();
+        int[] regionOf = new int[w * h];
+        Arrays.fill(regionOf, -1);
+        List<DungeonGenerator.Room> rooms = map.getRooms();
+        int roomCount = rooms.size();
+        int[] bounds = new int[Math.max(16, roomCount * 4 * 2)];
+        int[] regionRoom = new int[bounds.length / 4];
+
+        // Salas: os tiles andáveis do retângulo (a sala de cima fica com os tiles em comum)
+        for (int r = 0; r < roomCount; r++) {
+            DungeonGenerator.Room room = rooms.get(r);
+            int x0 = Math.max(0, room.x), y0 = Math.max(0, room.y);
+            int x1 = Math.min(w, room.x + room.w) - 1, y1 = Math.min(h, room.y + room.h) - 1;
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    if (map.isWalkable(x, y)) regionOf[y * w + x] = r;
+                }
+            }
+        }
+
+        // Cada sala vira uma região por pedaço conexo dos seus tiles
+        int[] queue = new int[w * h];
+        int regions = roomCount;
+        for (int r = 0; r < roomCount; r++) {
+            DungeonGenerator.Room room = rooms.get(r);
+            int x0 = Math.max(0, room.x), y0 = Math.max(0, room.y);
+            int x1 = Math.min(w, room.x + room.w) - 1, y1 = Math.min(h, room.y + room.h) - 1;
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0, t = y * w + x0; x <= x1; x++, t++) {
+                    if (regionOf[t] == r) regionOf[t] = PENDING;
+                }
+            }
+            int piece = -1; // o primeiro pedaço fica com o número da sala
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0, t = y * w + x0; x <= x1; x++, t++) {
+                    if (regionOf[t] != PENDING) continue;
+                    piece = piece < 0 ? r : regions++;
+                    bounds = grown(bounds, piece * 4 + 4);
+                    regionRoom = grown(regionRoom, piece + 1);
+                    regionRoom[piece] = r;
+                    floodRoom(regionOf, w, h, queue, t, piece, bounds);
+                }
+            }
+            if (piece < 0) { // sem tile andável
+                regionRoom[r] = r;
+                bounds[r * 4] = w; bounds[r * 4 + 1] = h; bounds[r * 4 + 2] = -1; bounds[r * 4 + 3] = -1;
+            }
+        }
+
+        // Corredores: componentes conexos do que sobrou, sem sair do bloco
+        for (int i = 0; i < w * h; i++) {
+            if (regionOf[i] >= 0 || !map.isWalkable(i % w, i / w)) continue;
+            bounds = grown(bounds, regions * 4 + 4);
+            regionRoom = grown(regionRoom, regions + 1);
+            regionRoom[regions] = -1;
+            floodCorridor(map, regionOf, queue, i, regions++, bounds);
+        }
+        bounds = Arrays.copyOf(bounds, regions * 4);
+        regionRoom = Arrays.copyOf(regionRoom, regions);
+
+        IntList pairs = new IntList(); // tile de cada lado, por entrada
+        scanEntrances(regionOf, w, h, 0, 0, w - 1, h - 1, null, pairs);
+        return assemble(w, h, regionOf, roomCount, regions, bounds, regionRoom, pairs, null, null, null);
+    }
+
+    /**
+     * Grafo de {@code map} depois que a passagem mudou em {@code [x0, x1] x [y0, y1]}, a partir
+     * de {@code old}, o de antes da mudança. Só as regiões mexidas (salas com tiles no
+     * retângulo e trechos de corredor dos blocos que ele toca) são refeitas, com suas entradas
+     * e as arestas por dentro; as demais regiões, entradas e custos são copiados. As distâncias
+     * aos nós de referência não: ficam para a primeira consulta ({@link #landmarkDistance}).
+     */
+    static RoomGraph repair(RoomGraph old, DungeonMap map, int x0, int y0, int x1, int y1) {
+        int w = old.width, h = old.height, roomCount = old.roomCount;
+        int[] regionOf = old.regionOf.clone();
+        int[] regionRoom = Arrays.copyOf(old.regionRoom, old.regionCount + 16);
+        List<DungeonGenerator.Room> rooms = map.getRooms();
+        IntList touched = new IntList(), touchedRooms = new IntList();
+
+        // Tiles do retângulo: parede sai da região; piso novo dentro de sala entra nela
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int t = y * w + x, r = regionOf[t];
+                if (!map.isWalkable(x, y)) {
+                    if (r >= 0) {
+                        touched.add(r);
+                        if (regionRoom[r] >= 0) touchedRooms.add(regionRoom[r]);
+                    }
+                    regionOf[t] = -1;
+                } else if (r < 0 && (r = roomAt(rooms, x, y)) >= 0) {
+                    regionOf[t] = r;
+                    touched.add(r);
+                    touchedRooms.add(r);
+                }
+            }
+        }
+
+        // Salas tocadas: solta os pedaços antigos e refaz um por componente, como no build (a
+        // parede pode ter partido a sala, ou o piso novo juntado dois pedaços). Os números soltos
+        // são reaproveitados antes de criar novos, aqui e nos corredores
+        int[] bounds = Arrays.copyOf(old.regionBounds, old.regionBounds.length + 64);
+        boolean[] freed = new boolean[old.regionCount];
+        IntList free = new IntList();
+        int regions = old.regionCount, reused = 0;
+        boolean[] redone = new boolean[roomCount];
+        int[] queue = new int[CORRIDOR_BLOCK * CORRIDOR_BLOCK];
+        for (int i = 0; i < touchedRooms.size; i++) {
+            int room = touchedRooms.data[i];
+            if (redone[room]) continue;
+            redone[room] = true;
+            DungeonGenerator.Room rect = rooms.get(room);
+            int rx0 = Math.max(0, rect.x), ry0 = Math.max(0, rect.y);
+            int rx1 = Math.min(w, rect.x + rect.w) - 1, ry1 = Math.min(h, rect.y + rect.h) - 1;
+            if (queue.length < (rx1 - rx0 + 1) * (ry1 - ry0 + 1)) queue = new int[(rx1 - rx0 + 1) * (ry1 - ry0 + 1)];
+            for (int y = ry0; y <= ry1; y++) {
+                for (int x = rx0, t = y * w + rx0; x <= rx1; x++, t++) {
+                    int r = regionOf[t];
+                    if (r < 0 || regionRoom[r] != room) continue;
+                    regionOf[t] = PENDING;
+                    if (r != room && r < freed.length && !freed[r]) {
+                        freed[r] = true;
+                        free.add(r);
+                    }
+                }
+            }
+            int piece = -1;
+            for (int y = ry0; y <= ry1; y++) {
+                for (int x = rx0, t = y * w + rx0; x <= rx1; x++, t++) {
+                    if (regionOf[t] != PENDING) continue;
+                    piece = piece < 0 ? room : reused < free.size ? free.data[reused++] : regions++;
+                    bounds = grown(bounds, piece * 4 + 4);
+                    regionRoom = grown(regionRoom, piece + 1);
+                    regionRoom[piece] = room;
+                    floodRoom(regionOf, w, h, queue, t, piece, bounds);
+                    touched.add(piece);
+                }
+            }
+            if (piece < 0) {
+                bounds[room * 4] = w; bounds[room * 4 + 1] = h; bounds[room * 4 + 2] = -1; bounds[room * 4 + 3] = -1;
+            }
+            touched.add(room);
+        }
+
+        // Corredores dos blocos tocados: solta as regiões antigas e refaz os componentes
+        for (int by = y0 / CORRIDOR_BLOCK; by <= y1 / CORRIDOR_BLOCK; by++) {
+            for (int bx = x0 / CORRIDOR_BLOCK; bx <= x1 / CORRIDOR_BLOCK; bx++) {
+                int bx0 = bx * CORRIDOR_BLOCK, by0 = by * CORRIDOR_BLOCK;
+                int bx1 = Math.min(w, bx0 + CORRIDOR_BLOCK) - 1, by1 = Math.min(h, by0 + CORRIDOR_BLOCK) - 1;
+                for (int y = by0; y <= by1; y++) {
+                    for (int x = bx0; x <= bx1; x++) {
+                        int t = y * w + x, r = regionOf[t];
+                        if (r < 0 || regionRoom[r] >= 0) continue;
+                        regionOf[t] = -1;
+                        if (r < freed.length && !freed[r]) {
+                            freed[r] = true;
+                            free.add(r);
+                        }
+                    }
+                }
+                for (int y = by0; y <= by1; y++) {
+                    for (int x = bx0; x <= bx1; x++) {
+                        int t = y * w + x;
+                        if (regionOf[t] >= 0 || !map.isWalkable(x, y)) continue;
+                        int r = reused < free.size ? free.data[reused++] : regions++;
+                        bounds = grown(bounds, r * 4 + 4);
+                        regionRoom = grown(regionRoom, r + 1);
+                        regionRoom[r] = -1;
+                        floodCorridor(map, regionOf, queue, t, r, bounds);
+                        touched.add(r);
+                    }
+                }
+            }
+        }
+        for (int i = reused; i < free.size; i++) {
+            int r = free.data[i]; // ficou vazia
+            regionRoom[r] = -1;
+            bounds[r * 4] = w; bounds[r * 4 + 1] = h; bounds[r * 4 + 2] = -1; bounds[r * 4 + 3] = -1;
+        }
+        for (int i = 0; i < free.size; i++) touched.add(free.data[i]);
+        bounds = Arrays.copyOf(bounds, regions * 4);
+        regionRoom = Arrays.copyOf(regionRoom, regions);
+
+        // Retângulo das regiões mexidas, antes e depois
+        boolean[] changed = new boolean[regions];
+        int[] box = {w, h, -1, -1};
+        for (int i = 0; i < touched.size; i++) {
+            int r = touched.data[i];
+            changed[r] = true;
+            if (r < old.regionCount) include(box, old.regionBounds, r);
+            include(box, bounds, r);
+        }
+
+        // Entradas: as antigas entre duas regiões intactas ficam (com o nó de origem); as das
+        // mexidas são procuradas de novo
+        IntList pairs = new IntList(), origin = new IntList();
+        for (int n = 0; n < old.nodeCount; n += 2) {
+            if (changed[old.nodeRegion[n]] || changed[old.nodeRegion[n + 1]]) continue;
+            pairs.add(old.nodeTile[n]);
+            pairs.add(old.nodeTile[n + 1]);
+            origin.add(n);
+            origin.add(n + 1);
+        }
+        if (box[2] >= 0) scanEntrances(regionOf, w, h, box[0], box[1], box[2], box[3], changed, pairs);
+        while (origin.size < pairs.size) origin.add(-1);
+        return assemble(w, h, regionOf, roomCount, regions, bounds, regionRoom, pairs, old, changed, origin.data);
+    }
+
+    /**
+     * Nós, arestas e nós de referência a partir das regiões e das entradas ({@code pairs}).
+     * Com {@code old}, {@code origin} diz o nó de {@code old} de onde veio cada nó (ou -1, se
+     * é novo): as regiões fora de {@code changed} só com nós de lá copiam os custos em vez de
+     * refazer a busca, e as distâncias aos nós de referência vêm do nó de origem.
+     */
+    private static RoomGraph assemble(int w, int h, int[] regionOf, int roomCount, int regions, int[] bounds,
+                                      int[] regionRoom, IntList pairs, RoomGraph old, boolean[] changed, int[] origin) {
+        int nodes = pairs.size;
+        int[] nodeTile = Arrays.copyOf(pairs.data, nodes);
+        int[] nodeRegion = new int[nodes];
+        for (int n = 0; n < nodes; n++) nodeRegion[n] = regionOf[nodeTile[n]];
+
+        // Nós por região (contagem e soma prefixada)
+        int[] regionNodeStart = new int[regions + 1];
+        for (int n = 0; n < nodes; n++) regionNodeStart[nodeRegion[n] + 1]++;
+        for (int r = 0; r < regions; r++) regionNodeStart[r + 1] += regionNodeStart[r];
+        int[] regionNodes = new int[nodes];
+        int[] fill = Arrays.copyOf(regionNodeStart, regions);
+        for (int n = 0; n < nodes; n++) regionNodes[fill[nodeRegion[n]]++] = n;
+
+        // Arestas, região por região: o outro lado da entrada e, por busca em largura dentro
+        // da região, os demais nós da mesma região. Nas regiões copiadas, as do nó de origem
+        // cujo destino continua no grafo (na mesma ordem que a busca daria)
+        int[] renamed = null; // nó novo de cada nó de old, ou -1
+        if (old != null) {
+            renamed = new int[old.nodeCount];
+            Arrays.fill(renamed, -1);
+            for (int n = 0; n < nodes; n++) if (origin[n] >= 0) renamed[origin[n]] = n;
+        }
+        boolean[] copy = new boolean[regions];
+        int[] box = {0, 0, w - 1, h - 1}; // janela das buscas: o mapa todo, ou só as regiões refeitas
+        if (old != null) {
+            box = new int[]{w, h, -1, -1};
+            for (int r = 0; r < regions; r++) {
+                boolean c = !changed[r];
+                for (int k = regionNodeStart[r]; c && k < regionNodeStart[r + 1]; k++) c = origin[regionNodes[k]] >= 0;
+                copy[r] = c;
+                if (!c && regionNodeStart[r + 1] > regionNodeStart[r]) include(box, bounds, r);
+            }
+        }
+        int bw = Math.max(0, box[2] - box[0] + 1), area = bw * Math.max(0, box[3] - box[1] + 1);
+        int[] dist = new int[area], stamp = new int[area], queue = new int[area];
+        IntList to = new IntList(old != null ? old.edgeTo.length + 64 : 64), cost = new IntList(to.data.length);
+        int[] first = new int[nodes], edgeStart = new int[nodes + 1];
+        int epoch = 0;
+        for (int r = 0; r < regions; r++) {
+            int k0 = regionNodeStart[r], k1 = regionNodeStart[r + 1];
+            for (int k = k0; k < k1; k++) {
+                int n = regionNodes[k];
+                first[n] = to.size;
+                to.add(n ^ 1); cost.add(1);
+                if (copy[r]) {
+                    for (int e = old.edgeStart[origin[n]] + 1, end = old.edgeStart[origin[n] + 1]; e < end; e++) {
+                        int m = renamed[old.edgeTo[e]];
+                        if (m >= 0) { to.add(m); cost.add(old.edgeCost[e]); }
+                    }
+                } else {
+                    floodRegion(regionOf, w, h, r, nodeTile[n], ++epoch, dist, stamp, queue, box[0], box[1], bw);
+                    for (int j = k0; j < k1; j++) {
+                        int m = regionNodes[j], t = nodeTile[m];
+                        int i = (t / w - box[1]) * bw + t % w - box[0];
+                        if (m == n || stamp[i] != epoch) continue;
+                        to.add(m); cost.add(dist[i]);
+                    }
+                }
+                edgeStart[n + 1] = to.size - first[n];
+            }
+        }
+        // Em ordem de nó
+        for (int n = 0; n < nodes; n++) edgeStart[n + 1] += edgeStart[n];
+        int[] edgeTo = new int[to.size], edgeCost = new int[to.size];
+        for (int n = 0; n < nodes; n++) {
+            int count = edgeStart[n + 1] - edgeStart[n];
+            System.arraycopy(to.data, first[n], edgeTo, edgeStart[n], count);
+            System.arraycopy(cost.data, first[n], edgeCost, edgeStart[n], count);
+        }
+
+        // Consertado: as distâncias de referência só são montadas se alguém consultar
+        int landmarks = Math.min(LANDMARKS, nodes);
+        int[] landmarkDist = old == null ? landmarks(nodes, landmarks, edgeStart, edgeTo, edgeCost) : null;
+        return new RoomGraph(w, h, regionOf, roomCount, regions, bounds, regionRoom, nodes, nodeTile, nodeRegion,
+                regionNodeStart, regionNodes, edgeStart, edgeTo, edgeCost, landmarks, landmarkDist);
+    }
+
+    /**
+     * Entradas entre os tiles de {@code [x0, x1] x [y0, y1]} e os vizinhos de fora, em
+     * {@code pairs}: trechos contínuos de borda entre o mesmo par de regiões, um nó de cada lado
+     * no tile do meio. Com {@code only}, só os pares em que um dos lados está marcado (o
+     * retângulo precisa então cobrir todos os tiles das regiões marcadas).
+     */
+    private static void scanEntrances(int[] regionOf, int w, int h, int x0, int y0, int x1, int y1,
+                                      boolean[] only, IntList pairs) {
+        for (int x = Math.max(0, x0 - 1); x <= x1 && x + 1 < w; x++) {
+            int y = y0;
+            while (y <= y1) {
+                int a = regionOf[y * w + x], b = regionOf[y * w + x + 1];
+                if (a < 0 || b < 0 || a == b || (only != null && !only[a] && !only[b])) { y++; continue; }
+                int start = y;
+                while (y + 1 <= y1 && regionOf[(y + 1) * w + x] == a && regionOf[(y + 1) * w + x + 1] == b) y++;
+                int mid = (start + y) >>> 1;
+                pairs.add(mid * w + x);
+                pairs.add(mid * w + x + 1);
+                y++;
+            }
+        }
+        for (int y = Math.max(0, y0 - 1); y <= y1 && y + 1 < h; y++) {
+            int x = x0;
+            while (x <= x1) {
+                int a = regionOf[y * w + x], b = regionOf[(y + 1) * w + x];
+                if (a < 0 || b < 0 || a == b || (only != null && !only[a] && !only[b])) { x++; continue; }
+                int start = x;
+                while (x + 1 <= x1 && regionOf[y * w + x + 1] == a && regionOf[(y + 1) * w + x + 1] == b) x++;
+                int mid = (start + x) >>> 1;
+                pairs.add(y * w + mid);
+                pairs.add((y + 1) * w + mid);
+                x++;
+            }
+        }
+    }
+
+    /** Aumenta {@code box} (x0, y0, x1, y1) até cobrir o retângulo da região {@code r} em {@code bounds}. */
+    private static void include(int[] box, int[] bounds, int r) {
+        if (bounds[r * 4 + 2] < 0) return; // região vazia
+        box[0] = Math.min(box[0], bounds[r * 4]); box[1] = Math.min(box[1], bounds[r * 4 + 1]);
+        box[2] = Math.max(box[2], bounds[r * 4 + 2]); box[3] = Math.max(box[3], bounds[r * 4 + 3]);
+    }
+
+    /** Última sala (na ordem do gerador, como em {@link #build}) cujo retângulo tem o tile, ou -1. */
+    private static int roomAt(List<DungeonGenerator.Room> rooms, int x, int y) {
+        for (int r = rooms.size() - 1; r >= 0; r--) {
+            DungeonGenerator.Room room = rooms.get(r);
+            if (x >= room.x && y >= room.y && x < room.x + room.w && y < room.y + room.h) return r;
+        }
+        return -1;
+    }
+
+    /** Pedaço de sala a partir de {@code start}: os tiles {@link #PENDING} ligados a ele, como região {@code r}. */
+    private static void floodRoom(int[] regionOf, int w, int h, int[] queue, int start, int r, int[] bounds) {
+        int x0 = w, y0 = h, x1 = -1, y1 = -1;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        regionOf[start] = r;
+        while (head < tail) {
+            int t = queue[head++];
+            int y = t / w, x = t - y * w;
+            x0 = Math.min(x0, x); x1 = Math.max(x1, x);
+            y0 = Math.min(y0, y); y1 = Math.max(y1, y);
+            if (x + 1 < w && regionOf[t + 1] == PENDING) { regionOf[t + 1] = r; queue[tail++] = t + 1; }
+            if (x > 0 && regionOf[t - 1] == PENDING) { regionOf[t - 1] = r; queue[tail++] = t - 1; }
+            if (y + 1 < h && regionOf[t + w] == PENDING) { regionOf[t + w] = r; queue[tail++] = t + w; }
+            if (y > 0 && regionOf[t - w] == PENDING) { regionOf[t - w] = r; queue[tail++] = t - w; }
+        }
+        bounds[r * 4] = x0; bounds[r * 4 + 1] = y0; bounds[r * 4 + 2] = x1; bounds[r * 4 + 3] = y1;
+    }
+
+    private static int[] grown(int[] a, int size) {
+        return size <= a.length ? a : Arrays.copyOf(a, Math.max(size, a.length * 2));
+    }
+
+    /** Componente de corredor a partir de {@code start}, sem sair do bloco, como região {@code r}. */
+    private static void floodCorridor(DungeonMap map, int[] regionOf, int[] queue, int start, int r, int[] bounds) {
+        int w = map.getWidth(), h = map.getHeight();
+        int block = blockOf(start % w, start / w);
+        int x0 = w, y0 = h, x1 = -1, y1 = -1;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        regionOf[start] = r;
+        while (head < tail) {
+            int t = queue[head++];
+            int y = t / w, x = t - y * w;
+            x0 = Math.min(x0, x); x1 = Math.max(x1, x);
+            y0 = Math.min(y0, y); y1 = Math.max(y1, y);
+            if (x + 1 < w) tail = label(map, regionOf, queue, tail, block, t + 1, x + 1, y, r);
+            if (x > 0) tail = label(map, regionOf, queue, tail, block, t - 1, x - 1, y, r);
+            if (y + 1 < h) tail = label(map, regionOf, queue, tail, block, t + w, x, y + 1, r);
+            if (y > 0) tail = label(map, regionOf, queue, tail, block, t - w, x, y - 1, r);
+        }
+        bounds[r * 4] = x0; bounds[r * 4 + 1] = y0; bounds[r * 4 + 2] = x1; bounds[r * 4 + 3] = y1;
+    }
+
+    /**
+     * Distâncias de {@code count} nós de referência a todos os nós. O primeiro é o mais longe
+     * do nó 0; cada seguinte, o mais longe dos já escolhidos (maior distância mínima).
+     */
+    private static int[] landmarks(int nodes, int count, int[] edgeStart, int[] edgeTo, int[] edgeCost) {
+        int[] result = new int[nodes * count];
+        if (count == 0) return result;
+        int[] dist = new int[nodes];
+        int[] nearest = new int[nodes]; // distância ao nó de referência mais próximo
+        long[] heap = new long[Math.max(16, nodes)];
+        heap = dijkstra(0, nodes, edgeStart, edgeTo, edgeCost, dist, heap);
+        int next = farthest(dist);
+        Arrays.fill(nearest, UNREACHABLE);
+        for (int k = 0; k < count; k++) {
+            heap = dijkstra(next, nodes, edgeStart, edgeTo, edgeCost, dist, heap);
+            for (int n = 0; n < nodes; n++) {
+                result[n * count + k] = dist[n];
+                nearest[n] = Math.min(nearest[n], dist[n]);
+            }
+            next = farthest(nearest);
+        }
+        return result;
+    }
+
+    /** Nó com o maior valor alcançável em {@code d}. */
+    private static int farthest(int[] d) {
+        int best = 0;
+        for (int n = 1; n < d.length; n++) {
+            if (d[n] == UNREACHABLE) continue;
+            if (d[best] == UNREACHABLE || d[n] > d[best]) best = n;
+        }
+        return best;
+    }
+
+    private static long[] dijkstra(int source, int nodes, int[] edgeStart, int[] edgeTo, int[] edgeCost,
+                                   int[] dist, long[] heap) {
+        Arrays.fill(dist, UNREACHABLE);
+        dist[source] = 0;
+        int size = 0;
+        heap[size++] = source;
+        while (size > 0) {
+            long top = heap[0];
+            long last = heap[--size];
+            // desce o último elemento a partir da raiz
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int c = 2 * i + 1;
+                if (c + 1 < size && heap[c + 1] < heap[c]) c++;
+                if (last <= heap[c]) break;
+                heap[i] = heap[c];
+                i = c;
+            }
+            heap[i] = last;
+            int n = (int) top, d = (int) (top >>> 32);
+            if (d > dist[n]) continue;
+            for (int k = edgeStart[n], end = edgeStart[n + 1]; k < end; k++) {
+                int m = edgeTo[k], nd = d + edgeCost[k];
+                if (nd >= dist[m]) continue;
+                dist[m] = nd;
+                if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+                long v = (long) nd << 32 | m;
+                int j = size++;
+                while (j > 0 && heap[(j - 1) >>> 1] > v) {
+                    heap[j] = heap[(j - 1) >>> 1];
+                    j = (j - 1) >>> 1;
+                }
+                heap[j] = v;
+            }
+        }
+        return heap;
+    }
+
+    private static int label(DungeonMap map, int[] regionOf, int[] queue, int tail, int block, int t, int x, int y, int r) {
+        if (regionOf[t] >= 0 || blockOf(x, y) != block || !map.isWalkable(x, y)) return tail;
+        regionOf[t] = r;
+        queue[tail] = t;
+        return tail + 1;
+    }
+
+    private static int blockOf(int x, int y) {
+        return (y / CORRIDOR_BLOCK) << 16 | (x / CORRIDOR_BLOCK);
+    }
+
+    /**
+     * Busca em largura a partir de {@code start} só pelos tiles da região; distâncias em
+     * {@code dist}. {@code dist}, {@code stamp} e {@code queue} cobrem uma janela de largura
+     * {@code bw} a partir de {@code (bx, by)} que contém a região (índice {@code (y - by) * bw + x - bx}).
+     */
+    private static void floodRegion(int[] regionOf, int w, int h, int region, int start, int epoch,
+                                    int[] dist, int[] stamp, int[] queue, int bx, int by, int bw) {
+        int head = 0, tail = 0;
+        int s = (start / w - by) * bw + start % w - bx;
+        queue[tail++] = start;
+        stamp[s] = epoch;
+        dist[s] = 0;
+        while (head < tail) {
+            int t = queue[head++];
+            int y = t / w, x = t - y * w, i = (y - by) * bw + x - bx, d = dist[i] + 1;
+            for (int k = 0; k < 4; k++) {
+                int n, j;
+                if (k == 0) { if (x + 1 >= w) continue; n = t + 1; j = i + 1; }
+                else if (k == 1) { if (x == 0) continue; n = t - 1; j = i - 1; }
+                else if (k == 2) { if (y + 1 >= h) continue; n = t + w; j = i + bw; }
+                else { if (y == 0) continue; n = t - w; j = i - bw; }
+                if (regionOf[n] != region || stamp[j] == epoch) continue;
+                stamp[j] = epoch;
+                dist[j] = d;
+                queue[tail++] = n;
+            }
+        }
+    }
+
+    /** Lista de int que cresce, só para a montagem. */
+    private static final class IntList {
+        int[] data;
+        int size;
+
+        IntList() { this(64); }
+        IntList(int capacity) { data = new int[capacity]; }
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+    }
+}
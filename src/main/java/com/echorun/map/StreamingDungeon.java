@@ -0,0 +1,344 @@
+package com.echorun.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Masmorra sem fim: o mundo é dividido em pedaços de {@link #CHUNK_TILES} x {@link #CHUNK_TILES}
+ * tiles, cada um gerado pelo {@link DungeonGenerator} a partir de {@code (seed, cx, cy)}. Os
+ * corredores atravessam as bordas por portais cuja posição só depende da borda compartilhada,
+ * então os dois vizinhos concordam sem se consultar.
+ *
+ * <p>{@link #update} (no thread da simulação) pede os pedaços até {@link #LOAD_RADIUS} em
+ * volta do jogador a um executor em segundo plano, do mais perto para o mais longe, e despeja
+ * os que passaram de {@link #KEEP_RADIUS}; a memória fica limitada a (2·KEEP_RADIUS+1)² pedaços
+ * por mais longe que o jogador vá. O anel seguinte é pedido meio pedaço antes da borda (também
+ * até LOAD_RADIUS em volta do pedaço do outro lado da borda mais perto), então ao cruzar os
+ * novos obrigatórios já tiveram um pedaço e meio de caminhada para ficar prontos.
+ *
+ * <p>As leituras ({@link #get}, {@link #isSolid}, ...) vão a uma janela imutável publicada por
+ * {@link #update} e podem vir de qualquer thread. A janela só tem os pedaços obrigatórios, a
+ * até {@link #REQUIRED_RADIUS} do jogador, que são esperados (ou gerados na hora) quando ele
+ * muda de pedaço; fora dela tudo é parede, mesmo o que o executor já terminou. Assim o que a
+ * simulação vê (até onde uma flecha voa, por exemplo) só depende do caminho do jogador, nunca
+ * de qual thread terminou antes.
+ */
+public final class StreamingDungeon implements TileGrid, AutoCloseable {
+    public static final int CHUNK_TILES = 64;
+    private static final int SHIFT = 6; // log2(CHUNK_TILES)
+    private static final int MASK = CHUNK_TILES - 1;
+    private static final int HALF = CHUNK_TILES / 2;
+
+    public static final int REQUIRED_RADIUS = 1;
+    public static final int LOAD_RADIUS = 2;
+    public static final int KEEP_RADIUS = 3;
+
+    private static final byte WALL_CODE = Tile.WALL.code();
+
+    private final int tileSize;
+    private final long seed;
+    private final ExecutorService executor;
+
+    // Só o thread da simulação mexe nestes
+    private final Map<Long, DungeonMap> loaded = new HashMap<>();
+    private final Map<Long, Future<DungeonMap>> pending = new HashMap<>();
+    private final List<long[]> order = new ArrayList<>();
+    private int centerX = Integer.MIN_VALUE, centerY = Integer.MIN_VALUE;
+    private int aheadX = Integer.MIN_VALUE, aheadY = Integer.MIN_VALUE;
+
+    // Pedaços obrigatórios em volta do centro, para leitura O(1) de qualquer thread
+    private volatile Window window = new Window(0, 0, 0, new DungeonMap[0]);
+
+    private final AtomicLong generated = new AtomicLong();
+    private long evicted;
+    private long cancelled;
+    private long waits;
+
+    public StreamingDungeon(int tileSize, long seed) {
+        this(tileSize, seed, Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    public StreamingDungeon(int tileSize, long seed, int threads) {
+        this.tileSize = tileSize;
+        this.seed = seed;
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ChunkGen-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    private static final class Window {
+        final int ox, oy, span;
+        final DungeonMap[] maps;
+
+        Window(int ox, int oy, int span, DungeonMap[] maps) {
+            this.ox = ox; this.oy = oy; this.span = span; this.maps = maps;
+        }
+
+        DungeonMap at(int cx, int cy) {
+            int ix = cx - ox, iy = cy - oy;
+            if (ix < 0 || iy < 0 || ix >= span || iy >= span) return null;
+            return maps[iy * span + ix];
+        }
+    }
+
+    // ========= Carga (thread da simulação) =========
+
+    /**
+     * Acompanha o jogador no tile {@code (tileX, tileY)}: recolhe os pedaços prontos, pede os
+     * próximos (em volta dele e do pedaço à frente) e, se ele mudou de pedaço, despeja os
+     * distantes, garante os obrigatórios e publica a nova janela.
+     */
+    public void update(int tileX, int tileY) {
+        int cx = tileX >> SHIFT;
+        int cy = tileY >> SHIFT;
+        // Pedaço do outro lado das bordas mais perto (o jogador está sempre a menos de meio
+        // pedaço de uma borda em cada eixo)
+        int ax = (tileX + ((tileX & MASK) < HALF ? -HALF : HALF)) >> SHIFT;
+        int ay = (tileY + ((tileY & MASK) < HALF ? -HALF : HALF)) >> SHIFT;
+        collect();
+        boolean moved = cx != centerX || cy != centerY;
+        if (moved) {
+            centerX = cx;
+            centerY = cy;
+            evictFar();
+        }
+        if (moved || ax != aheadX || ay != aheadY) {
+            aheadX = ax;
+            aheadY = ay;
+            requestNear();
+        }
+        if (!moved) return;
+        for (int dy = -REQUIRED_RADIUS; dy <= REQUIRED_RADIUS; dy++) {
+            for (int dx = -REQUIRED_RADIUS; dx <= REQUIRED_RADIUS; dx++) require(cx + dx, cy + dy);
+        }
+        publish();
+    }
+
+    private void collect() {
+        Iterator<Map.Entry<Long, Future<DungeonMap>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Future<DungeonMap>> e = it.next();
+            if (!e.getValue().isDone()) continue;
+            it.remove();
+            DungeonMap m = result(e.getValue());
+            if (m != null) loaded.put(e.getKey(), m);
+        }
+    }
+
+    private void require(int cx, int cy) {
+        Long key = key(cx, cy);
+        if (loaded.containsKey(key)) return;
+        Future<DungeonMap> f = pending.remove(key);
+        DungeonMap m = null;
+        if (f != null) {
+            waits++;
+            m = result(f);
+        }
+        if (m == null) m = generate(cx, cy);
+        loaded.put(key, m);
+    }
+
+    private DungeonMap result(Future<DungeonMap> f) {
+        if (f.isCancelled()) return null;
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // Gera de novo no thread da simulação se precisar
+            return null;
+        }
+    }
+
+    private void requestNear() {
+        // Em volta do centro e do pedaço à frente (que fica a até KEEP_RADIUS do centro), do
+        // mais perto do centro para o mais longe: o executor atende na ordem de envio
+        order.clear();
+        for (int dy = -LOAD_RADIUS; dy <= LOAD_RADIUS; dy++) {
+            for (int dx = -LOAD_RADIUS; dx <= LOAD_RADIUS; dx++) {
+                order.add(new long[]{dx * dx + dy * dy, centerX + dx, centerY + dy});
+                int x = aheadX + dx - centerX, y = aheadY + dy - centerY;
+                if (Math.max(Math.abs(x), Math.abs(y)) > LOAD_RADIUS) {
+                    order.add(new long[]{x * x + y * y, aheadX + dx, aheadY + dy});
+                }
+            }
+        }
+        order.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (long[] o : order) {
+            int cx = (int) o[1], cy = (int) o[2];
+            Long key = key(cx, cy);
+            if (loaded.containsKey(key) || pending.containsKey(key)) continue;
+            pending.put(key, executor.submit(() -> generate(cx, cy)));
+        }
+    }
+
+    private void evictFar() {
+        Iterator<Map.Entry<Long, DungeonMap>> it = loaded.entrySet().iterator();
+        while (it.hasNext()) {
+            if (far(it.next().getKey())) {
+                it.remove();
+                evicted++;
+            }
+        }
+        Iterator<Map.Entry<Long, Future<DungeonMap>>> p = pending.entrySet().iterator();
+        while (p.hasNext()) {
+            Map.Entry<Long, Future<DungeonMap>> e = p.next();
+            if (far(e.getKey())) {
+                e.getValue().cancel(false);
+                p.remove();
+                cancelled++;
+            }
+        }
+    }
+
+    private boolean far(long key) {
+        int cx = (int) (key >> 32);
+        int cy = (int) key;
+        return Math.max(Math.abs(cx - centerX), Math.abs(cy - centerY)) > KEEP_RADIUS;
+    }
+
+    /** Janela só com os obrigatórios (todos carregados): não depende do que o executor já fez. */
+    private void publish() {
+        int span = 2 * REQUIRED_RADIUS + 1;
+        int ox = centerX - REQUIRED_RADIUS, oy = centerY - REQUIRED_RADIUS;
+        DungeonMap[] maps = new DungeonMap[span * span];
+        for (int iy = 0; iy < span; iy++) {
+            for (int ix = 0; ix < span; ix++) maps[iy * span + ix] = loaded.get(key(ox + ix, oy + iy));
+        }
+        window = new Window(ox, oy, span, maps);
+    }
+
+    /** Gera o pedaço {@code (cx, cy)}; só depende da seed e das coordenadas. */
+    DungeonMap generate(int cx, int cy) {
+        generated.incrementAndGet();
+        return new DungeonGenerator(CHUNK_TILES, CHUNK_TILES, tileSize, chunkSeed(cx, cy))
+                .setPortals(portal(cx, cy, 0), portal(cx, cy + 1, 0), portal(cx, cy, 1), portal(cx + 1, cy, 1))
+                .generate();
+    }
+
+    private long chunkSeed(int cx, int cy) {
+        return mix(seed ^ mix((long) cx << 32 | (cy & 0xFFFFFFFFL)));
+    }
+
+    /**
+     * Posição do portal na borda de cima ({@code vertical = 0}) ou da esquerda ({@code 1}) do
+     * pedaço {@code (cx, cy)}; o vizinho de cima/esquerda usa a mesma borda como baixo/direita.
+     */
+    private int portal(int cx, int cy, int vertical) {
+        long h = mix(seed + 0x9E3779B97F4A7C15L * (2L * key(cx, cy) + vertical));
+        // Longe dos cantos, para o corredor não encostar no portal da borda vizinha
+        return 4 + (int) Long.remainderUnsigned(h, CHUNK_TILES - 8);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long key(int cx, int cy) {
+        return (long) cx << 32 | (cy & 0xFFFFFFFFL);
+    }
+
+    /** Encerra o executor; pedaços em geração são descartados. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public int getLoadedCount() { return loaded.size(); }
+    public int getPendingCount() { return pending.size(); }
+    public long getGeneratedCount() { return generated.get(); }
+    public long getEvictedCount() { return evicted; }
+    public long getCancelledCount() { return cancelled; }
+    /** Vezes que a simulação teve de esperar (ou gerar) um pedaço obrigatório. */
+    public long getWaitCount() { return waits; }
+
+    // ========= Leitura =========
+
+    private DungeonMap chunkAt(int tx, int ty) {
+        return window.at(tx >> SHIFT, ty >> SHIFT);
+    }
+
+    @Override
+    public int getTileSize() { return tileSize; }
+    @Override
+    public boolean isBounded() { return false; }
+    @Override
+    public int getWidth() { return Integer.MAX_VALUE; }
+    @Override
+    public int getHeight() { return Integer.MAX_VALUE; }
+    @Override
+    public boolean contains(int x, int y) { return true; }
+    public long getSeed() { return seed; }
+
+    @Override
+    public Tile get(int x, int y) {
+        return Tile.fromCode(getCode(x, y));
+    }
+
+    @Override
+    public byte getCode(int x, int y) {
+        DungeonMap m = chunkAt(x, y);
+        return m == null ? WALL_CODE : m.getCode(x & MASK, y & MASK);
+    }
+
+    @Override
+    public boolean isWalkable(int tx, int ty) {
+        DungeonMap m = chunkAt(tx, ty);
+        return m != null && m.isWalkable(tx & MASK, ty & MASK);
+    }
+
+    @Override
+    public boolean isSolid(int tx, int ty) {
+        DungeonMap m = chunkAt(tx, ty);
+        return m == null || m.isSolid(tx & MASK, ty & MASK);
+    }
+
+    @Override
+    public boolean anySolid(int x0, int y0, int x1, int y1) {
+        Window w = window;
+        // Divide o retângulo pelos pedaços que ele cruza
+        for (int cy = y0 >> SHIFT; cy <= y1 >> SHIFT; cy++) {
+            for (int cx = x0 >> SHIFT; cx <= x1 >> SHIFT; cx++) {
+                DungeonMap m = w.at(cx, cy);
+                if (m == null) return true;
+                int bx = cx << SHIFT, by = cy << SHIFT;
+                if (m.anySolid(Math.max(x0, bx) - bx, Math.max(y0, by) - by,
+                        Math.min(x1, bx + MASK) - bx, Math.min(y1, by + MASK) - by)) return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isRegionReady(int x0, int y0, int x1, int y1) {
+        Window w = window;
+        for (int cy = y0 >> SHIFT; cy <= y1 >> SHIFT; cy++) {
+            for (int cx = x0 >> SHIFT; cx <= x1 >> SHIFT; cx++) {
+                if (w.at(cx, cy) == null) return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public float random01(int x, int y) {
+        // Seed do mundo e coordenada global: a variação do piso continua entre pedaços
+        return DungeonMap.random01(seed, x, y);
+    }
+}
@@ -1,7 +1,16 @@
 package com.echorun.map;
 
+// O FloorFile guarda 2 bits por tile: um quinto tipo precisa de uma nova versão do formato
 public enum Tile {
     WALL,
     FLOOR,
-    DOOR
+    DOOR,
+    STAIRS; // desce para o próximo andar
+
+    private static final Tile[] BY_CODE = values();
+
+    /** Código guardado no mapa compacto ({@link DungeonMap}): o ordinal, em um byte. */
+    public byte code() { return (byte) ordinal(); }
+
+    public static Tile fromCode(int code) { return BY_CODE[code]; }
 }
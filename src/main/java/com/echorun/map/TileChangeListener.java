@@ -0,0 +1,15 @@
+package com.echorun.map;
+
+/**
+ * Avisado quando tiles de um {@link DungeonMap} mudam ({@link DungeonMap#fill}), no thread que
+ * mudou o mapa e depois de o mapa e suas estruturas (bitsets, máscara de vizinhos, campo de
+ * distância) já estarem atualizados.
+ */
+public interface TileChangeListener {
+    /**
+     * Os tiles de {@code [x0, x1] x [y0, y1]} (inclusivo) mudaram; {@code passabilityChanged}
+     * diz se algum passou de andável a sólido ou o contrário (porta que só troca de aparência
+     * não muda caminhos nem colisão).
+     */
+    void tilesChanged(DungeonMap map, int x0, int y0, int x1, int y1, boolean passabilityChanged);
+}
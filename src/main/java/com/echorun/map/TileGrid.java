@@ -0,0 +1,127 @@
+package com.echorun.map;
+
+/**
+ * Leitura de uma grade de tiles em coordenadas de tile, comum ao mapa fixo
+ * ({@link DungeonMap}) e ao mundo sem fim ({@link StreamingDungeon}). Para o jogo, tudo que
+ * está fora da grade (ou ainda não foi gerado) é parede.
+ */
+public interface TileGrid {
+    int getTileSize();
+
+    /** Se a grade tem tamanho fixo; sem limites, {@link #getWidth()}/{@link #getHeight()} não valem. */
+    boolean isBounded();
+
+    int getWidth();
+    int getHeight();
+
+    /** Se {@code (x, y)} está dentro da grade (sempre, numa grade sem limites). */
+    boolean contains(int x, int y);
+
+    /** Tile da célula; só vale para células em que {@link #contains} é verdadeiro. */
+    Tile get(int x, int y);
+
+    byte getCode(int x, int y);
+
+    boolean isWalkable(int tx, int ty);
+
+    /** Bloqueia projéteis e raios: parede ou fora da grade. */
+    boolean isSolid(int tx, int ty);
+
+    /** Se algum tile do retângulo {@code [x0, x1] x [y0, y1]} (inclusivo) é sólido. */
+    boolean anySolid(int x0, int y0, int x1, int y1);
+
+    /** Variação pseudo-aleatória estável por célula, em [0,1). */
+    float random01(int x, int y);
+
+    /**
+     * Se os tiles do retângulo (inclusivo) já podem ser desenhados. Grades geradas em
+     * segundo plano respondem false enquanto a região não estiver pronta.
+     */
+    default boolean isRegionReady(int x0, int y0, int x1, int y1) {
+        return true;
+    }
+
+    /**
+     * Vizinhos de piso de {@code (x, y)}, nos bits de direção do {@link NeighborMask}
+     * ({@code N}, {@code NE}, ..., {@code NW}). Aqui com oito leituras; o {@link DungeonMap}
+     * responde com uma, da máscara pré-calculada.
+     */
+    default int floorNeighbors(int x, int y) {
+        int m = 0;
+        if (isFloor(x, y - 1)) m |= NeighborMask.N;
+        if (isFloor(x + 1, y - 1)) m |= NeighborMask.NE;
+        if (isFloor(x + 1, y)) m |= NeighborMask.E;
+        if (isFloor(x + 1, y + 1)) m |= NeighborMask.SE;
+        if (isFloor(x, y + 1)) m |= NeighborMask.S;
+        if (isFloor(x - 1, y + 1)) m |= NeighborMask.SW;
+        if (isFloor(x - 1, y)) m |= NeighborMask.W;
+        if (isFloor(x - 1, y - 1)) m |= NeighborMask.NW;
+        return m;
+    }
+
+    private boolean isFloor(int x, int y) {
+        return contains(x, y) && getCode(x, y) == Tile.FLOOR.code();
+    }
+
+    /**
+     * Percorre os tiles cruzados pelo raio (DDA de Amanatides-Woo) até o primeiro sólido ou
+     * até {@code maxDistance}. Origem e distância em pixels; a direção não precisa ser
+     * normalizada. Custa O(tiles cruzados), sem trigonometria. Retorna {@code out.hit}.
+     */
+    default boolean raycast(double ox, double oy, double dirX, double dirY, double maxDistance, RayHit out) {
+        int tileSize = getTileSize();
+        int tx = (int) Math.floor(ox / tileSize);
+        int ty = (int) Math.floor(oy / tileSize);
+        double len = Math.sqrt(dirX * dirX + dirY * dirY);
+        if (isSolid(tx, ty)) return finish(out, true, tx, ty, 0.0, ox, oy, 0, 0);
+        if (len == 0) return finish(out, false, tx, ty, 0.0, ox, oy, 0, 0);
+        double dx = dirX / len;
+        double dy = dirY / len;
+
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        // Distância ao longo do raio até a próxima linha vertical/horizontal da grade, e entre linhas
+        double tMaxX = stepX > 0 ? ((tx + 1) * (double) tileSize - ox) / dx
+                : stepX < 0 ? (tx * (double) tileSize - ox) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = stepY > 0 ? ((ty + 1) * (double) tileSize - oy) / dy
+                : stepY < 0 ? (ty * (double) tileSize - oy) / dy : Double.POSITIVE_INFINITY;
+        double tDeltaX = stepX != 0 ? tileSize / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? tileSize / Math.abs(dy) : Double.POSITIVE_INFINITY;
+
+        while (true) {
+            double t;
+            int nx = 0, ny = 0;
+            if (tMaxX < tMaxY) {
+                t = tMaxX;
+                tx += stepX;
+                tMaxX += tDeltaX;
+                nx = -stepX;
+            } else {
+                t = tMaxY;
+                ty += stepY;
+                tMaxY += tDeltaY;
+                ny = -stepY;
+            }
+            if (t > maxDistance) {
+                return finish(out, false, tx, ty, maxDistance, ox + dx * maxDistance, oy + dy * maxDistance, 0, 0);
+            }
+            // Fora do mapa é sólido, então o laço sempre termina
+            if (isSolid(tx, ty)) {
+                return finish(out, true, tx, ty, t, ox + dx * t, oy + dy * t, nx, ny);
+            }
+        }
+    }
+
+    private boolean finish(RayHit out, boolean hit, int tx, int ty, double distance, double x, double y, int nx, int ny) {
+        out.hit = hit;
+        out.tileX = tx;
+        out.tileY = ty;
+        out.tile = !hit ? null : contains(tx, ty) ? get(tx, ty) : Tile.WALL;
+        out.distance = distance;
+        out.x = x;
+        out.y = y;
+        out.normalX = nx;
+        out.normalY = ny;
+        return hit;
+    }
+}
@@ -0,0 +1,277 @@
+package com.echorun.nav;
+
+import com.echorun.map.DungeonMap;
+import com.echorun.map.TileChangeListener;
+
+import java.util.Arrays;
+
+/**
+ * Campo de fluxo (mapa de Dijkstra) até um alvo: busca em largura a partir do tile do alvo
+ * sobre os tiles andáveis do {@link DungeonMap}, guardando para cada tile alcançado a
+ * distância em passos e o vizinho que leva ao alvo. Uma busca serve a qualquer número de
+ * perseguidores: cada um só consulta o seu tile, em O(1), em vez de rodar A* por agente.
+ *
+ * <p>{@link #update} só mexe no campo quando o alvo muda de tile. Se o alvo andou um tile
+ * (o caso de todo tick do jogador), o campo é consertado em vez de refeito: toda distância
+ * muda de exatamente 1, e só os tiles que ficaram mais perto do alvo novo são visitados, por
+ * uma busca a partir dele que para onde não melhora; os demais ganham +1 sem serem tocados
+ * (cada tile guarda a distância e a geração em que foi gravada, e a consulta soma as gerações
+ * passadas desde então), e a direção gravada neles continua valendo. Num corredor ou sala
+ * aberta isso é perto de metade da área alcançada; qualquer outro salto refaz a busca
+ * inteira. Fila, distâncias e direções são vetores do tamanho do mapa, reaproveitados (nada
+ * é limpo nem alocado). {@link #setMaxDistance} limita o raio da busca, e o custo de cada
+ * atualização, à área que interessa; além dele o tile fica sem caminho. Vizinhança de 4
+ * (sem diagonais, como a colisão por eixo do jogador). Se o mapa muda de passagem perto de
+ * tiles alcançados (ou do alvo), a próxima {@link #update} refaz a busca mesmo com o alvo
+ * parado; mudanças longe da área buscada não custam nada.
+ *
+ * <p>Não é seguro para threads: atualize e consulte do mesmo thread (ou só consulte entre
+ * atualizações, de vários).
+ */
+public final class FlowField {
+    /** Sem direção: tile fora da busca, parede ou o próprio alvo. */
+    public static final int NONE = -1;
+    // Direções 0..3: direita, esquerda, baixo, cima
+    public static final int RIGHT = 0;
+    public static final int LEFT = 1;
+    public static final int DOWN = 2;
+    public static final int UP = 3;
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private DungeonMap map;
+    private int width, height;
+    private int[] dist = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] step = new byte[0];
+    private int[] queue = new int[0];
+    private int epoch; // geração atual: cada busca ou conserto grava com uma nova
+    private int base;  // geração da última busca inteira; carimbos anteriores não valem
+    private boolean stale;
+    private final TileChangeListener onTilesChanged = this::tilesChanged;
+
+    private int targetX = Integer.MIN_VALUE, targetY = Integer.MIN_VALUE;
+    private int maxDistance = Integer.MAX_VALUE;
+    private int reached;
+    private long rebuilds, repairs;
+    private long lastRebuildNs;
+
+    public FlowField(DungeonMap map) {
+        setMap(map);
+    }
+
+    /**
+     * Troca o mapa (ex.: novo andar). Os vetores só crescem; o campo fica vazio até o
+     * próximo {@link #update}.
+     */
+    public void setMap(DungeonMap map) {
+        if (map != this.map) {
+            if (this.map != null) this.map.removeTileChangeListener(onTilesChanged);
+            map.addTileChangeListener(onTilesChanged);
+        }
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        int n = width * height;
+        if (dist.length < n) {
+            dist = new int[n];
+            stamp = new int[n];
+            step = new byte[n];
+            queue = new int[n];
+            epoch = 0;
+        }
+        invalidate();
+    }
+
+    /** Raio máximo da busca, em passos; tiles mais longe ficam sem caminho. */
+    public FlowField setMaxDistance(int maxDistance) {
+        this.maxDistance = Math.max(0, maxDistance);
+        invalidate();
+        return this;
+    }
+
+    /** Força a próxima {@link #update} a refazer a busca (ex.: o mapa mudou). */
+    public void invalidate() {
+        targetX = targetY = Integer.MIN_VALUE;
+        // Carimbo novo: nenhum tile vale até a próxima busca
+        nextEpoch();
+        base = epoch;
+        reached = 0;
+    }
+
+    /**
+     * Aponta o campo para o tile {@code (tx, ty)}; só mexe no campo se o alvo mudou de tile
+     * (ou o mapa mudou na área buscada): conserta se andou um tile, refaz a busca se não.
+     * Alvo em parede ou fora do mapa deixa o campo vazio. Devolve true se mexeu.
+     */
+    public boolean update(int tx, int ty) {
+        if (tx == targetX && ty == targetY && !stale) return false;
+        boolean step = !stale && reached > 0 && epoch < Integer.MAX_VALUE
+                && Math.abs(tx - targetX) + Math.abs(ty - targetY) == 1 && map.isWalkable(tx, ty);
+        int fromX = targetX, fromY = targetY;
+        stale = false;
+        targetX = tx;
+        targetY = ty;
+        long t0 = System.nanoTime();
+        if (step) {
+            repair(fromX, fromY);
+            repairs++;
+        } else {
+            rebuild();
+            rebuilds++;
+        }
+        lastRebuildNs = System.nanoTime() - t0;
+        return true;
+    }
+
+    /** Tiles mudaram de passagem: vale refazer se a mudança encosta na área buscada ou no alvo. */
+    private void tilesChanged(DungeonMap changed, int x0, int y0, int x1, int y1, boolean passabilityChanged) {
+        if (!passabilityChanged || changed != map || stale) return;
+        if (targetX >= x0 && targetX <= x1 && targetY >= y0 && targetY <= y1) {
+            stale = true;
+            return;
+        }
+        // Um tile que abre ao lado da área também muda a busca
+        x0 = Math.max(0, x0 - 1); y0 = Math.max(0, y0 - 1);
+        x1 = Math.min(width - 1, x1 + 1); y1 = Math.min(height - 1, y1 + 1);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0, i = y * width + x0; x <= x1; x++, i++) {
+                if (stamp[i] >= base) {
+                    stale = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    private void rebuild() {
+        nextEpoch();
+        base = epoch;
+        reached = 0;
+        if (!map.isWalkable(targetX, targetY)) return;
+
+        int[] dist = this.dist, stamp = this.stamp, queue = this.queue;
+        byte[] step = this.step;
+        int epoch = this.epoch, w = width, h = height, limit = maxDistance;
+        int start = targetY * w + targetX;
+        stamp[start] = epoch;
+        dist[start] = 0;
+        step[start] = NONE;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int i = queue[head++];
+            int d = dist[i];
+            if (d >= limit) continue;
+            int y = i / w, x = i - y * w;
+            // O passo gravado no vizinho aponta de volta para i
+            if (x + 1 < w) tail = visit(i + 1, x + 1, y, d, LEFT, tail);
+            if (x > 0) tail = visit(i - 1, x - 1, y, d, RIGHT, tail);
+            if (y + 1 < h) tail = visit(i + w, x, y + 1, d, UP, tail);
+            if (y > 0) tail = visit(i - w, x, y - 1, d, DOWN, tail);
+        }
+        reached = tail;
+    }
+
+    private int visit(int i, int x, int y, int d, int back, int tail) {
+        if (stamp[i] == epoch || !map.isWalkable(x, y)) return tail;
+        stamp[i] = epoch;
+        dist[i] = d + 1;
+        step[i] = (byte) back;
+        queue[tail] = i;
+        return tail + 1;
+    }
+
+    /**
+     * O alvo andou um tile, de {@code (fromX, fromY)} para o atual. Cada distância muda de ±1:
+     * a busca parte do alvo novo e só segue por tiles em que a distância nova não passa da
+     * antiga (num caminho mais curto até um tile que melhorou, todos melhoraram). O resto fica
+     * com a antiga + 1, implícito pela geração; o tile do alvo antigo passa a apontar para o novo.
+     */
+    private void repair(int fromX, int fromY) {
+        int[] dist = this.dist, stamp = this.stamp, queue = this.queue;
+        byte[] step = this.step;
+        int w = width, h = height, limit = maxDistance;
+        int previous = epoch;
+        int epoch = ++this.epoch;
+        int start = targetY * w + targetX;
+        step[fromY * w + fromX] = (byte) (targetX > fromX ? RIGHT : targetX < fromX ? LEFT : targetY > fromY ? DOWN : UP);
+        stamp[start] = epoch;
+        dist[start] = 0;
+        step[start] = NONE;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int i = queue[head++];
+            int d = dist[i];
+            if (d >= limit) continue;
+            int y = i / w, x = i - y * w;
+            if (x + 1 < w) tail = visitCloser(i + 1, x + 1, y, d, LEFT, tail, previous);
+            if (x > 0) tail = visitCloser(i - 1, x - 1, y, d, RIGHT, tail, previous);
+            if (y + 1 < h) tail = visitCloser(i + w, x, y + 1, d, UP, tail, previous);
+            if (y > 0) tail = visitCloser(i - w, x, y - 1, d, DOWN, tail, previous);
+        }
+        reached = tail;
+    }
+
+    private int visitCloser(int i, int x, int y, int d, int back, int tail, int previous) {
+        if (stamp[i] == epoch || !map.isWalkable(x, y)) return tail;
+        // Distância antes do passo; além do raio conta como desconhecida (sempre melhora)
+        if (stamp[i] >= base) {
+            int old = dist[i] + (previous - stamp[i]);
+            if (old <= maxDistance && d + 1 > old) return tail;
+        }
+        stamp[i] = epoch;
+        dist[i] = d + 1;
+        step[i] = (byte) back;
+        queue[tail] = i;
+        return tail + 1;
+    }
+
+    // ========= Consultas (O(1)) =========
+
+    /** Passos até o alvo pelo caminho mais curto; -1 sem caminho (ou fora do raio). */
+    public int distance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return -1;
+        int i = y * width + x;
+        if (stamp[i] < base) return -1;
+        // +1 por conserto desde que o tile foi gravado
+        int d = dist[i] + (epoch - stamp[i]);
+        return d <= maxDistance ? d : -1;
+    }
+
+    /** Direção ({@link #RIGHT}..{@link #UP}) do próximo tile rumo ao alvo, ou {@link #NONE}. */
+    public int direction(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return NONE;
+        int i = y * width + x;
+        if (stamp[i] < base || dist[i] + (epoch - stamp[i]) > maxDistance) return NONE;
+        return step[i];
+    }
+
+    /** Deslocamento em x da direção ({@code 0} para {@link #NONE}). */
+    public static int dx(int direction) { return direction < 0 ? 0 : DX[direction]; }
+    /** Deslocamento em y da direção ({@code 0} para {@link #NONE}). */
+    public static int dy(int direction) { return direction < 0 ? 0 : DY[direction]; }
+
+    public boolean isReachable(int x, int y) { return distance(x, y) >= 0; }
+
+    public DungeonMap getMap() { return map; }
+    public int getTargetX() { return targetX; }
+    public int getTargetY() { return targetY; }
+    public int getMaxDistance() { return maxDistance; }
+    /** Tiles gravados na última atualização (no conserto, só os que ficaram mais perto do alvo). */
+    public int getReachedCount() { return reached; }
+    /** Buscas inteiras feitas. */
+    public long getRebuildCount() { return rebuilds; }
+    /** Consertos de um tile feitos (alvo que andou para um vizinho). */
+    public long getRepairCount() { return repairs; }
+    /** Tempo da última atualização, busca inteira ou conserto. */
+    public long getLastRebuildNs() { return lastRebuildNs; }
+}
@@ -0,0 +1,392 @@
+package com.echorun.nav;
+
+import com.echorun.map.DungeonMap;
+import com.echorun.map.RoomGraph;
+import com.echorun.map.TileChangeListener;
+
+import java.util.Arrays;
+
+/**
+ * Caminho entre dois tiles quaisquer em dois níveis, sobre o {@link RoomGraph} do mapa (no
+ * estilo do HPA*): primeiro um A* pelas entradas entre salas e corredores, ligando a partida
+ * e a chegada aos nós da própria região por uma busca em largura lá dentro; depois o caminho
+ * de nós vira tiles, com os trechos entre duas entradas da mesma região tirados de um cache.
+ * A estimativa do A* grosso usa os nós de referência do grafo (o maior entre a distância
+ * Manhattan e {@code |d(L, nó) - d(L, chegada)|}), o que corta muito os nós visitados nos
+ * corredores sinuosos. O caminho é o mais curto pelas entradas escolhidas, não necessariamente
+ * o mais curto pelos tiles.
+ *
+ * <p>Além dos trechos, guarda a rota de nós por par (região de partida, região de chegada):
+ * vários perseguidores na mesma sala indo até o jogador reaproveitam a rota e só refazem os
+ * pedaços dentro das duas regiões das pontas. A rota reaproveitada é a melhor para o primeiro
+ * par de tiles daquelas regiões, não para cada um ({@link #setRouteCache} desliga).
+ *
+ * <p>Os caches valem para um andar: {@link #setMap} com outro mapa os esvazia, e também uma
+ * mudança de passagem no mapa (parede que cai ou aparece), que troca o grafo na próxima
+ * consulta; portas que só mudam de aparência não mexem em nada. Vetores de
+ * trabalho são do tamanho do mapa e reaproveitados; só entradas novas nos caches alocam. Não
+ * é seguro para threads.
+ */
+public final class HierarchicalPathfinder {
+    private DungeonMap map;
+    private RoomGraph graph;
+    private int width;
+
+    // Busca em largura dentro de uma região (por tile)
+    private int[] tileStamp = new int[0], tileDist = new int[0], tileParent = new int[0], tileQueue = new int[0];
+    private int tileEpoch;
+
+    // A* grosso (por nó; o último índice é a chegada)
+    private int[] nodeStamp = new int[0], nodeG = new int[0], nodeParent = new int[0], nodeVia = new int[0];
+    private int[] closedStamp = new int[0], goalStamp = new int[0], goalDist = new int[0];
+    private final int[] goalLandmark = new int[RoomGraph.LANDMARKS]; // d(L, chegada) por referência
+    private int goalX, goalY;
+    private int nodeEpoch;
+    private long[] heap = new long[64];
+    private int heapSize;
+    private int[] route = new int[64], routeVia = new int[64];
+    private int[] scratch = new int[64];
+
+    // Trecho de cada aresta dentro de uma região (sem o tile inicial), montado no primeiro uso
+    private int[][] segments = new int[0][];
+    private int cachedSegments;
+    private long cacheHits, cacheMisses;
+
+    // Rotas por par de regiões, num cache de mapeamento direto: nós e arestas intercalados
+    private static final int ROUTE_SLOTS = 1024;
+    private final long[] routeKeys = new long[ROUTE_SLOTS]; // (par + 1); 0 = vazio
+    private final int[][] routes = new int[ROUTE_SLOTS][];
+    private boolean routeCache = true;
+    private long routeHits, routeMisses;
+    private int lastExpanded;
+    private boolean stale;
+    private final TileChangeListener onTilesChanged = (m, x0, y0, x1, y1, passabilityChanged) -> {
+        if (passabilityChanged && m == map) stale = true;
+    };
+
+    public HierarchicalPathfinder(DungeonMap map) {
+        setMap(map);
+    }
+
+    /** Passa para outro mapa (ex.: novo andar); o cache de trechos é esvaziado. */
+    public void setMap(DungeonMap map) {
+        if (map != this.map) {
+            if (this.map != null) this.map.removeTileChangeListener(onTilesChanged);
+            map.addTileChangeListener(onTilesChanged);
+        }
+        stale = false;
+        this.map = map;
+        RoomGraph g = map.getRoomGraph();
+        if (g == graph) return;
+        this.graph = g;
+        this.width = g.getWidth();
+        int tiles = g.getWidth() * g.getHeight();
+        if (tileStamp.length < tiles) {
+            tileStamp = new int[tiles];
+            tileDist = new int[tiles];
+            tileParent = new int[tiles];
+            tileQueue = new int[tiles];
+            tileEpoch = 0;
+        }
+        int nodes = g.getNodeCount() + 1;
+        if (nodeStamp.length < nodes) {
+            nodeStamp = new int[nodes];
+            nodeG = new int[nodes];
+            nodeParent = new int[nodes];
+            nodeVia = new int[nodes];
+            closedStamp = new int[nodes];
+            goalStamp = new int[nodes];
+            goalDist = new int[nodes];
+            nodeEpoch = 0;
+        }
+        segments = new int[g.getEdgeCount()][];
+        cachedSegments = 0;
+        Arrays.fill(routeKeys, 0L);
+        Arrays.fill(routes, null);
+    }
+
+    /** Liga ou desliga o reaproveitamento de rotas entre pares de regiões (ligado por padrão). */
+    public HierarchicalPathfinder setRouteCache(boolean enabled) {
+        this.routeCache = enabled;
+        return this;
+    }
+
+    /**
+     * Caminho de {@code (sx, sy)} a {@code (tx, ty)} em {@code out}, com os dois extremos.
+     * Devolve false (e {@code out} vazio) se algum extremo não é andável ou não há caminho.
+     */
+    public boolean findPath(int sx, int sy, int tx, int ty, TilePath out) {
+        // O mapa mudou de passagem: grafo novo (montado agora) e caches vazios
+        if (stale) setMap(map);
+        out.reset(width);
+        lastExpanded = 0;
+        int rs = graph.regionAt(sx, sy), rt = graph.regionAt(tx, ty);
+        if (rs < 0 || rt < 0) return false;
+        int s = sy * width + sx, t = ty * width + tx;
+        if (rs == rt && appendLocal(rs, s, t, out, true)) return true;
+
+        long key = ((long) rs << 32 | rt) + 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 54);
+        if (routeCache && routeKeys[slot] == key) {
+            routeHits++;
+            int[] cached = routes[slot];
+            int count = cached.length / 2;
+            ensureRoute(count);
+            for (int i = 0; i < count; i++) {
+                route[i] = cached[2 * i];
+                routeVia[i] = cached[2 * i + 1];
+            }
+            // A rota guardada pode não servir a estas pontas (ex.: o trecho dentro da região não
+            // chega à entrada); então vale a busca inteira
+            if (refine(count, rs, s, rt, t, out)) return true;
+            out.reset(width);
+        }
+
+        int goal = graph.getNodeCount();
+        goalX = tx;
+        goalY = ty;
+        int epoch = nextNodeEpoch();
+        heapSize = 0;
+        // Chegada: distância de cada entrada da região de chegada até o alvo e, por ela, de
+        // cada nó de referência até o alvo
+        flood(rt, t, -1);
+        int landmarks = graph.getLandmarkCount();
+        Arrays.fill(goalLandmark, RoomGraph.UNREACHABLE);
+        for (int k = graph.regionNodeBegin(rt), end = graph.regionNodeEnd(rt); k < end; k++) {
+            int n = graph.regionNode(k);
+            int tile = graph.nodeTile(n);
+            if (tileStamp[tile] != tileEpoch) continue;
+            goalStamp[n] = epoch;
+            goalDist[n] = tileDist[tile];
+            for (int l = 0; l < landmarks; l++) {
+                int d = graph.landmarkDistance(n, l);
+                if (d != RoomGraph.UNREACHABLE) goalLandmark[l] = Math.min(goalLandmark[l], d + tileDist[tile]);
+            }
+        }
+
+        // Partida: distância até cada entrada da sua região
+        flood(rs, s, -1);
+        for (int k = graph.regionNodeBegin(rs), end = graph.regionNodeEnd(rs); k < end; k++) {
+            int n = graph.regionNode(k);
+            int tile = graph.nodeTile(n);
+            if (tileStamp[tile] == tileEpoch) relax(n, tileDist[tile], -1, -1, heuristic(n));
+        }
+
+        while (heapSize > 0) {
+            int n = (int) pop();
+            if (closedStamp[n] == epoch) continue;
+            closedStamp[n] = epoch;
+            lastExpanded++;
+            if (n == goal) break;
+            int g = nodeG[n];
+            if (goalStamp[n] == epoch) relax(goal, g + goalDist[n], n, -1, 0);
+            // Caminhos ótimos alternam travessia e trecho dentro da região (dois trechos seguidos
+            // na mesma região nunca batem o trecho direto): quem chegou atravessando segue pela
+            // região, quem chegou pela região atravessa
+            int k = graph.edgeBegin(n), end = graph.edgeEnd(n);
+            if (nodeParent[n] == RoomGraph.partner(n)) k++;
+            else end = k + 1;
+            for (; k < end; k++) {
+                int m = graph.edgeTo(k);
+                if (closedStamp[m] != epoch) relax(m, g + graph.edgeCost(k), n, k, heuristic(m));
+            }
+        }
+        if (closedStamp[goal] != epoch) return false;
+
+        // Nós do caminho, da partida para a chegada
+        int count = 0;
+        for (int n = nodeParent[goal]; n >= 0; n = nodeParent[n]) {
+            ensureRoute(count + 1);
+            route[count] = n;
+            routeVia[count++] = nodeVia[n];
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int tmp = route[i]; route[i] = route[j]; route[j] = tmp;
+            tmp = routeVia[i]; routeVia[i] = routeVia[j]; routeVia[j] = tmp;
+        }
+        if (routeCache) {
+            routeMisses++;
+            int[] stored = new int[count * 2];
+            for (int i = 0; i < count; i++) {
+                stored[2 * i] = route[i];
+                stored[2 * i + 1] = routeVia[i];
+            }
+            routeKeys[slot] = key;
+            routes[slot] = stored;
+        }
+        if (refine(count, rs, s, rt, t, out)) return true;
+        out.reset(width);
+        return false;
+    }
+
+    private void ensureRoute(int count) {
+        if (count <= route.length) return;
+        int n = Math.max(count, route.length * 2);
+        route = Arrays.copyOf(route, n);
+        routeVia = Arrays.copyOf(routeVia, n);
+    }
+
+    /**
+     * Transforma a rota de nós em tiles: pontas por busca na região, o meio pelo cache de trechos.
+     * False se uma das pontas não chega à entrada da rota pela região.
+     */
+    private boolean refine(int count, int rs, int s, int rt, int t, TilePath out) {
+        if (!appendLocal(rs, s, graph.nodeTile(route[0]), out, true)) return false;
+        for (int i = 0; i + 1 < count; i++) {
+            int a = route[i], b = route[i + 1];
+            if (b == RoomGraph.partner(a)) {
+                out.add(graph.nodeTile(b));
+            } else {
+                int[] segment = segment(routeVia[i + 1], a, b);
+                out.addAll(segment, 0, segment.length);
+            }
+        }
+        return appendLocal(rt, graph.nodeTile(route[count - 1]), t, out, false);
+    }
+
+    /** Limite inferior da distância do nó até a chegada. */
+    private int heuristic(int n) {
+        int tile = graph.nodeTile(n);
+        int x = tile % width, y = tile / width;
+        int h = Math.abs(x - goalX) + Math.abs(y - goalY);
+        for (int l = 0, count = graph.getLandmarkCount(); l < count; l++) {
+            int dn = graph.landmarkDistance(n, l), dg = goalLandmark[l];
+            if (dn != RoomGraph.UNREACHABLE && dg != RoomGraph.UNREACHABLE) h = Math.max(h, Math.abs(dn - dg));
+        }
+        return h;
+    }
+
+    private void relax(int n, int g, int parent, int via, int h) {
+        if (nodeStamp[n] == nodeEpoch && nodeG[n] <= g) return;
+        nodeStamp[n] = nodeEpoch;
+        nodeG[n] = g;
+        nodeParent[n] = parent;
+        nodeVia[n] = via;
+        push((long) (g + h) << 32 | n);
+    }
+
+    private int nextNodeEpoch() {
+        if (++nodeEpoch == 0) {
+            Arrays.fill(nodeStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            Arrays.fill(goalStamp, 0);
+            nodeEpoch = 1;
+        }
+        return nodeEpoch;
+    }
+
+    // ========= Trechos dentro de uma região =========
+
+    /** Trecho da aresta {@code edge}, de {@code a} a {@code b} na mesma região (sem o tile de {@code a}). */
+    private int[] segment(int edge, int a, int b) {
+        int[] cached = segments[edge];
+        if (cached != null) {
+            cacheHits++;
+            return cached;
+        }
+        cacheMisses++;
+        int region = graph.nodeRegion(a);
+        int from = graph.nodeTile(a), to = graph.nodeTile(b);
+        flood(region, from, to);
+        int n = trace(from, to);
+        int[] path = new int[n];
+        // scratch está da chegada para a partida
+        for (int i = 0; i < n; i++) path[i] = scratch[n - 1 - i];
+        segments[edge] = path;
+        cachedSegments++;
+        return path;
+    }
+
+    /** Acrescenta o caminho de {@code from} a {@code to} pela região; false se não há. */
+    private boolean appendLocal(int region, int from, int to, TilePath out, boolean includeFrom) {
+        flood(region, from, to);
+        if (tileStamp[to] != tileEpoch) return false;
+        if (includeFrom) out.add(from);
+        int n = trace(from, to);
+        for (int i = n - 1; i >= 0; i--) out.add(scratch[i]);
+        return true;
+    }
+
+    /** Tiles de {@code to} até logo depois de {@code from} (ordem inversa) em {@code scratch}. */
+    private int trace(int from, int to) {
+        int n = 0;
+        for (int t = to; t != from; t = tileParent[t]) {
+            if (n == scratch.length) scratch = Arrays.copyOf(scratch, n * 2);
+            scratch[n++] = t;
+        }
+        return n;
+    }
+
+    /** Busca em largura só pela região; para ao chegar em {@code stop} (-1 = região toda). */
+    private void flood(int region, int start, int stop) {
+        if (++tileEpoch == 0) {
+            Arrays.fill(tileStamp, 0);
+            tileEpoch = 1;
+        }
+        int epoch = tileEpoch, w = width, h = graph.getHeight();
+        int[] queue = tileQueue;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        tileStamp[start] = epoch;
+        tileDist[start] = 0;
+        tileParent[start] = -1;
+        while (head < tail) {
+            int t = queue[head++];
+            if (t == stop) return;
+            int y = t / w, x = t - y * w, d = tileDist[t] + 1;
+            if (x + 1 < w) tail = visit(t + 1, t, d, region, tail);
+            if (x > 0) tail = visit(t - 1, t, d, region, tail);
+            if (y + 1 < h) tail = visit(t + w, t, d, region, tail);
+            if (y > 0) tail = visit(t - w, t, d, region, tail);
+        }
+    }
+
+    private int visit(int n, int parent, int d, int region, int tail) {
+        if (tileStamp[n] == tileEpoch || graph.regionOfTile(n) != region) return tail;
+        tileStamp[n] = tileEpoch;
+        tileDist[n] = d;
+        tileParent[n] = parent;
+        tileQueue[tail] = n;
+        return tail + 1;
+    }
+
+    // ========= Heap binário (f << 32 | nó) =========
+
+    private void push(long v) {
+        if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heap[p] <= v) break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = v;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long v = heap[--heapSize];
+        int i = 0, half = heapSize >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            if (c + 1 < heapSize && heap[c + 1] < heap[c]) c++;
+            if (v <= heap[c]) break;
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = v;
+        return top;
+    }
+
+    public DungeonMap getMap() { return map; }
+    public RoomGraph getGraph() { return graph; }
+    /** Trechos entre entradas guardados para o mapa atual. */
+    public int getCachedSegmentCount() { return cachedSegments; }
+    public long getCacheHits() { return cacheHits; }
+    public long getCacheMisses() { return cacheMisses; }
+    public long getRouteHits() { return routeHits; }
+    public long getRouteMisses() { return routeMisses; }
+    /** Nós expandidos pela busca grossa na última chamada. */
+    public int getLastExpanded() { return lastExpanded; }
+}
@@ -0,0 +1,37 @@
+package com.echorun.nav;
+
+import java.util.Arrays;
+
+/** Caminho de tiles reaproveitável: do tile de partida ao de chegada, inclusive. */
+public final class TilePath {
+    private int[] tiles = new int[64];
+    private int size;
+    private int width = 1;
+
+    void reset(int width) {
+        this.width = width;
+        size = 0;
+    }
+
+    void add(int tile) {
+        if (size == tiles.length) tiles = Arrays.copyOf(tiles, size * 2);
+        tiles[size++] = tile;
+    }
+
+    void addAll(int[] src, int from, int to) {
+        int n = to - from;
+        if (size + n > tiles.length) tiles = Arrays.copyOf(tiles, Math.max(size + n, tiles.length * 2));
+        System.arraycopy(src, from, tiles, size, n);
+        size += n;
+    }
+
+    /** Quantidade de tiles (passos + 1); 0 sem caminho. */
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    /** Passos do caminho (tiles - 1); -1 sem caminho. */
+    public int steps() { return size - 1; }
+    public int x(int i) { return tiles[i] % width; }
+    public int y(int i) { return tiles[i] / width; }
+    /** Tile {@code i} como {@code y * largura + x}. */
+    public int tile(int i) { return tiles[i]; }
+}
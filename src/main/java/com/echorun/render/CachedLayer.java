@@ -0,0 +1,87 @@
+package com.echorun.render;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Camada estática pré-desenhada. O conteúdo vive numa imagem compatível com a tela
+ * (a referência, desenhada por quem usa a camada); para desenhar, a camada mantém uma
+ * cópia quente em {@link VolatileImage}, que fica na memória de vídeo. Quando a cópia é
+ * perdida (troca de modo, tela bloqueada, outro app tomando a VRAM) ela é refeita a partir
+ * da referência, de forma transparente.
+ */
+public final class CachedLayer {
+    private final int width;
+    private final int height;
+    private final int transparency;
+    private final BufferedImage image;
+    private VolatileImage hot;
+    private boolean hotStale = true;
+
+    private static long restores;
+
+    public CachedLayer(int width, int height, int transparency) {
+        this.width = width;
+        this.height = height;
+        this.transparency = transparency;
+        this.image = CompatibleImages.create(width, height, transparency);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /** Quantas vezes alguma cópia quente foi refeita por perda de conteúdo (para diagnóstico). */
+    public static long getRestores() { return restores; }
+
+    /**
+     * Gráficos para redesenhar a referência; a cópia quente é atualizada no próximo
+     * {@link #draw}. Quem chama faz o {@code dispose()}.
+     */
+    public Graphics2D beginPaint() {
+        hotStale = true;
+        return image.createGraphics();
+    }
+
+    public void draw(Graphics2D g2, int x, int y) {
+        if (!CompatibleImages.volatileEnabled()) {
+            g2.drawImage(image, x, y, null);
+            return;
+        }
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        // Poucas tentativas: se a VRAM continuar sumindo, desenha da referência
+        for (int attempt = 0; attempt < 3; attempt++) {
+            int status = hot == null ? VolatileImage.IMAGE_INCOMPATIBLE : hot.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (hot != null) hot.flush();
+                hot = gc.createCompatibleVolatileImage(width, height, transparency);
+                hotStale = true;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                restores++;
+                hotStale = true;
+            }
+            if (hotStale) refreshHot();
+            if (hot.contentsLost()) continue;
+            g2.drawImage(hot, x, y, null);
+            if (!hot.contentsLost()) return;
+        }
+        g2.drawImage(image, x, y, null);
+    }
+
+    /** Libera a cópia em VRAM (a referência continua válida). */
+    public void flush() {
+        if (hot != null) {
+            hot.flush();
+            hot = null;
+        }
+        hotStale = true;
+    }
+
+    private void refreshHot() {
+        Graphics2D g = hot.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        hotStale = false;
+    }
+}
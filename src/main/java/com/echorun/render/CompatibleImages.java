@@ -0,0 +1,50 @@
+package com.echorun.render;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cria imagens no formato de pixel da tela ({@code createCompatibleImage}), que o Java2D
+ * consegue acelerar e copiar sem conversão. Sem tela (headless), cai em formatos
+ * equivalentes de {@link BufferedImage}.
+ *
+ * <p>{@code -Decho.volatile=false} desliga as cópias em {@code VolatileImage} de
+ * {@link CachedLayer} (útil para comparar ou contornar drivers problemáticos).
+ */
+public final class CompatibleImages {
+    private static final boolean VOLATILE_ENABLED =
+            !GraphicsEnvironment.isHeadless() && !"false".equalsIgnoreCase(System.getProperty("echo.volatile"));
+
+    private static GraphicsConfiguration config;
+
+    private CompatibleImages() {
+    }
+
+    /** Configuração da tela principal, ou null sem tela. */
+    public static synchronized GraphicsConfiguration screenConfig() {
+        if (config == null && !GraphicsEnvironment.isHeadless()) {
+            config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        return config;
+    }
+
+    public static boolean volatileEnabled() { return VOLATILE_ENABLED; }
+
+    /** Imagem sem canal alfa, para camadas que cobrem toda a área (ex.: pedaços do mapa). */
+    public static BufferedImage createOpaque(int width, int height) {
+        return create(width, height, Transparency.OPAQUE);
+    }
+
+    /** Imagem com alfa, para camadas sobrepostas (ex.: vinheta). */
+    public static BufferedImage createTranslucent(int width, int height) {
+        return create(width, height, Transparency.TRANSLUCENT);
+    }
+
+    public static BufferedImage create(int width, int height, int transparency) {
+        GraphicsConfiguration gc = screenConfig();
+        if (gc != null) return gc.createCompatibleImage(width, height, transparency);
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+        return new BufferedImage(width, height, type);
+    }
+}
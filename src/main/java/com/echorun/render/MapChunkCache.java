@@ -0,0 +1,307 @@
+package com.echorun.render;
+
+import com.echorun.map.DungeonMap;
+import com.echorun.map.NeighborMask;
+import com.echorun.map.TileChangeListener;
+import com.echorun.map.TileGrid;
+
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pré-render do mapa em pedaços ({@link #CHUNK_TILES} x {@link #CHUNK_TILES} tiles).
+ * Cada pedaço é desenhado na primeira vez que entra na tela e fica num cache LRU cujo
+ * tamanho acompanha a área visível; os que saem da tela são os primeiros a ser
+ * despejados e suas imagens são reaproveitadas. Memória e custo de blit dependem do
+ * tamanho da janela, não do tamanho do mapa. Os pedaços são {@link CachedLayer} opacos
+ * (formato da tela, cópia quente em VRAM enquanto estão no cache).
+ *
+ * <p>Numa grade sem limites (mundo sem fim) os pedaços cuja região ainda não foi gerada
+ * ficam de fora e não entram no cache; aparecem no primeiro quadro depois de prontos.
+ *
+ * <p>Num {@link DungeonMap}, os retângulos de tiles que mudam chegam por
+ * {@link TileChangeListener} (de qualquer thread) e se juntam num retângulo só; antes do
+ * próximo quadro, só esses tiles e os vizinhos (sombras e variações dependem deles) são
+ * redesenhados nos pedaços que estão no cache; os de fora saem certos quando forem desenhados.
+ * O cache fica registrado no mapa até {@link #close}, que deve ser chamado ao descartá-lo.
+ *
+ * <p>Não é thread-safe: use só no thread que desenha.
+ */
+public final class MapChunkCache implements AutoCloseable {
+    public static final int CHUNK_TILES = 8;
+
+    private static final Color WALL = new Color(45, 49, 66);
+    private static final Color WALL_SHADOW = new Color(25, 28, 38);
+    private static final Color FLOOR_BASE = new Color(62, 68, 89);
+    private static final Color FLOOR_ALT = new Color(66, 72, 95);
+    private static final Color DOOR = new Color(120, 98, 70);
+    private static final Color DOOR_INNER = DOOR.darker();
+    private static final Color PEBBLE = new Color(50, 55, 72);
+    private static final Color STAIRS_STEP = new Color(30, 32, 44);
+    private static final Color STAIRS_EDGE = new Color(150, 156, 178);
+
+    private final TileGrid map;
+    private final int tileSize;
+    private final int chunkPx;
+    private final int chunksX, chunksY;    // só em grades com limites
+
+    // Ordem de acesso: o primeiro é o menos usado recentemente
+    private final LinkedHashMap<Long, CachedLayer> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    private final ArrayDeque<CachedLayer> spare = new ArrayDeque<>(); // só pedaços inteiros
+    private int capacity = 16;
+
+    private long chunkRenders;
+    private long evictions;
+    private long tileRepaints;
+
+    // União dos tiles alterados esperando o próximo quadro (guardada por dirtyLock); vazia se x0 > x1
+    private final Object dirtyLock = new Object();
+    private int dirtyX0 = Integer.MAX_VALUE, dirtyY0 = Integer.MAX_VALUE;
+    private int dirtyX1 = Integer.MIN_VALUE, dirtyY1 = Integer.MIN_VALUE;
+    private final TileChangeListener onTilesChanged = (m, x0, y0, x1, y1, passability) -> markDirty(x0, y0, x1, y1);
+
+    public MapChunkCache(TileGrid map) {
+        this.map = map;
+        this.tileSize = map.getTileSize();
+        this.chunkPx = CHUNK_TILES * tileSize;
+        this.chunksX = map.isBounded() ? (map.getWidth() + CHUNK_TILES - 1) / CHUNK_TILES : 0;
+        this.chunksY = map.isBounded() ? (map.getHeight() + CHUNK_TILES - 1) / CHUNK_TILES : 0;
+        if (map instanceof DungeonMap) ((DungeonMap) map).addTileChangeListener(onTilesChanged);
+    }
+
+    public TileGrid getMap() { return map; }
+    public int size() { return chunks.size(); }
+    public int capacity() { return capacity; }
+    public long getChunkRenders() { return chunkRenders; }
+    public long getEvictions() { return evictions; }
+    /** Tiles redesenhados por mudanças no mapa (sem contar pedaços inteiros). */
+    public long getTileRepaints() { return tileRepaints; }
+
+    /** Desenha os pedaços (prontos) que cruzam a janela {@code [camX, camX+width) x [camY, camY+height)}. */
+    public void draw(Graphics2D g2, double camX, double camY, int width, int height) {
+        visit(g2, camX, camY, width, height);
+    }
+
+    /**
+     * Desenha no cache, sem blit, os pedaços dessa janela, para o primeiro quadro não pagar
+     * por eles. Pode rodar em outro thread antes de o cache ser entregue ao que desenha
+     * (ex.: pré-render do próximo andar).
+     */
+    public void prewarm(double camX, double camY, int width, int height) {
+        visit(null, camX, camY, width, height);
+    }
+
+    private void visit(Graphics2D g2, double camX, double camY, int width, int height) {
+        repaintDirty();
+        int ox = (int) -camX;
+        int oy = (int) -camY;
+        int cx0 = Math.floorDiv(-ox, chunkPx);
+        int cy0 = Math.floorDiv(-oy, chunkPx);
+        int cx1 = Math.floorDiv(-ox + width - 1, chunkPx);
+        int cy1 = Math.floorDiv(-oy + height - 1, chunkPx);
+        if (map.isBounded()) {
+            cx0 = Math.max(0, cx0);
+            cy0 = Math.max(0, cy0);
+            cx1 = Math.min(chunksX - 1, cx1);
+            cy1 = Math.min(chunksY - 1, cy1);
+        }
+        if (cx1 < cx0 || cy1 < cy0) return;
+
+        // Visíveis + uma borda de folga para ir e voltar sem redesenhar
+        int visible = (cx1 - cx0 + 1) * (cy1 - cy0 + 1);
+        ensureCapacity(visible + visible / 4 + 4);
+
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                CachedLayer layer = chunk(cx, cy);
+                if (layer != null && g2 != null) layer.draw(g2, ox + cx * chunkPx, oy + cy * chunkPx);
+            }
+        }
+    }
+
+    /** Descarta todos os pedaços (ex.: depois de mudar o mapa). */
+    public void clear() {
+        for (CachedLayer layer : chunks.values()) recycle(layer);
+        chunks.clear();
+        synchronized (dirtyLock) {
+            dirtyX0 = dirtyY0 = Integer.MAX_VALUE;
+            dirtyX1 = dirtyY1 = Integer.MIN_VALUE;
+        }
+    }
+
+    /** Sai do mapa e descarta os pedaços; o cache não deve mais ser usado. */
+    @Override
+    public void close() {
+        if (map instanceof DungeonMap) ((DungeonMap) map).removeTileChangeListener(onTilesChanged);
+        clear();
+    }
+
+    private void markDirty(int x0, int y0, int x1, int y1) {
+        synchronized (dirtyLock) {
+            dirtyX0 = Math.min(dirtyX0, x0);
+            dirtyY0 = Math.min(dirtyY0, y0);
+            dirtyX1 = Math.max(dirtyX1, x1);
+            dirtyY1 = Math.max(dirtyY1, y1);
+        }
+    }
+
+    /** Redesenha nos pedaços do cache os tiles alterados desde o último quadro, com os vizinhos. */
+    private void repaintDirty() {
+        int x0, y0, x1, y1;
+        synchronized (dirtyLock) {
+            if (dirtyX0 > dirtyX1) return;
+            x0 = dirtyX0 - 1; y0 = dirtyY0 - 1; x1 = dirtyX1 + 1; y1 = dirtyY1 + 1;
+            dirtyX0 = dirtyY0 = Integer.MAX_VALUE;
+            dirtyX1 = dirtyY1 = Integer.MIN_VALUE;
+        }
+        if (map.isBounded()) {
+            x0 = Math.max(0, x0); y0 = Math.max(0, y0);
+            x1 = Math.min(map.getWidth() - 1, x1); y1 = Math.min(map.getHeight() - 1, y1);
+        }
+        // A união pode cobrir o mapa todo (edições longe uma da outra): percorre só os pedaços do
+        // cache, que são poucos, e pinta a parte de cada um dentro dela; os de fora do cache
+        // saem certos quando forem desenhados
+        for (Map.Entry<Long, CachedLayer> e : chunks.entrySet()) {
+            long key = e.getKey();
+            int tx0 = (int) (key >> 32) * CHUNK_TILES, ty0 = (int) key * CHUNK_TILES;
+            int fx0 = Math.max(x0, tx0), fy0 = Math.max(y0, ty0);
+            int fx1 = Math.min(x1, tx0 + CHUNK_TILES - 1), fy1 = Math.min(y1, ty0 + CHUNK_TILES - 1);
+            if (fx0 > fx1 || fy0 > fy1) continue;
+            Graphics2D g2 = e.getValue().beginPaint();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            for (int ty = fy0; ty <= fy1; ty++) {
+                for (int tx = fx0; tx <= fx1; tx++) {
+                    paintTile(g2, tx, ty, (tx - tx0) * tileSize, (ty - ty0) * tileSize);
+                    tileRepaints++;
+                }
+            }
+            g2.dispose();
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed == capacity) return;
+        capacity = needed;
+        evictOverflow();
+        // Imagens livres além da folga só gastam memória
+        while (spare.size() > 4) spare.poll();
+    }
+
+    /** Pedaço do cache (desenhado agora se preciso); null se a região ainda não estiver pronta. */
+    private CachedLayer chunk(int cx, int cy) {
+        Long key = key(cx, cy);
+        CachedLayer layer = chunks.get(key);
+        if (layer == null) {
+            int tx0 = cx * CHUNK_TILES;
+            int ty0 = cy * CHUNK_TILES;
+            // A sombra da parede olha o tile de baixo, então a linha seguinte também conta
+            if (!map.isRegionReady(tx0, ty0, tx0 + CHUNK_TILES - 1, ty0 + CHUNK_TILES)) return null;
+            // Pedaços da borda do mapa são menores; opacos, cobrem exatamente os tiles
+            int w = chunkPx, h = chunkPx;
+            if (map.isBounded()) {
+                w = (Math.min(map.getWidth(), tx0 + CHUNK_TILES) - tx0) * tileSize;
+                h = (Math.min(map.getHeight(), ty0 + CHUNK_TILES) - ty0) * tileSize;
+            }
+            boolean full = w == chunkPx && h == chunkPx;
+            layer = full && !spare.isEmpty() ? spare.poll() : new CachedLayer(w, h, Transparency.OPAQUE);
+            renderChunk(layer, cx, cy);
+            chunks.put(key, layer);
+            evictOverflow();
+        }
+        return layer;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, CachedLayer>> it = chunks.entrySet().iterator();
+        while (chunks.size() > capacity && it.hasNext()) {
+            recycle(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void recycle(CachedLayer layer) {
+        // Fora da tela não precisa de VRAM; a imagem de referência volta para reuso
+        layer.flush();
+        if (layer.getWidth() == chunkPx && layer.getHeight() == chunkPx) spare.add(layer);
+    }
+
+    private static Long key(int cx, int cy) {
+        return (long) cx << 32 | (cy & 0xFFFFFFFFL);
+    }
+
+    private void renderChunk(CachedLayer layer, int cx, int cy) {
+        chunkRenders++;
+        // Todo tile é pintado por inteiro, então não é preciso limpar imagens reaproveitadas
+        Graphics2D g2 = layer.beginPaint();
+        // Anti-alias não é necessário para tiles retangulares; prioriza performance
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        int tx0 = cx * CHUNK_TILES;
+        int ty0 = cy * CHUNK_TILES;
+        int tx1 = map.isBounded() ? Math.min(map.getWidth(), tx0 + CHUNK_TILES) : tx0 + CHUNK_TILES;
+        int ty1 = map.isBounded() ? Math.min(map.getHeight(), ty0 + CHUNK_TILES) : ty0 + CHUNK_TILES;
+        for (int ty = ty0; ty < ty1; ty++) {
+            for (int tx = tx0; tx < tx1; tx++) {
+                paintTile(g2, tx, ty, (tx - tx0) * tileSize, (ty - ty0) * tileSize);
+            }
+        }
+        g2.dispose();
+    }
+
+    private void paintTile(Graphics2D g2, int tx, int ty, int px, int py) {
+        switch (map.get(tx, ty)) {
+            case FLOOR: {
+                float r = map.random01(tx, ty);
+                g2.setColor(mix(FLOOR_BASE, FLOOR_ALT, r * 0.5f));
+                g2.fillRect(px, py, tileSize, tileSize);
+
+                // detalhes de pedras
+                g2.setColor(PEBBLE);
+                if (r > 0.85f) g2.fillRect(px + 4, py + 6, 2, 2);
+                if (r < 0.15f) g2.fillRect(px + 12, py + 12, 2, 2);
+                break;
+            }
+            case WALL: {
+                g2.setColor(WALL);
+                g2.fillRect(px, py, tileSize, tileSize);
+                // Sombra se abaixo for piso (pode estar no pedaço de baixo)
+                if ((map.floorNeighbors(tx, ty) & NeighborMask.S) != 0) {
+                    g2.setColor(WALL_SHADOW);
+                    g2.fillRect(px, py + tileSize - 5, tileSize, 5);
+                }
+                break;
+            }
+            case STAIRS: {
+                // Degraus descendo: cada um mais escuro e mais estreito
+                g2.setColor(FLOOR_BASE);
+                g2.fillRect(px, py, tileSize, tileSize);
+                int step = Math.max(2, tileSize / 6);
+                for (int i = 0; i < 4; i++) {
+                    int inset = 2 + i * step / 2;
+                    g2.setColor(i == 0 ? STAIRS_EDGE : mix(FLOOR_BASE, STAIRS_STEP, i / 3f));
+                    g2.fillRect(px + inset, py + 2 + i * step, tileSize - 2 * inset, step);
+                }
+                break;
+            }
+            case DOOR: {
+                g2.setColor(DOOR);
+                g2.fillRect(px, py, tileSize, tileSize);
+                g2.setColor(DOOR_INNER);
+                g2.fillRect(px + 2, py + 2, tileSize - 4, tileSize - 4);
+                break;
+            }
+        }
+    }
+
+    private static Color mix(Color a, Color b, float t) {
+        t = Math.max(0, Math.min(1, t));
+        int r = (int)(a.getRed() * (1 - t) + b.getRed() * t);
+        int g = (int)(a.getGreen() * (1 - t) + b.getGreen() * t);
+        int bl = (int)(a.getBlue() * (1 - t) + b.getBlue() * t);
+        return new Color(r, g, bl);
+    }
+}
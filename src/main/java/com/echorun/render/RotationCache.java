@@ -0,0 +1,98 @@
+package com.echorun.render;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quadros pré-rotacionados de formas pequenas (projéteis, armas), com o ângulo quantizado
+ * em {@link #ANGLES} passos. Cada quadro é desenhado na primeira vez que é pedido; depois,
+ * desenhar vira um {@code drawImage} sem transformação. A memória é limitada: quando o
+ * total de pixels passa do orçamento, a variante usada há mais tempo é descartada inteira.
+ *
+ * <p>Uma variante é uma forma com parâmetros fixos (ex.: flecha de raio 4), identificada
+ * por um {@code int} escolhido por quem usa. Não é thread-safe.
+ */
+public final class RotationCache {
+    public static final int ANGLES = 64;
+    private static final double STEP = Math.PI * 2.0 / ANGLES;
+
+    /** Desenha a variante em volta da origem, apontando para +x. */
+    @FunctionalInterface
+    public interface ShapePainter {
+        void paint(Graphics2D g2, int variant);
+    }
+
+    private static final class Variant {
+        final int extent;
+        final BufferedImage[] frames = new BufferedImage[ANGLES];
+
+        Variant(int extent) {
+            this.extent = extent;
+        }
+
+        long pixels() {
+            long side = extent * 2L;
+            return side * side * ANGLES; // pior caso: todos os ângulos gerados
+        }
+    }
+
+    private final ShapePainter painter;
+    private final long pixelBudget;
+    private final LinkedHashMap<Integer, Variant> variants = new LinkedHashMap<>(16, 0.75f, true);
+    private long pixels;
+    private long framesRendered;
+
+    public RotationCache(ShapePainter painter, long pixelBudget) {
+        this.painter = painter;
+        this.pixelBudget = pixelBudget;
+    }
+
+    public int variantCount() { return variants.size(); }
+    public long getFramesRendered() { return framesRendered; }
+
+    /** Quadro mais próximo de {@code ang} (radianos), centrado em {@code (x, y)}. */
+    public void draw(Graphics2D g2, int variant, int extent, double ang, int x, int y) {
+        Variant v = variants.get(variant);
+        if (v == null || v.extent != extent) v = addVariant(variant, extent);
+        int a = (int) Math.round(ang / STEP) & (ANGLES - 1);
+        BufferedImage frame = v.frames[a];
+        if (frame == null) frame = v.frames[a] = renderFrame(variant, extent, a);
+        g2.drawImage(frame, x - extent, y - extent, null);
+    }
+
+    public void clear() {
+        variants.clear();
+        pixels = 0;
+    }
+
+    private Variant addVariant(int variant, int extent) {
+        Variant old = variants.remove(variant);
+        if (old != null) pixels -= old.pixels();
+        Variant v = new Variant(extent);
+        variants.put(variant, v);
+        pixels += v.pixels();
+        // Mantém pelo menos a variante nova, mesmo que sozinha passe do orçamento
+        Iterator<Map.Entry<Integer, Variant>> it = variants.entrySet().iterator();
+        while (pixels > pixelBudget && variants.size() > 1) {
+            Variant eldest = it.next().getValue();
+            pixels -= eldest.pixels();
+            it.remove();
+        }
+        return v;
+    }
+
+    private BufferedImage renderFrame(int variant, int extent, int angleIndex) {
+        framesRendered++;
+        BufferedImage img = CompatibleImages.createTranslucent(extent * 2, extent * 2);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.translate(extent, extent);
+        g.rotate(angleIndex * STEP);
+        painter.paint(g, variant);
+        g.dispose();
+        return img;
+    }
+}
@@ -0,0 +1,68 @@
+package com.echorun.render;
+
+import java.awt.*;
+
+/**
+ * Formas vetoriais de projéteis e armas, desenhadas em volta da origem e apontando para +x
+ * (quem chama aplica translação e rotação, ou usa um {@link RotationCache}). Guarda vetores
+ * de triângulo reutilizados, então cada instância é de um thread só.
+ */
+public final class WeaponShapes {
+    private static final Color ARROW_SHAFT = new Color(130, 100, 70);
+    private static final Color ARROW_TIP = new Color(200, 200, 210);
+    private static final Color ARROW_FLETCH = new Color(160, 160, 180);
+    private static final Color DAGGER_BLADE = new Color(220, 230, 235);
+    private static final Color HILT = new Color(120, 80, 50);
+    private static final Color GUARD = new Color(150, 110, 70);
+    private static final Color SWORD_BLADE = new Color(210, 220, 230);
+
+    private final int[] triX = new int[3];
+    private final int[] triY = new int[3];
+
+    public void paintArrow(Graphics2D g2, int radius) {
+        // haste
+        g2.setColor(ARROW_SHAFT);
+        g2.fillRect(-radius, -2, radius*2, 4);
+        // ponta
+        g2.setColor(ARROW_TIP);
+        int tip = radius*2;
+        fillTriangle(g2, tip, 0, tip-6, -4, tip-6, 4);
+        // penas
+        g2.setColor(ARROW_FLETCH);
+        fillTriangle(g2, -radius, 0, -radius-6, -4, -radius-4, 4);
+    }
+
+    public void paintDagger(Graphics2D g2, int radius) {
+        // lâmina
+        g2.setColor(DAGGER_BLADE);
+        fillTriangle(g2, 0, -3, radius*2, 0, 0, 3);
+        // cabo
+        g2.setColor(HILT);
+        g2.fillRect(-6, -2, 6, 4);
+    }
+
+    /** Espada do golpe: começa a 4 px do centro do jogador e vai até {@code 15 + reach}. */
+    public void paintSword(Graphics2D g2, float reach) {
+        // cabo
+        g2.setColor(HILT);
+        g2.fillRoundRect(4, -3, 10, 6, 4, 4);
+        // guarda-mão
+        g2.setColor(GUARD);
+        g2.fillRect(12, -5, 3, 10);
+        // lâmina
+        g2.setColor(SWORD_BLADE);
+        g2.fillRoundRect(15, -2, (int)(reach), 4, 3, 3);
+    }
+
+    /** Maior distância da origem que {@link #paintArrow} alcança. */
+    public static int arrowExtent(int radius) { return Math.max(radius * 2, radius + 6) + 2; }
+    public static int daggerExtent(int radius) { return Math.max(radius * 2, 6) + 4; }
+    public static int swordExtent(float reach) { return 15 + (int) Math.ceil(reach) + 6; }
+
+    /** Triângulo com vetores reutilizados (evita dois int[] por chamada). */
+    private void fillTriangle(Graphics2D g2, int x0, int y0, int x1, int y1, int x2, int y2) {
+        triX[0] = x0; triX[1] = x1; triX[2] = x2;
+        triY[0] = y0; triY[1] = y1; triY[2] = y2;
+        g2.fillPolygon(triX, triY, 3);
+    }
+}
@@ -0,0 +1,100 @@
+package com.echorun.sprite;
+
+import com.echorun.game.PlayerClass;
+import com.echorun.render.CompatibleImages;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Todos os quadros de personagem (classe × {@link Direction} × bob) pré-desenhados uma vez
+ * numa única imagem, para um tamanho fixo. Desenhar um personagem vira um só
+ * {@code drawImage} de um retângulo do atlas, sem trigonometria nem alocação; com dezenas
+ * de personagens na tela a textura é a mesma para todos.
+ *
+ * <p>Layout: uma linha por classe e direção, uma coluna por valor de bob (-1, 0, 1, 2). Cada
+ * célula tem uma margem em volta do tamanho nominal, porque armas e chapéus passam da caixa.
+ */
+public final class SpriteAtlas {
+    private static final int BOB_MIN = -1;
+    private static final int BOB_FRAMES = 4;
+    // Fase da animação quantizada: bob por 1/64 de ciclo, sem Math.sin por quadro
+    private static final int PHASES = 64;
+    private static final byte[] BOB_BY_PHASE = new byte[PHASES];
+
+    private static final int DIRECTIONS = Direction.values().length;
+
+    private static final Map<Integer, SpriteAtlas> BY_SIZE = new HashMap<>();
+
+    static {
+        for (int i = 0; i < PHASES; i++) {
+            BOB_BY_PHASE[i] = (byte) Sprites.bobY((i + 0.5) / PHASES);
+        }
+    }
+
+    private final int size;
+    private final int pad;
+    private final int cell;
+    private final BufferedImage image;
+
+    private SpriteAtlas(int size) {
+        this.size = size;
+        this.pad = Math.max(2, (int) Math.ceil(size * 0.35));
+        this.cell = size + pad * 2;
+        PlayerClass[] classes = PlayerClass.values();
+        Direction[] dirs = Direction.values();
+        this.image = CompatibleImages.createTranslucent(cell * BOB_FRAMES, cell * classes.length * dirs.length);
+
+        Graphics2D g2 = image.createGraphics();
+        // Mesmas dicas do desenho em jogo, para o atlas ficar igual ao vetorial
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (PlayerClass c : classes) {
+            for (Direction dir : dirs) {
+                int row = row(c, dir);
+                for (int f = 0; f < BOB_FRAMES; f++) {
+                    Graphics2D cg = (Graphics2D) g2.create(f * cell, row * cell, cell, cell);
+                    Sprites.paintFrame(c, cg, pad, pad, size, dir, BOB_MIN + f);
+                    cg.dispose();
+                }
+            }
+        }
+        g2.dispose();
+    }
+
+    /** Atlas do tamanho pedido, criado na primeira vez. */
+    public static synchronized SpriteAtlas forSize(int size) {
+        return BY_SIZE.computeIfAbsent(size, SpriteAtlas::new);
+    }
+
+    /**
+     * Sprite da classe servido pelo atlas de {@code size}; em outros tamanhos cai no desenho
+     * vetorial de {@link Sprites}.
+     */
+    public static CharacterSprite forClass(PlayerClass c, int size) {
+        SpriteAtlas atlas = forSize(size);
+        CharacterSprite vector = Sprites.forClass(c);
+        return (g2, x, y, s, dir, t) -> {
+            if (s == atlas.size) atlas.draw(g2, c, x, y, dir, t);
+            else vector.paint(g2, x, y, s, dir, t);
+        };
+    }
+
+    public int getSize() { return size; }
+    public BufferedImage getImage() { return image; }
+
+    public void draw(Graphics2D g2, PlayerClass c, int x, int y, Direction dir, double timeSec) {
+        double frac = timeSec - Math.floor(timeSec);
+        int bob = BOB_BY_PHASE[(int) (frac * PHASES) & (PHASES - 1)];
+        int sx = (bob - BOB_MIN) * cell;
+        int sy = row(c, dir) * cell;
+        int dx = x - pad;
+        int dy = y - pad;
+        g2.drawImage(image, dx, dy, dx + cell, dy + cell, sx, sy, sx + cell, sy + cell, null);
+    }
+
+    private static int row(PlayerClass c, Direction dir) {
+        return c.ordinal() * DIRECTIONS + dir.ordinal();
+    }
+}
@@ -5,14 +5,20 @@ import com.echorun.game.PlayerClass;
 import java.awt.*;
 
 public class Sprites {
+    /** Desenho vetorial, em qualquer tamanho. Para o tamanho do jogo, prefira {@link SpriteAtlas}. */
     public static CharacterSprite forClass(PlayerClass c) {
+        return (g2, x, y, size, dir, t) -> paintFrame(c, g2, x, y, size, dir, bobY(t));
+    }
+
+    /** Um quadro com deslocamento vertical {@code bob} já quantizado (ver {@link #bobY}). */
+    static void paintFrame(PlayerClass c, Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         switch (c) {
-            case WARRIOR: return Sprites::paintWarrior;
-            case MAGE: return Sprites::paintMage;
-            case ROGUE: return Sprites::paintRogue;
-            case RANGER: return Sprites::paintRanger;
-            case CLERIC: return Sprites::paintCleric;
-            default: return Sprites::paintWarrior;
+            case WARRIOR: paintWarrior(g2, x, y, size, dir, bob); break;
+            case MAGE: paintMage(g2, x, y, size, dir, bob); break;
+            case ROGUE: paintRogue(g2, x, y, size, dir, bob); break;
+            case RANGER: paintRanger(g2, x, y, size, dir, bob); break;
+            case CLERIC: paintCleric(g2, x, y, size, dir, bob); break;
+            default: paintWarrior(g2, x, y, size, dir, bob); break;
         }
     }
 
@@ -43,7 +49,8 @@ public class Sprites {
         g2.fillOval(x + u(size,3), y + u(size,16), u(size,12), u(size,3));
     }
 
-    private static int bobY(double timeSec) {
+    // Sempre um de -1, 0, 1, 2
+    static int bobY(double timeSec) {
         return (int)Math.round(Math.sin(timeSec * Math.PI * 2.0) * 1.5);
     }
 
@@ -67,8 +74,7 @@ public class Sprites {
     }
 
     // Classes
-    private static void paintWarrior(Graphics2D g2, int x, int y, int size, Direction dir, double t) {
-        int bob = bobY(t);
+    private static void paintWarrior(Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         shadowFeet(g2, x, y, size);
         // capa
         g2.setColor(new Color(160,30,40));
@@ -83,8 +89,7 @@ public class Sprites {
         weaponSword(g2, x, y + bob, size, dir);
     }
 
-    private static void paintMage(Graphics2D g2, int x, int y, int size, Direction dir, double t) {
-        int bob = bobY(t);
+    private static void paintMage(Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         shadowFeet(g2, x, y, size);
         // manto
         body(g2, x, y + bob, size, new Color(60, 90, 160));
@@ -99,8 +104,7 @@ public class Sprites {
         staff(g2, x, y + bob, size, dir, new Color(140, 200, 255));
     }
 
-    private static void paintRogue(Graphics2D g2, int x, int y, int size, Direction dir, double t) {
-        int bob = bobY(t);
+    private static void paintRogue(Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         shadowFeet(g2, x, y, size);
         // capuz
         g2.setColor(new Color(34, 58, 60));
@@ -116,8 +120,7 @@ public class Sprites {
         eyes(g2, x, y + bob, size, dir);
     }
 
-    private static void paintRanger(Graphics2D g2, int x, int y, int size, Direction dir, double t) {
-        int bob = bobY(t);
+    private static void paintRanger(Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         shadowFeet(g2, x, y, size);
         // capuz verde
         g2.setColor(new Color(52, 94, 60));
@@ -134,8 +137,7 @@ public class Sprites {
         eyes(g2, x, y + bob, size, dir);
     }
 
-    private static void paintCleric(Graphics2D g2, int x, int y, int size, Direction dir, double t) {
-        int bob = bobY(t);
+    private static void paintCleric(Graphics2D g2, int x, int y, int size, Direction dir, int bob) {
         shadowFeet(g2, x, y, size);
         // túnica branca
         body(g2, x, y + bob, size, new Color(220, 220, 230));
@@ -0,0 +1,100 @@
+package com.echorun.tools;
+
+import com.echorun.render.CachedLayer;
+import com.echorun.render.CompatibleImages;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Locale;
+
+/**
+ * Vazão de blit das camadas estáticas: o caminho antigo ({@code TYPE_INT_ARGB} comum) contra
+ * imagens compatíveis com a tela e {@link CachedLayer} (cópia em {@link VolatileImage}).
+ * O destino imita o back buffer: uma VolatileImage da tela quando há display, ou uma
+ * imagem compatível opaca em modo headless (onde não há VRAM para comparar).
+ *
+ * <pre>./scripts/tool.sh BlitBenchmark [largura] [altura] [segundos]</pre>
+ */
+public class BlitBenchmark {
+    public static void main(String[] args) {
+        int w = args.length > 0 ? Integer.parseInt(args[0]) : 1280;
+        int h = args.length > 1 ? Integer.parseInt(args[1]) : 720;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+
+        GraphicsConfiguration gc = CompatibleImages.screenConfig();
+        VolatileImage screenTarget = gc != null ? gc.createCompatibleVolatileImage(w, h, Transparency.OPAQUE) : null;
+        BufferedImage offscreenTarget = CompatibleImages.createOpaque(w, h);
+        System.out.printf(Locale.ROOT, "destino: %s %dx%d%n", screenTarget != null ? "VolatileImage (tela)" : "imagem compatível (headless)", w, h);
+        System.out.printf(Locale.ROOT, "%-24s %12s %12s%n", "fonte", "blits/s", "MPix/s");
+
+        BufferedImage argb = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        fill(argb.createGraphics(), w, h);
+        BufferedImage opaque = CompatibleImages.createOpaque(w, h);
+        fill(opaque.createGraphics(), w, h);
+        CachedLayer opaqueLayer = new CachedLayer(w, h, Transparency.OPAQUE);
+        fill(opaqueLayer.beginPaint(), w, h);
+        BufferedImage translucent = CompatibleImages.createTranslucent(w, h);
+        fillVignette(translucent.createGraphics(), w, h);
+        BufferedImage argbVignette = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        fillVignette(argbVignette.createGraphics(), w, h);
+        CachedLayer translucentLayer = new CachedLayer(w, h, Transparency.TRANSLUCENT);
+        fillVignette(translucentLayer.beginPaint(), w, h);
+
+        report("ARGB (antigo, mapa)", w, h, seconds, screenTarget, offscreenTarget, g -> g.drawImage(argb, 0, 0, null));
+        report("compatível opaca", w, h, seconds, screenTarget, offscreenTarget, g -> g.drawImage(opaque, 0, 0, null));
+        report("CachedLayer opaca", w, h, seconds, screenTarget, offscreenTarget, g -> opaqueLayer.draw(g, 0, 0));
+        report("ARGB (antigo, vinheta)", w, h, seconds, screenTarget, offscreenTarget, g -> g.drawImage(argbVignette, 0, 0, null));
+        report("compatível translúcida", w, h, seconds, screenTarget, offscreenTarget, g -> g.drawImage(translucent, 0, 0, null));
+        report("CachedLayer translúcida", w, h, seconds, screenTarget, offscreenTarget, g -> translucentLayer.draw(g, 0, 0));
+        System.out.printf(Locale.ROOT, "restauracoes de VRAM: %d%n", CachedLayer.getRestores());
+    }
+
+    private interface Blit {
+        void draw(Graphics2D g);
+    }
+
+    private static void report(String name, int w, int h, double seconds, VolatileImage screenTarget, BufferedImage offscreen, Blit blit) {
+        long budget = (long) (seconds * 1e9);
+        // aquecimento (o Java2D só acelera imagens gerenciadas depois de algumas cópias)
+        run(blit, screenTarget, offscreen, budget / 4);
+        long[] r = run(blit, screenTarget, offscreen, budget);
+        double perSecond = r[0] / (r[1] / 1e9);
+        System.out.printf(Locale.ROOT, "%-24s %12.0f %12.1f%n", name, perSecond, perSecond * w * h / 1e6);
+    }
+
+    private static long[] run(Blit blit, VolatileImage screenTarget, BufferedImage offscreen, long budgetNs) {
+        long count = 0;
+        long t0 = System.nanoTime();
+        long elapsed;
+        do {
+            Graphics2D g = screenTarget != null ? screenTarget.createGraphics() : offscreen.createGraphics();
+            for (int i = 0; i < 16; i++) blit.draw(g);
+            g.dispose();
+            if (screenTarget != null) {
+                // Força a GPU a terminar antes de medir
+                Toolkit.getDefaultToolkit().sync();
+            }
+            count += 16;
+            elapsed = System.nanoTime() - t0;
+        } while (elapsed < budgetNs);
+        return new long[]{count, elapsed};
+    }
+
+    private static void fill(Graphics2D g, int w, int h) {
+        for (int y = 0; y < h; y += 24) {
+            for (int x = 0; x < w; x += 24) {
+                g.setColor(new Color(45 + (x * 7 + y * 3) % 40, 49, 66 + (x + y) % 30));
+                g.fillRect(x, y, 24, 24);
+            }
+        }
+        g.dispose();
+    }
+
+    private static void fillVignette(Graphics2D g, int w, int h) {
+        g.setPaint(new RadialGradientPaint(new Point(w / 2, h / 2), Math.max(w, h) * 0.7f,
+                new float[]{0f, 1f}, new Color[]{new Color(0, 0, 0, 0), new Color(0, 0, 0, 110)}));
+        g.fillRect(0, 0, w, h);
+        g.dispose();
+    }
+}
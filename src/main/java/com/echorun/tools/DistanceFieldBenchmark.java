@@ -0,0 +1,191 @@
+package com.echorun.tools;
+
+import com.echorun.map.DistanceField;
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.RayHit;
+import com.echorun.map.Tile;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Campo de distância até a parede: tempo de montar por tamanho de mapa, raios por "sphere
+ * tracing" contra o DDA tile a tile e a escolha de ponto de partida pelos blocos contra a
+ * espiral antiga. Confere a transformada contra força bruta num mapa pequeno, que a folga
+ * nunca passa da distância real e que o raio bate no mesmo tile, com a mesma normal e à
+ * mesma distância que o do mapa (sai com 1 se algo não bate).
+ *
+ * <pre>./scripts/tool.sh DistanceFieldBenchmark [lado...]</pre>
+ */
+public class DistanceFieldBenchmark {
+    private static final int RAYS = 200_000;
+    private static final byte FLOOR = Tile.FLOOR.code();
+
+    public static void main(String[] args) {
+        int[] sides = args.length > 0 ? parse(args) : new int[]{256, 1024, 2048};
+        int failures = checkExact(96) + checkClearance(256);
+        System.out.printf(Locale.ROOT, "%-10s %9s %10s %12s %13s %7s %12s %14s %7s %11s %10s%n",
+                "mapa", "campo ms", "KiB", "DDA ns/raio", "campo ns/raio", "ganho", "DDA ns/passo", "campo ns/passo", "ganho", "espiral µs", "blocos µs");
+        row(sides[0], false); // aquece o JIT
+        for (int side : sides) failures += row(side, true);
+        System.out.println(failures == 0 ? "campo e raios: ok" : "divergências: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /** Uma linha da tabela; devolve as divergências. */
+    private static int row(int side, boolean print) {
+        int failures = 0;
+        DungeonMap map = new DungeonGenerator(side, side, 24, 77L).setRoomAttempts(side * side / 100).generate();
+        long b0 = System.nanoTime();
+        DistanceField field = DistanceField.build(map);
+        double buildMs = (System.nanoTime() - b0) / 1e6;
+
+        double[] rays = rays(map, new Random(side));
+        RayHit a = new RayHit(), b = new RayHit();
+        double maxDistance = map.getTileSize() * 40.0;
+        double ddaNs = time(map, null, rays, maxDistance, a);
+        double fieldNs = time(map, field, rays, maxDistance, b);
+        failures += compareRays(map, field, rays, maxDistance);
+
+        // Passos curtos, como o de um projétil por tick
+        double stepLength = map.getTileSize() / 3.0;
+        double ddaStepNs = time(map, null, rays, stepLength, a);
+        double fieldStepNs = time(map, field, rays, stepLength, b);
+        failures += compareRays(map, field, rays, stepLength);
+
+        int[] out = new int[2];
+        long p0 = System.nanoTime();
+        spiral(map, out);
+        double spiralUs = (System.nanoTime() - p0) / 1e3;
+        long q0 = System.nanoTime();
+        field.findOpenTile(side / 2, side / 2, 2f, out);
+        double blocksUs = (System.nanoTime() - q0) / 1e3;
+        if (map.getCode(out[0], out[1]) != FLOOR) failures++;
+
+        if (print) System.out.printf(Locale.ROOT, "%-10s %9.1f %10d %12.1f %13.1f %6.1fx %12.1f %14.1f %6.1fx %11.1f %10.1f%n",
+                side + "x" + side, buildMs, (long) side * side * 2 / 1024, ddaNs, fieldNs, ddaNs / fieldNs,
+                ddaStepNs, fieldStepNs, ddaStepNs / fieldStepNs, spiralUs, blocksUs);
+        return failures;
+    }
+
+    /** Transformada contra a menor distância por força bruta (fora do mapa conta como parede). */
+    private static int checkExact(int side) {
+        DungeonMap map = new DungeonGenerator(side, side, 24, 5L).generate();
+        DistanceField field = DistanceField.build(map);
+        int failures = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                long best = Long.MAX_VALUE;
+                for (int wy = -1; wy <= side; wy++) {
+                    for (int wx = -1; wx <= side; wx++) {
+                        boolean wall = wx < 0 || wy < 0 || wx >= side || wy >= side || map.isSolid(wx, wy);
+                        if (!wall) continue;
+                        long d2 = (long) (wx - x) * (wx - x) + (long) (wy - y) * (wy - y);
+                        if (d2 < best) best = d2;
+                    }
+                }
+                int expected = (int) Math.floor(Math.sqrt(best) * DistanceField.SCALE);
+                if (field.raw(x, y) != expected) failures++;
+            }
+        }
+        if (failures > 0) System.out.println("transformada diferente da força bruta em " + failures + " tiles");
+        return failures;
+    }
+
+    /** Folga em pontos sorteados nunca maior que a distância até o retângulo sólido mais próximo. */
+    private static int checkClearance(int side) {
+        DungeonMap map = new DungeonGenerator(side, side, 24, 9L).generate();
+        DistanceField field = DistanceField.build(map);
+        int ts = map.getTileSize(), failures = 0;
+        Random rng = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            double px = rng.nextDouble() * side * ts, py = rng.nextDouble() * side * ts;
+            double c = field.clearance(px, py);
+            if (c == 0) continue;
+            int tx = (int) (px / ts), ty = (int) (py / ts), r = (int) Math.ceil(c / ts) + 1;
+            for (int y = ty - r; y <= ty + r; y++) {
+                for (int x = tx - r; x <= tx + r; x++) {
+                    if (map.contains(x, y) && !map.isSolid(x, y)) continue;
+                    double nx = Math.max(x * ts, Math.min(px, (x + 1) * ts));
+                    double ny = Math.max(y * ts, Math.min(py, (y + 1) * ts));
+                    if (Math.hypot(px - nx, py - ny) < c) failures++;
+                }
+            }
+        }
+        if (failures > 0) System.out.println("folga acima da real em " + failures + " pontos");
+        return failures;
+    }
+
+    /** Raios com origem em piso e direção sorteada, em ordem de linha (vizinhos na memória, como projéteis juntos). */
+    private static double[] rays(DungeonMap map, Random rng) {
+        int side = map.getWidth(), ts = map.getTileSize();
+        double[][] sorted = new double[RAYS][];
+        for (int i = 0; i < RAYS; ) {
+            double x = rng.nextDouble() * side * ts, y = rng.nextDouble() * side * ts;
+            if (!map.isWalkable((int) (x / ts), (int) (y / ts))) continue;
+            double ang = rng.nextDouble() * Math.PI * 2;
+            sorted[i++] = new double[]{x, y, Math.cos(ang), Math.sin(ang)};
+        }
+        Arrays.sort(sorted, (p, q) -> Double.compare(Math.floor(p[1] / ts) * side * ts + p[0], Math.floor(q[1] / ts) * side * ts + q[0]));
+        double[] r = new double[RAYS * 4];
+        for (int i = 0; i < RAYS; i++) System.arraycopy(sorted[i], 0, r, 4 * i, 4);
+        return r;
+    }
+
+    /** Melhor de cinco rodadas, em ns por raio. */
+    private static double time(DungeonMap map, DistanceField field, double[] r, double maxDistance, RayHit out) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            castAll(map, field, r, maxDistance, out);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        return best / (double) RAYS;
+    }
+
+    private static void castAll(DungeonMap map, DistanceField field, double[] r, double maxDistance, RayHit out) {
+        for (int i = 0; i < RAYS; i++) {
+            if (field == null) map.raycast(r[4 * i], r[4 * i + 1], r[4 * i + 2], r[4 * i + 3], maxDistance, out);
+            else field.raycast(r[4 * i], r[4 * i + 1], r[4 * i + 2], r[4 * i + 3], maxDistance, out);
+        }
+    }
+
+    private static int compareRays(DungeonMap map, DistanceField field, double[] r, double maxDistance) {
+        RayHit a = new RayHit(), b = new RayHit();
+        int failures = 0;
+        for (int i = 0; i < RAYS; i++) {
+            boolean ha = map.raycast(r[4 * i], r[4 * i + 1], r[4 * i + 2], r[4 * i + 3], maxDistance, a);
+            boolean hb = field.raycast(r[4 * i], r[4 * i + 1], r[4 * i + 2], r[4 * i + 3], maxDistance, b);
+            if (ha != hb || Math.abs(a.distance - b.distance) > 1e-6) { failures++; continue; }
+            if (ha && (a.tileX != b.tileX || a.tileY != b.tileY || a.normalX != b.normalX || a.normalY != b.normalY)) failures++;
+        }
+        if (failures > 0) System.out.println("raios diferentes do DDA: " + failures);
+        return failures;
+    }
+
+    /** Espiral antiga do ponto de partida: primeiro piso a partir do centro. */
+    private static boolean spiral(DungeonMap map, int[] out) {
+        int cx = map.getWidth() / 2, cy = map.getHeight() / 2;
+        for (int r = 0; r < Math.max(map.getWidth(), map.getHeight()); r++) {
+            for (int dy = -r; dy <= r; dy++) {
+                for (int dx = -r; dx <= r; dx++) {
+                    int tx = cx + dx, ty = cy + dy;
+                    if (map.contains(tx, ty) && map.getCode(tx, ty) == FLOOR) {
+                        out[0] = tx;
+                        out[1] = ty;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+}
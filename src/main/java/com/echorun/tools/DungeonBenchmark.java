@@ -0,0 +1,91 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Geração de mapas com cada vez mais salas: salas/s e mapas/s do {@link DungeonGenerator}
+ * (rejeição de salas por bitmap de ocupação) e, para comparar, só o posicionamento de salas
+ * da versão antiga (cada candidata contra todas as salas aceitas, com dois
+ * {@code Rectangle} por comparação) com o mesmo sorteio.
+ *
+ * <pre>./scripts/tool.sh DungeonBenchmark [lado...]</pre>
+ */
+public class DungeonBenchmark {
+    // Uma tentativa a cada 100 tiles: ~1 sala aceita a cada 400-500 tiles
+    private static final int TILES_PER_ATTEMPT = 100;
+    private static final long BUDGET_NS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        int[] sides = args.length > 0 ? parse(args) : new int[]{256, 512, 1024, 2048, 4096};
+        System.out.printf(Locale.ROOT, "%-10s %9s %8s %11s %12s %9s %22s%n",
+                "mapa", "tentativas", "salas", "ms/mapa", "salas/s", "mapas/s", "antigo (so salas) ms/n");
+        for (int side : sides) {
+            int attempts = side * side / TILES_PER_ATTEMPT;
+            // Aquecimento
+            generate(side, attempts, 0);
+
+            long rooms = 0;
+            int maps = 0;
+            long t0 = System.nanoTime(), elapsed;
+            do {
+                DungeonGenerator gen = new DungeonGenerator(side, side, 24, maps + 1).setRoomAttempts(attempts);
+                gen.generate();
+                rooms += gen.getRooms().size();
+                maps++;
+                elapsed = System.nanoTime() - t0;
+            } while (elapsed < BUDGET_NS && maps < 50);
+            double msPerMap = elapsed / 1e6 / maps;
+
+            // O caminho antigo é O(n²): só até alguns milhares de salas
+            String legacy = "-";
+            if (attempts <= 50_000) {
+                long l0 = System.nanoTime();
+                int legacyRooms = legacyPlacement(side, side, attempts, 1);
+                legacy = String.format(Locale.ROOT, "%.1f/%d", (System.nanoTime() - l0) / 1e6, legacyRooms);
+            }
+            System.out.printf(Locale.ROOT, "%-10s %9d %8d %11.2f %12.0f %9.1f %22s%n",
+                    side + "x" + side, attempts, rooms / maps, msPerMap,
+                    rooms / (elapsed / 1e9), maps / (elapsed / 1e9), legacy);
+        }
+    }
+
+    private static DungeonMap generate(int side, int attempts, long seed) {
+        return new DungeonGenerator(side, side, 24, seed).setRoomAttempts(attempts).generate();
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+
+    // Posicionamento antigo (só as salas, sem escavar), com o mesmo sorteio do gerador
+    private static int legacyPlacement(int width, int height, int attempts, long seed) {
+        Random rng = new Random(seed);
+        int minSize = 6, maxSize = 14;
+        List<int[]> rooms = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            int w = minSize + rng.nextInt(maxSize - minSize + 1);
+            int h = minSize + rng.nextInt(maxSize - minSize + 1);
+            int x = 1 + rng.nextInt(Math.max(1, width - w - 2));
+            int y = 1 + rng.nextInt(Math.max(1, height - h - 2));
+            Rectangle candidate = new Rectangle(x - 1, y - 1, w + 2, h + 2);
+            boolean overlaps = false;
+            for (int[] o : rooms) {
+                if (candidate.intersects(new Rectangle(o[0], o[1], o[2], o[3]))) {
+                    overlaps = true;
+                    break;
+                }
+            }
+            if (!overlaps) rooms.add(new int[]{x, y, w, h});
+        }
+        return rooms.size();
+    }
+}
@@ -0,0 +1,99 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.FloorFile;
+import com.echorun.map.MappedFloor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Ida e volta do {@link FloorFile} e tempos de carga contra gerar de novo: para cada tamanho,
+ * gera o mapa, grava, abre mapeado e lê inteiro, confere tile a tile, salas, seed e consultas
+ * do {@link MappedFloor}, e compara o tempo de {@code generate()} com o de abrir (mapeado) e
+ * o de ler tudo. Sai com código 1 se a volta não for idêntica.
+ *
+ * <pre>./scripts/tool.sh FloorFileBenchmark [lado...]</pre>
+ */
+public class FloorFileBenchmark {
+    public static void main(String[] args) throws IOException {
+        int[] sides = args.length > 0 ? parse(args) : new int[]{100, 1024, 4096};
+        Path dir = Files.createTempDirectory("echf");
+        int failures = 0;
+        System.out.printf(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s %10s%n",
+                "mapa", "KB", "gerar ms", "gravar ms", "abrir ms", "1a consulta", "ler ms");
+        for (int side : sides) {
+            long seed = 11L * side;
+            Path file = dir.resolve("andar-" + side + ".echf");
+            int attempts = Math.max(80, side * side / 100);
+
+            // Uma rodada de aquecimento e uma medida
+            double genMs = 0, writeMs = 0, openMs = 0, firstMs = 0, readMs = 0;
+            DungeonMap map = null;
+            List<DungeonGenerator.Room> rooms = null;
+            for (int round = 0; round < 2; round++) {
+                long t0 = System.nanoTime();
+                DungeonGenerator gen = new DungeonGenerator(side, side, 24, seed).setRoomAttempts(attempts);
+                map = gen.generate();
+                rooms = gen.getRooms();
+                long t1 = System.nanoTime();
+                FloorFile.write(file, map, rooms);
+                long t2 = System.nanoTime();
+                MappedFloor mapped = FloorFile.open(file);
+                long t3 = System.nanoTime();
+                mapped.isSolid(side / 2, side / 2);
+                long t4 = System.nanoTime();
+                DungeonMap read = FloorFile.read(file);
+                long t5 = System.nanoTime();
+                genMs = (t1 - t0) / 1e6; writeMs = (t2 - t1) / 1e6; openMs = (t3 - t2) / 1e6;
+                firstMs = (t4 - t3) / 1e6; readMs = (t5 - t4) / 1e6;
+                if (round == 1) failures += verify(map, rooms, mapped, read);
+            }
+            System.out.printf(Locale.ROOT, "%-10s %10.1f %10.2f %10.2f %10.3f %10.3f %10.2f%n",
+                    side + "x" + side, Files.size(file) / 1024.0, genMs, writeMs, openMs, firstMs, readMs);
+            Files.delete(file);
+        }
+        Files.delete(dir);
+        System.out.println(failures == 0 ? "ida e volta: ok" : "ida e volta: " + failures + " diferenças");
+        if (failures > 0) System.exit(1);
+    }
+
+    private static int verify(DungeonMap map, List<DungeonGenerator.Room> rooms, MappedFloor mapped, DungeonMap read) {
+        int diffs = 0;
+        int w = map.getWidth(), h = map.getHeight();
+        if (read.getWidth() != w || read.getHeight() != h || read.getTileSize() != map.getTileSize()) diffs++;
+        if (read.getSeed() != map.getSeed() || mapped.getSeed() != map.getSeed()) diffs++;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                byte c = map.getCode(x, y);
+                if (read.getCode(x, y) != c || mapped.getCode(x, y) != c) diffs++;
+            }
+        }
+        List<DungeonGenerator.Room> back = mapped.readRooms();
+        if (back.size() != rooms.size()) diffs++;
+        for (int i = 0; i < Math.min(back.size(), rooms.size()); i++) {
+            DungeonGenerator.Room a = rooms.get(i), b = back.get(i);
+            if (a.x != b.x || a.y != b.y || a.w != b.w || a.h != b.h) diffs++;
+        }
+        // Consultas de colisão iguais às do mapa original, inclusive fora dos limites
+        Random rng = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            int x0 = rng.nextInt(w + 4) - 2, y0 = rng.nextInt(h + 4) - 2;
+            int x1 = x0 + rng.nextInt(3), y1 = y0 + rng.nextInt(3);
+            if (mapped.anySolid(x0, y0, x1, y1) != map.anySolid(x0, y0, x1, y1)) diffs++;
+            if (mapped.isWalkable(x0, y0) != map.isWalkable(x0, y0)) diffs++;
+        }
+        return diffs;
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+}
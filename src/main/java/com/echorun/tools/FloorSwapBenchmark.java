@@ -0,0 +1,58 @@
+package com.echorun.tools;
+
+import com.echorun.game.FloorPipeline;
+import com.echorun.map.DungeonMap;
+import com.echorun.render.MapChunkCache;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Custo de trocar de andar: construir o próximo andar na hora (geração, ponto de partida e
+ * pré-render da primeira tela) contra pegá-lo já pronto do {@link FloorPipeline}, que o
+ * construiu em segundo plano enquanto o andar atual era "jogado".
+ *
+ * <pre>./scripts/tool.sh FloorSwapBenchmark [andares]</pre>
+ */
+public class FloorSwapBenchmark {
+    private static final int VIEW_W = 1280, VIEW_H = 720;
+
+    public static void main(String[] args) throws InterruptedException {
+        int floors = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int[][] sizes = {{100, 70}, {400, 280}, {1000, 700}};
+        System.out.printf(Locale.ROOT, "%-10s %12s %12s %12s %12s%n", "andar", "sincrono p50", "max", "pronto p50", "max");
+        for (int[] size : sizes) {
+            double[] sync = run(size[0], size[1], floors, false);
+            double[] ahead = run(size[0], size[1], floors, true);
+            System.out.printf(Locale.ROOT, "%-10s %9.2f ms %9.2f ms %9.3f ms %9.3f ms%n",
+                    size[0] + "x" + size[1], sync[0], sync[1], ahead[0], ahead[1]);
+        }
+    }
+
+    /** Mediana e pior tempo de {@code take}, em ms. */
+    private static double[] run(int width, int height, int floors, boolean prefetch) throws InterruptedException {
+        double[] ms = new double[floors];
+        try (FloorPipeline<MapChunkCache> pipeline = new FloorPipeline<>(7L, width, height, 24, 1,
+                FloorSwapBenchmark::prerender)) {
+            pipeline.take(0);
+            for (int d = 1; d <= floors; d++) {
+                if (prefetch) {
+                    pipeline.prefetch(d);
+                    // O andar atual sendo jogado: bem mais tempo que a pré-geração leva
+                    while (!pipeline.isReady(d)) Thread.sleep(1);
+                }
+                pipeline.take(d);
+                ms[d - 1] = pipeline.getLastTakeNs() / 1e6;
+            }
+        }
+        Arrays.sort(ms);
+        return new double[]{ms[floors / 2], ms[floors - 1]};
+    }
+
+    private static MapChunkCache prerender(DungeonMap map, int spawnTileX, int spawnTileY) {
+        MapChunkCache cache = new MapChunkCache(map);
+        int ts = map.getTileSize();
+        cache.prewarm(spawnTileX * ts - VIEW_W / 2.0, spawnTileY * ts - VIEW_H / 2.0, VIEW_W, VIEW_H);
+        return cache;
+    }
+}
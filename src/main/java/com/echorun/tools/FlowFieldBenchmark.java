@@ -0,0 +1,230 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.nav.FlowField;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Perseguidores num mapa grande: o alvo anda pelo mapa (um tile a cada poucos ticks) e, a
+ * cada tick, o {@link FlowField} é atualizado e todos os agentes consultam a direção e dão um
+ * passo. Mede o custo de cada atualização, o das consultas por tick e a alocação em regime; para
+ * comparar, roda A* por agente numa amostra e estima o tick com A* para todos. Mede também, a
+ * cada tile que o alvo cruza, o conserto do campo contra a busca inteira, sem raio e com raio,
+ * conferindo tile a tile que o consertado dá as mesmas distâncias e direções que levam ao alvo.
+ * Confere que a distância do campo é igual ao comprimento do caminho do A* na amostra. Sai com
+ * 1 se alguma conferência falhar.
+ *
+ * <pre>./scripts/tool.sh FlowFieldBenchmark [agentes] [lado] [ticks]</pre>
+ */
+public class FlowFieldBenchmark {
+    private static final int TARGET_STEP_TICKS = 4;
+    private static final int ASTAR_SAMPLE = 100;
+    private static final int CROSSINGS = 400;
+    private static final int RADIUS = 64;
+    private static final double FRAME_MS = 1000.0 / 60;
+
+    public static void main(String[] args) {
+        int agents = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int side = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 1200;
+
+        DungeonMap map = new DungeonGenerator(side, side, 24, 21L).setRoomAttempts(side * side / 100).generate();
+        Random rng = new Random(5);
+        int[] target = randomWalkable(map, rng);
+        int[] ax = new int[agents], ay = new int[agents];
+        for (int i = 0; i < agents; i++) {
+            int[] p = randomWalkable(map, rng);
+            ax[i] = p[0];
+            ay[i] = p[1];
+        }
+        FlowField flow = new FlowField(map);
+        flow.update(target[0], target[1]);
+        System.out.printf(Locale.ROOT, "mapa %dx%d, %d tiles alcançáveis do alvo, %d agentes, %d ticks%n",
+                side, side, flow.getReachedCount(), agents, ticks);
+
+        // Aquecimento e medida com o mesmo laço
+        run(map, flow, new Random(9), target.clone(), ax.clone(), ay.clone(), ticks / 4);
+        long updates0 = flow.getRebuildCount() + flow.getRepairCount();
+        long bytes0 = allocatedBytes();
+        long[] ns = run(map, flow, new Random(9), target, ax, ay, ticks);
+        long bytes = allocatedBytes() - bytes0;
+        long updates = flow.getRebuildCount() + flow.getRepairCount() - updates0;
+
+        double updateMs = ns[0] / 1e6 / Math.max(1, updates);
+        double queryMs = ns[1] / 1e6 / ticks;
+        double tickMs = (ns[0] + ns[1]) / 1e6 / ticks;
+        System.out.printf(Locale.ROOT, "campo: %d atualizações, %.3f ms/atualização, consultas %.3f ms/tick (%.1f ns/agente), "
+                        + "%.3f ms/tick (%.1f%% do quadro), %s bytes alocados/tick%n",
+                updates, updateMs, queryMs, ns[1] / (double) ticks / agents, tickMs, 100 * tickMs / FRAME_MS,
+                bytes0 < 0 ? "?" : String.format(Locale.ROOT, "%.1f", bytes / (double) ticks));
+
+        // Por tile cruzado: conserto contra busca inteira, conferindo o campo todo
+        int wrong = crossings(map, target, Integer.MAX_VALUE) + crossings(map, target, RADIUS);
+
+        // A* por agente, numa amostra dos agentes atuais contra o alvo atual
+        flow.update(target[0], target[1]);
+        AStar astar = new AStar(map);
+        int sample = Math.min(ASTAR_SAMPLE, agents), mismatches = 0;
+        for (int i = 0; i < sample; i++) astar.length(ax[i], ay[i], target[0], target[1]); // aquecimento
+        long a0 = System.nanoTime();
+        for (int i = 0; i < sample; i++) {
+            int len = astar.length(ax[i], ay[i], target[0], target[1]);
+            if (len != flow.distance(ax[i], ay[i])) mismatches++;
+        }
+        double astarMs = (System.nanoTime() - a0) / 1e6 / Math.max(1, sample);
+        System.out.printf(Locale.ROOT, "A* por agente: %.3f ms/agente -> ~%.1f ms/tick para %d agentes (%.0fx o campo)%n",
+                astarMs, astarMs * agents, agents, astarMs * agents / tickMs);
+        System.out.println(mismatches == 0 ? "distâncias iguais ao A*: ok" : "distâncias diferentes do A*: " + mismatches);
+        if (mismatches > 0 || wrong > 0) System.exit(1);
+    }
+
+    /**
+     * O alvo cruza {@link #CROSSINGS} tiles; um campo é consertado a cada passo e outro refeito
+     * do zero. Imprime o custo médio de cada um e devolve quantos tiles divergiram.
+     */
+    private static int crossings(DungeonMap map, int[] from, int maxDistance) {
+        FlowField repaired = new FlowField(map).setMaxDistance(maxDistance);
+        FlowField rebuilt = new FlowField(map).setMaxDistance(maxDistance);
+        Random rng = new Random(13);
+        int[] target = from.clone();
+        repaired.update(target[0], target[1]);
+        long repairNs = 0, rebuildNs = 0, written = 0;
+        int wrong = 0;
+        for (int c = 0; c < CROSSINGS; c++) {
+            stepTarget(map, rng, target);
+            long t0 = System.nanoTime();
+            repaired.update(target[0], target[1]);
+            long t1 = System.nanoTime();
+            rebuilt.invalidate();
+            rebuilt.update(target[0], target[1]);
+            long t2 = System.nanoTime();
+            repairNs += t1 - t0;
+            rebuildNs += t2 - t1;
+            written += repaired.getReachedCount();
+            wrong += compare(map, repaired, rebuilt);
+        }
+        String radius = maxDistance == Integer.MAX_VALUE ? "sem raio" : "raio " + maxDistance;
+        System.out.printf(Locale.ROOT, "por tile cruzado (%s): conserto %.3f ms (%.0f tiles gravados, %d consertos), "
+                        + "busca inteira %.3f ms (%d tiles) -> %.1fx%n",
+                radius, repairNs / 1e6 / CROSSINGS, written / (double) CROSSINGS, repaired.getRepairCount(),
+                rebuildNs / 1e6 / CROSSINGS, rebuilt.getReachedCount(), rebuildNs / (double) Math.max(1, repairNs));
+        System.out.println(wrong == 0 ? "conserto igual à busca inteira: ok" : "conserto diferente da busca inteira: " + wrong);
+        return wrong;
+    }
+
+    // Mesma distância em todo tile, e a direção do consertado leva a um vizinho um passo mais perto
+    private static int compare(DungeonMap map, FlowField repaired, FlowField rebuilt) {
+        int wrong = 0;
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                int d = repaired.distance(x, y);
+                if (d != rebuilt.distance(x, y)) {
+                    wrong++;
+                } else if (d > 0) {
+                    int dir = repaired.direction(x, y);
+                    if (dir == FlowField.NONE || repaired.distance(x + FlowField.dx(dir), y + FlowField.dy(dir)) != d - 1) wrong++;
+                }
+            }
+        }
+        return wrong;
+    }
+
+    /** Devolve {nanos nas buscas, nanos nas consultas + passos}. */
+    private static long[] run(DungeonMap map, FlowField flow, Random rng, int[] target, int[] ax, int[] ay, int ticks) {
+        long bfsNs = 0, queryNs = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            if (tick % TARGET_STEP_TICKS == 0) stepTarget(map, rng, target);
+            long t0 = System.nanoTime();
+            flow.update(target[0], target[1]);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < ax.length; i++) {
+                int d = flow.direction(ax[i], ay[i]);
+                ax[i] += FlowField.dx(d);
+                ay[i] += FlowField.dy(d);
+            }
+            long t2 = System.nanoTime();
+            bfsNs += t1 - t0;
+            queryNs += t2 - t1;
+        }
+        return new long[]{bfsNs, queryNs};
+    }
+
+    // Alvo anda para um vizinho andável sorteado
+    private static void stepTarget(DungeonMap map, Random rng, int[] target) {
+        int k = rng.nextInt(4);
+        for (int i = 0; i < 4; i++) {
+            int d = (k + i) & 3;
+            int nx = target[0] + FlowField.dx(d), ny = target[1] + FlowField.dy(d);
+            if (map.isWalkable(nx, ny)) {
+                target[0] = nx;
+                target[1] = ny;
+                return;
+            }
+        }
+    }
+
+    private static int[] randomWalkable(DungeonMap map, Random rng) {
+        while (true) {
+            int x = rng.nextInt(map.getWidth()), y = rng.nextInt(map.getHeight());
+            if (map.isWalkable(x, y)) return new int[]{x, y};
+        }
+    }
+
+    /** A* simples (vizinhança de 4, heurística de Manhattan), como seria feito por agente. */
+    private static final class AStar {
+        private final DungeonMap map;
+        private final int width;
+        private final int[] g;
+
+        AStar(DungeonMap map) {
+            this.map = map;
+            this.width = map.getWidth();
+            this.g = new int[map.getWidth() * map.getHeight()];
+        }
+
+        /** Passos do caminho mais curto; -1 sem caminho. */
+        int length(int sx, int sy, int tx, int ty) {
+            if (!map.isWalkable(sx, sy) || !map.isWalkable(tx, ty)) return -1;
+            Arrays.fill(g, Integer.MAX_VALUE);
+            PriorityQueue<long[]> open = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+            int start = sy * width + sx;
+            g[start] = 0;
+            open.add(new long[]{manhattan(sx, sy, tx, ty), start});
+            while (!open.isEmpty()) {
+                long[] n = open.poll();
+                int i = (int) n[1];
+                int x = i % width, y = i / width;
+                if (x == tx && y == ty) return g[i];
+                if (n[0] - manhattan(x, y, tx, ty) > g[i]) continue; // entrada velha
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + FlowField.dx(d), ny = y + FlowField.dy(d);
+                    if (!map.isWalkable(nx, ny)) continue;
+                    int j = ny * width + nx, cost = g[i] + 1;
+                    if (cost < g[j]) {
+                        g[j] = cost;
+                        open.add(new long[]{cost + manhattan(nx, ny, tx, ty), j});
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private static int manhattan(int x0, int y0, int x1, int y1) {
+            return Math.abs(x0 - x1) + Math.abs(y0 - y1);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
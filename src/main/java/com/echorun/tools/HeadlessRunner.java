@@ -0,0 +1,147 @@
+package com.echorun.tools;
+
+import com.echorun.ecs.ParallelFor;
+import com.echorun.ecs.SystemScheduler;
+import com.echorun.game.FloorPipeline;
+import com.echorun.game.GameEngine;
+import com.echorun.game.PlayerClass;
+import com.echorun.map.StreamingDungeon;
+import com.echorun.sprite.Direction;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Roda o {@link GameEngine} sem janela e sem relógio de parede, o mais rápido possível,
+ * com um "bot" de roteiro fixo. Serve para cenários de estresse e checagem de desempenho
+ * em CI (sem display).
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -cp out com.echorun.tools.HeadlessRunner \
+ *      --class=ROGUE --ticks=100000 --scenario=fire --seed=42 --min-tps=20000
+ * </pre>
+ *
+ * Cenários: {@code idle} (parado), {@code fire} (atira sem parar girando a mira),
+ * {@code strafe} (anda em zigue-zague e atira). Com {@code --min-tps}, sai com código 1
+ * se a vazão ficar abaixo do limite. {@code --threads=N} (e {@code --parallel-threshold})
+ * liga a atualização paralela; o checksum final deve ser igual ao da execução serial.
+ * {@code --endless} usa a masmorra sem fim (o checksum também não depende do gerador em
+ * segundo plano). {@code --descend-every=N} desce um andar a cada N ticks e mostra quanto
+ * custou cada troca (com o próximo andar pré-gerado, deve ser quase nada).
+ */
+public class HeadlessRunner {
+    public static void main(String[] args) {
+        PlayerClass playerClass = PlayerClass.ROGUE;
+        int ticks = 100_000;
+        long seed = 42L;
+        String scenario = "fire";
+        double minTps = 0;
+        int threads = 1;
+        int parallelThreshold = ParallelFor.DEFAULT_THRESHOLD;
+        boolean endless = false;
+        int descendEvery = 0;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "--class": playerClass = PlayerClass.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "--ticks": ticks = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--scenario": scenario = value; break;
+                case "--min-tps": minTps = Double.parseDouble(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--parallel-threshold": parallelThreshold = Integer.parseInt(value); break;
+                case "--endless": endless = true; break;
+                case "--descend-every": descendEvery = Integer.parseInt(value); break;
+                default:
+                    System.err.println("Argumento desconhecido: " + arg);
+                    System.exit(2);
+            }
+        }
+
+        GameEngine engine = endless ? GameEngine.endless(playerClass, seed) : new GameEngine(playerClass, seed);
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        engine.setParallel(pool, parallelThreshold);
+        long[] tickNs = new long[ticks];
+        int peakProjectiles = 0, peakParticles = 0, peakEffects = 0, peakEntities = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            long t0 = System.nanoTime();
+            drive(engine, scenario, i);
+            if (descendEvery > 0 && i > 0 && i % descendEvery == 0) engine.descend();
+            engine.tick();
+            tickNs[i] = System.nanoTime() - t0;
+
+            peakProjectiles = Math.max(peakProjectiles, engine.getProjectileCount());
+            peakParticles = Math.max(peakParticles, engine.getParticleCount());
+            peakEffects = Math.max(peakEffects, engine.getEffectCount());
+            peakEntities = Math.max(peakEntities, engine.getEntityCount());
+        }
+        long elapsed = System.nanoTime() - start;
+        if (pool != null) pool.shutdown();
+
+        double seconds = elapsed / 1e9;
+        double tps = ticks / seconds;
+        Arrays.sort(tickNs);
+        System.out.printf(Locale.ROOT, "classe=%s cenario=%s seed=%d ticks=%d threads=%d%n",
+                playerClass, scenario, seed, ticks, threads);
+        System.out.printf(Locale.ROOT, "tempo=%.3f s  vazao=%.0f ticks/s  (%.1fx tempo real)%n",
+                seconds, tps, tps / GameEngine.TICK_RATE);
+        System.out.printf(Locale.ROOT, "tick: media=%.2f us  p50=%.2f us  p99=%.2f us  max=%.2f us%n",
+                elapsed / 1e3 / ticks, percentile(tickNs, 0.50) / 1e3, percentile(tickNs, 0.99) / 1e3,
+                tickNs[ticks - 1] / 1e3);
+        System.out.printf(Locale.ROOT, "pico: projeteis=%d particulas=%d efeitos=%d entidades=%d%n",
+                peakProjectiles, peakParticles, peakEffects, peakEntities);
+        if (engine.getStreaming() != null) {
+            StreamingDungeon s = engine.getStreaming();
+            System.out.printf(Locale.ROOT, "pedacos: carregados=%d gerados=%d despejados=%d esperas=%d%n",
+                    s.getLoadedCount(), s.getGeneratedCount(), s.getEvictedCount(), s.getWaitCount());
+        }
+        if (engine.getFloors() != null) {
+            FloorPipeline<?> f = engine.getFloors();
+            System.out.printf(Locale.ROOT, "andar=%d prontos=%d esperados=%d pior troca=%.2f ms%n",
+                    engine.getDepth(), f.getHits(), f.getMisses(), f.getWorstTakeNs() / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "checksum=%016x%n", engine.checksum());
+        SystemScheduler systems = engine.getSystems();
+        for (int i = 0; i < systems.size(); i++) {
+            System.out.printf(Locale.ROOT, "  sistema %-12s media=%.2f us%n", systems.name(i), systems.averageNanos(i) / 1e3);
+        }
+
+        if (minTps > 0 && tps < minTps) {
+            System.err.printf(Locale.ROOT, "FALHA: %.0f ticks/s abaixo do minimo %.0f%n", tps, minTps);
+            System.exit(1);
+        }
+        engine.close();
+    }
+
+    private static void drive(GameEngine engine, String scenario, int tick) {
+        switch (scenario) {
+            case "idle":
+                break;
+            case "fire":
+                engine.attack(tick * 0.07);
+                break;
+            case "strafe": {
+                int phase = (tick / 90) % 4;
+                Direction[] dirs = {Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP};
+                if (tick % 90 == 0) {
+                    engine.release(dirs[(phase + 3) % 4]);
+                    engine.press(dirs[phase]);
+                }
+                engine.attack(tick * 0.11);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Cenário desconhecido: " + scenario);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[i];
+    }
+}
@@ -0,0 +1,89 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.Tile;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Mapa compacto ({@code byte[]} + bitsets) contra a grade antiga de {@code Tile[][]} em mapas
+ * grandes: memória, geração, colisão de caixas (como a do jogador) e varredura de linhas.
+ *
+ * <pre>./scripts/tool.sh MapBenchmark [lado]</pre>
+ */
+public class MapBenchmark {
+    private static final int QUERIES = 5_000_000;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+
+        long t0 = System.nanoTime();
+        DungeonMap map = new DungeonGenerator(side, side, 24, 1L).generate();
+        double genMs = (System.nanoTime() - t0) / 1e6;
+
+        // Grade antiga, para comparação
+        Tile[][] legacy = new Tile[side][side];
+        for (int y = 0; y < side; y++) for (int x = 0; x < side; x++) legacy[y][x] = map.get(x, y);
+
+        long packedBytes = (long) side * side + 2L * map.wordsPerRow() * side * 8;
+        long legacyBytes = (long) side * side * 4 + (long) side * 16; // referências comprimidas + cabeçalhos de linha
+        System.out.printf(Locale.ROOT, "mapa %dx%d: geração %.0f ms%n", side, side, genMs);
+        System.out.printf(Locale.ROOT, "memória: Tile[][] ~%.1f MB, byte[]+bitsets %.1f MB%n", legacyBytes / 1e6, packedBytes / 1e6);
+
+        // Colisão: caixa de 18 px em tiles de 24 (1 a 2 tiles por eixo), pontos perto de pisos
+        int[] qx = new int[QUERIES], qy = new int[QUERIES];
+        Random rng = new Random(5);
+        for (int i = 0; i < QUERIES; i++) {
+            qx[i] = rng.nextInt(side * 24);
+            qy[i] = rng.nextInt(side * 24);
+        }
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            long a = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) if (legacyCollides(legacy, side, qx[i], qy[i])) sink++;
+            long b = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) if (packedCollides(map, qx[i], qy[i])) sink--;
+            long c = System.nanoTime();
+            if (round == 2) {
+                System.out.printf(Locale.ROOT, "colisão: Tile[][] %.1f ns/consulta, bitset %.1f ns/consulta%n",
+                        (b - a) / (double) QUERIES, (c - b) / (double) QUERIES);
+            }
+        }
+
+        // Varredura: conta tiles caminháveis do mapa inteiro
+        for (int round = 0; round < 3; round++) {
+            long a = System.nanoTime();
+            long n1 = 0;
+            for (int y = 0; y < side; y++) {
+                Tile[] row = legacy[y];
+                for (int x = 0; x < side; x++) if (row[x] == Tile.FLOOR || row[x] == Tile.DOOR) n1++;
+            }
+            long b = System.nanoTime();
+            long n2 = map.countWalkable(0, 0, side - 1, side - 1);
+            long c = System.nanoTime();
+            if (n1 != n2) throw new IllegalStateException("contagens diferentes: " + n1 + " x " + n2);
+            if (round == 2) {
+                System.out.printf(Locale.ROOT, "varredura (%d caminháveis): Tile[][] %.2f ms, bitset %.2f ms%n",
+                        n2, (b - a) / 1e6, (c - b) / 1e6);
+            }
+        }
+        if (sink == Long.MIN_VALUE) System.out.println(sink);
+    }
+
+    private static boolean legacyCollides(Tile[][] tiles, int side, int x, int y) {
+        int left = x / 24, right = (x + 17) / 24, top = y / 24, bottom = (y + 17) / 24;
+        for (int ty = top; ty <= bottom; ty++) {
+            for (int tx = left; tx <= right; tx++) {
+                if (tx >= side || ty >= side) return true;
+                if (tiles[ty][tx] == Tile.WALL) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean packedCollides(DungeonMap map, int x, int y) {
+        return map.anySolid(x / 24, y / 24, (x + 17) / 24, (y + 17) / 24);
+    }
+}
@@ -0,0 +1,304 @@
+package com.echorun.tools;
+
+import com.echorun.map.DistanceField;
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.NeighborMask;
+import com.echorun.map.RoomGraph;
+import com.echorun.map.Tile;
+import com.echorun.nav.FlowField;
+import com.echorun.nav.HierarchicalPathfinder;
+import com.echorun.nav.TilePath;
+import com.echorun.render.MapChunkCache;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tiles mudando com o jogo rodando: portas que abrem e fecham (sem mudar a passagem) e
+ * paredes que caem ou aparecem perto do jogador, com máscara de vizinhos, campo de distância,
+ * campo de fluxo, busca hierárquica e cache de render ligados ao mapa. Mostra o custo por
+ * mudança (com um quadro de render depois de cada) contra refazer tudo. Depois, paredes inteiras
+ * cortam algumas salas ao meio (metade delas com uma brecha). No fim, confere cada
+ * estrutura contra uma montada do zero sobre o mapa final, inclusive o grafo de salas
+ * consertado e os pixels da tela (sai com 1 se algo não bate).
+ *
+ * <pre>./scripts/tool.sh MapEditBenchmark [lado] [mudanças]</pre>
+ */
+public class MapEditBenchmark {
+    private static final int VIEW_W = 1280, VIEW_H = 720;
+    private static final int PAIRS = 200;
+    private static final int SPLITS = 8;
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        DungeonMap map = new DungeonGenerator(side, side, 24, 41L).setRoomAttempts(side * side / 150).generate();
+        int ts = map.getTileSize();
+
+        // Tudo ligado, como no jogo: jogador no meio, tela em volta dele
+        int[] spawn = new int[2];
+        map.getDistanceField().findOpenTile(side / 2, side / 2, 0f, spawn);
+        map.getNeighborMask();
+        FlowField flow = new FlowField(map);
+        flow.setMaxDistance(64);
+        flow.update(spawn[0], spawn[1]);
+        HierarchicalPathfinder paths = new HierarchicalPathfinder(map);
+        MapChunkCache cache = new MapChunkCache(map);
+        double camX = spawn[0] * ts - VIEW_W / 2.0, camY = spawn[1] * ts - VIEW_H / 2.0;
+        BufferedImage screen = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = screen.createGraphics();
+        cache.draw(g2, camX, camY, VIEW_W, VIEW_H);
+
+        // Mudanças a até meia tela do jogador: 3 em 4 portas, o resto paredes
+        Random rng = new Random(side);
+        int rx = VIEW_W / ts / 2, ry = VIEW_H / ts / 2;
+        TilePath path = new TilePath();
+        long doorNs = 0, wallNs = 0;
+        int doors = 0, walls = 0;
+        for (int i = 0; i < edits; i++) {
+            int x = spawn[0] - rx + rng.nextInt(2 * rx), y = spawn[1] - ry + rng.nextInt(2 * ry);
+            if (!map.contains(x, y) || (x == spawn[0] && y == spawn[1])) continue;
+            byte code = map.getCode(x, y);
+            boolean door = rng.nextInt(4) != 0;
+            Tile next;
+            if (door) {
+                if (code == Tile.WALL.code() || code == Tile.STAIRS.code()) continue;
+                next = code == Tile.DOOR.code() ? Tile.FLOOR : Tile.DOOR;
+            } else {
+                next = code == Tile.WALL.code() ? Tile.FLOOR : Tile.WALL;
+            }
+            long t0 = System.nanoTime();
+            map.set(x, y, next);
+            flow.update(spawn[0], spawn[1]);
+            paths.findPath(spawn[0], spawn[1], spawn[0], spawn[1], path);
+            cache.draw(g2, camX, camY, VIEW_W, VIEW_H);
+            long dt = System.nanoTime() - t0;
+            if (door) { doorNs += dt; doors++; } else { wallNs += dt; walls++; }
+        }
+
+        // Salas cortadas por uma parede de ponta a ponta: o conserto parte a sala em duas
+        // regiões (ou não, se sobra uma brecha), e a busca passa a dar a volta
+        List<DungeonGenerator.Room> rooms = map.getRooms();
+        int splits = 0;
+        for (int i = 0; i < rooms.size() && splits < SPLITS; i += Math.max(1, rooms.size() / SPLITS)) {
+            DungeonGenerator.Room room = rooms.get(i);
+            int cx = room.centerX();
+            if (room.w < 5 || (spawn[0] == cx && spawn[1] >= room.y && spawn[1] < room.y + room.h)) continue;
+            map.fill(cx, room.y, cx, room.y + room.h - 1, Tile.WALL);
+            if (splits % 2 == 1) map.set(cx, room.centerY(), Tile.FLOOR);
+            paths.findPath(room.x, room.centerY(), room.x + room.w - 1, room.centerY(), path);
+            splits++;
+        }
+
+        // Refazer tudo do zero, para comparar
+        long r0 = System.nanoTime();
+        DungeonMap fresh = copy(map);
+        NeighborMask freshMask = fresh.getNeighborMask();
+        DistanceField freshField = fresh.getDistanceField();
+        FlowField freshFlow = new FlowField(fresh);
+        freshFlow.setMaxDistance(64);
+        freshFlow.update(spawn[0], spawn[1]);
+        MapChunkCache freshCache = new MapChunkCache(fresh);
+        BufferedImage expected = new BufferedImage(VIEW_W, VIEW_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D fg = expected.createGraphics();
+        freshCache.draw(fg, camX, camY, VIEW_W, VIEW_H);
+        double rebuildMs = (System.nanoTime() - r0) / 1e6;
+        long g0 = System.nanoTime();
+        HierarchicalPathfinder freshPaths = new HierarchicalPathfinder(fresh);
+        double graphMs = (System.nanoTime() - g0) / 1e6;
+
+        // Distâncias de referência do grafo consertado: montadas na primeira consulta
+        long l0 = System.nanoTime();
+        map.getRoomGraph().landmarkDistance(0, 0);
+        double landmarkMs = (System.nanoTime() - l0) / 1e6;
+
+        int failures = 0;
+        failures += check("bitsets", countBitErrors(map));
+        failures += check("máscara de vizinhos", countMaskErrors(map, freshMask));
+        failures += check("campo de distância", countFieldErrors(map, freshField));
+        failures += check("campo de fluxo", countFlowErrors(flow, freshFlow, side));
+        failures += check("grafo de salas", countGraphErrors(map.getRoomGraph(), fresh.getRoomGraph()));
+        failures += check("regiões partidas", countSplitRegions(map.getRoomGraph()));
+        failures += check("caminhos", countPathErrors(map, paths, freshPaths, path, rng));
+        cache.draw(g2, camX, camY, VIEW_W, VIEW_H);
+        failures += check("pixels", countPixelErrors(screen, expected));
+        g2.dispose();
+        fg.dispose();
+
+        System.out.printf(Locale.ROOT, "mapa %dx%d: %d portas, %d paredes, %d salas cortadas (%d janelas do campo de distância, "
+                        + "%d tiles redesenhados)%n",
+                side, side, doors, walls, splits, map.getDistanceField().getPartialUpdateCount(), cache.getTileRepaints());
+        System.out.printf(Locale.ROOT, "porta:  %8.1f µs por mudança (com quadro)%n", doorNs / 1e3 / Math.max(1, doors));
+        System.out.printf(Locale.ROOT, "parede: %8.1f µs por mudança (com quadro e grafo de salas consertado)%n",
+                wallNs / 1e3 / Math.max(1, walls));
+        System.out.printf(Locale.ROOT, "refazer do zero: %.1f ms (mapa, máscara, campos e tela), mais %.1f ms do grafo de salas%n",
+                rebuildMs, graphMs);
+        System.out.printf(Locale.ROOT, "referências do grafo consertado: %.1f ms na primeira busca depois das mudanças%n",
+                landmarkMs);
+        System.out.println(failures == 0 ? "estruturas iguais às montadas do zero: ok" : "divergências: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    private static DungeonMap copy(DungeonMap map) {
+        int w = map.getWidth(), h = map.getHeight();
+        byte[] cells = new byte[w * h];
+        for (int y = 0; y < h; y++) map.copyRow(y, 0, w, cells, y * w);
+        return new DungeonMap(w, h, map.getTileSize(), cells, map.getSeed(), map.getRooms());
+    }
+
+    private static int check(String what, int errors) {
+        if (errors > 0) System.out.println(what + ": " + errors + " diferenças");
+        return errors;
+    }
+
+    private static int countBitErrors(DungeonMap map) {
+        int errors = 0;
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                boolean wall = map.getCode(x, y) == Tile.WALL.code();
+                if (map.isSolid(x, y) != wall || map.isWalkable(x, y) == wall) errors++;
+            }
+        }
+        return errors;
+    }
+
+    private static int countMaskErrors(DungeonMap map, NeighborMask fresh) {
+        int errors = 0;
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) if (map.floorNeighbors(x, y) != fresh.get(x, y)) errors++;
+        }
+        return errors;
+    }
+
+    private static int countFieldErrors(DungeonMap map, DistanceField fresh) {
+        DistanceField field = map.getDistanceField();
+        int errors = 0;
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) if (field.raw(x, y) != fresh.raw(x, y)) errors++;
+        }
+        // Melhores pisos dos blocos: o mesmo ponto de partida de vários centros
+        int[] a = new int[2], b = new int[2];
+        Random rng = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            int cx = rng.nextInt(map.getWidth()), cy = rng.nextInt(map.getHeight());
+            float clearance = rng.nextInt(4);
+            boolean fa = field.findOpenTile(cx, cy, clearance, a), fb = fresh.findOpenTile(cx, cy, clearance, b);
+            if (fa != fb || (fa && (a[0] != b[0] || a[1] != b[1]))) errors++;
+        }
+        return errors;
+    }
+
+    private static int countFlowErrors(FlowField flow, FlowField fresh, int side) {
+        int errors = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) if (flow.distance(x, y) != fresh.distance(x, y)) errors++;
+        }
+        return errors;
+    }
+
+    /**
+     * Mesmas regiões (a numeração pode mudar, a divisão dos tiles não), mesmas entradas e
+     * mesmos custos por dentro das regiões que o grafo montado do zero.
+     */
+    private static int countGraphErrors(RoomGraph a, RoomGraph b) {
+        int errors = 0;
+        int[] toB = new int[a.getRegionCount()], toA = new int[b.getRegionCount()];
+        Arrays.fill(toB, -1);
+        Arrays.fill(toA, -1);
+        for (int t = 0; t < a.getWidth() * a.getHeight(); t++) {
+            int ra = a.regionOfTile(t), rb = b.regionOfTile(t);
+            if ((ra < 0) != (rb < 0)) { errors++; continue; }
+            if (ra < 0) continue;
+            if (toB[ra] < 0) toB[ra] = rb;
+            if (toA[rb] < 0) toA[rb] = ra;
+            if (toB[ra] != rb || toA[rb] != ra) errors++;
+        }
+        // Nós pelos tiles dos dois lados da entrada; arestas pelo nó de destino e custo
+        if (a.getNodeCount() != b.getNodeCount()) errors++;
+        Map<Long, Integer> nodesB = new HashMap<>();
+        for (int n = 0; n < b.getNodeCount(); n++) nodesB.put(key(b, n), n);
+        Map<Long, Integer> edges = new HashMap<>();
+        for (int n = 0; n < a.getNodeCount(); n++) {
+            Integer m = nodesB.get(key(a, n));
+            if (m == null) { errors++; continue; }
+            edges.clear();
+            for (int k = b.edgeBegin(m); k < b.edgeEnd(m); k++) edges.put(key(b, b.edgeTo(k)), b.edgeCost(k));
+            if (edges.size() != a.edgeEnd(n) - a.edgeBegin(n)) { errors++; continue; }
+            for (int k = a.edgeBegin(n); k < a.edgeEnd(n); k++) {
+                Integer cost = edges.get(key(a, a.edgeTo(k)));
+                if (cost == null || cost != a.edgeCost(k)) { errors++; break; }
+            }
+        }
+        return errors;
+    }
+
+    /** Regiões com mais de um pedaço conexo (a busca dentro da região não chegaria de um ao outro). */
+    private static int countSplitRegions(RoomGraph g) {
+        int w = g.getWidth(), h = g.getHeight(), errors = 0;
+        boolean[] seen = new boolean[w * h], found = new boolean[g.getRegionCount()];
+        int[] queue = new int[w * h];
+        for (int start = 0; start < w * h; start++) {
+            int r = g.regionOfTile(start);
+            if (r < 0 || seen[start]) continue;
+            if (found[r]) errors++;
+            found[r] = true;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            seen[start] = true;
+            while (head < tail) {
+                int t = queue[head++], x = t % w, y = t / w;
+                int[] next = {x + 1 < w ? t + 1 : -1, x > 0 ? t - 1 : -1, y + 1 < h ? t + w : -1, y > 0 ? t - w : -1};
+                for (int n : next) {
+                    if (n < 0 || seen[n] || g.regionOfTile(n) != r) continue;
+                    seen[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static long key(RoomGraph g, int node) {
+        return (long) g.nodeTile(node) << 32 | g.nodeTile(RoomGraph.partner(node));
+    }
+
+    /**
+     * Mesmo resultado (achou ou não) e mesmo tamanho que uma busca num mapa montado do zero,
+     * com caminhos de tiles andáveis vizinhos.
+     */
+    private static int countPathErrors(DungeonMap map, HierarchicalPathfinder paths, HierarchicalPathfinder fresh,
+                                       TilePath path, Random rng) {
+        int errors = 0, side = map.getWidth();
+        TilePath other = new TilePath();
+        for (int i = 0; i < PAIRS; ) {
+            int sx = rng.nextInt(side), sy = rng.nextInt(side), tx = rng.nextInt(side), ty = rng.nextInt(side);
+            if (!map.isWalkable(sx, sy) || !map.isWalkable(tx, ty)) continue;
+            i++;
+            boolean a = paths.findPath(sx, sy, tx, ty, path), b = fresh.findPath(sx, sy, tx, ty, other);
+            if (a != b) { errors++; continue; }
+            if (!a) continue;
+            if (path.x(0) != sx || path.y(0) != sy || path.x(path.size() - 1) != tx || path.y(path.size() - 1) != ty) errors++;
+            for (int k = 0; k < path.size(); k++) {
+                boolean step = k == 0 || Math.abs(path.x(k) - path.x(k - 1)) + Math.abs(path.y(k) - path.y(k - 1)) == 1;
+                if (!step || !map.isWalkable(path.x(k), path.y(k))) { errors++; break; }
+            }
+            if (path.steps() != other.steps()) errors++;
+        }
+        return errors;
+    }
+
+    private static int countPixelErrors(BufferedImage a, BufferedImage b) {
+        int errors = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) if (a.getRGB(x, y) != b.getRGB(x, y)) errors++;
+        }
+        return errors;
+    }
+}
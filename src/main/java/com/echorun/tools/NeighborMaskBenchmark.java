@@ -0,0 +1,156 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.NeighborMask;
+import com.echorun.map.Tile;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Máscara de 8 vizinhos por palavras contra oito leituras por tile, e portas por palavras
+ * contra o laço antigo de quatro leituras por parede. Confere a máscara (inteira e depois de
+ * mudanças pequenas com {@link NeighborMask#update}) contra as leituras tile a tile, e as
+ * portas do gerador contra as do laço antigo (sai com 1 se algo não bate).
+ *
+ * <pre>./scripts/tool.sh NeighborMaskBenchmark [lado...]</pre>
+ */
+public class NeighborMaskBenchmark {
+    private static final byte WALL = Tile.WALL.code();
+    private static final byte FLOOR = Tile.FLOOR.code();
+    private static final byte DOOR = Tile.DOOR.code();
+    private static final int ROUNDS = 5;
+    private static final int EDITS = 2000;
+
+    public static void main(String[] args) {
+        int[] sides = args.length > 0 ? parse(args) : new int[]{256, 1024, 2048};
+        int failures = 0;
+        System.out.printf(Locale.ROOT, "%-10s %14s %14s %7s %16s %16s %7s %12s%n",
+                "mapa", "leituras ms", "palavras ms", "ganho", "portas antigo ms", "portas novo ms", "ganho", "update µs");
+        row(sides[0], false); // aquece o JIT
+        for (int side : sides) failures += row(side, true);
+        System.out.println(failures == 0 ? "máscaras e portas: ok" : "divergências: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /** Uma linha da tabela; devolve as divergências. */
+    private static int row(int side, boolean print) {
+        int failures = 0;
+        DungeonGenerator gen = new DungeonGenerator(side, side, 24, side).setRoomAttempts(side * side / 150);
+        byte[] tiles = new byte[side * side];
+        gen.carve(tiles);
+
+        // Máscara: oito leituras por tile contra palavras
+        int[] naive = new int[side * side];
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            naiveMasks(tiles, side, naive);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double naiveMs = best / 1e6;
+        NeighborMask mask = null;
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long t0 = System.nanoTime();
+            mask = NeighborMask.build(tiles, side, side, FLOOR);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double wordMs = best / 1e6;
+        failures += compare(mask, naive, side, "máscara");
+
+        // Mudanças pequenas: trocar tiles e refazer só a vizinhança
+        Random rng = new Random(side);
+        long u0 = System.nanoTime();
+        for (int i = 0; i < EDITS; i++) {
+            int x = rng.nextInt(side), y = rng.nextInt(side);
+            tiles[y * side + x] = tiles[y * side + x] == FLOOR ? WALL : FLOOR;
+            mask.update(x, y, x, y);
+        }
+        double updateUs = (System.nanoTime() - u0) / 1e3 / EDITS;
+        naiveMasks(tiles, side, naive);
+        failures += compare(mask, naive, side, "máscara depois de update");
+
+        // Portas: as do gerador contra o laço antigo sobre o mesmo mapa sem portas
+        tiles = new byte[side * side];
+        gen.reset(side).carve(tiles);
+        byte[] generated = tiles.clone();
+        for (int i = 0; i < tiles.length; i++) if (tiles[i] == DOOR) tiles[i] = WALL;
+        byte[] work = new byte[tiles.length];
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.arraycopy(tiles, 0, work, 0, tiles.length);
+            long t0 = System.nanoTime();
+            oldPlaceDoors(work, side, side);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double oldMs = best / 1e6;
+        int doorDiffs = 0;
+        for (int i = 0; i < work.length; i++) if (work[i] != generated[i] && generated[i] != Tile.STAIRS.code()) doorDiffs++;
+        if (doorDiffs > 0) System.out.println("portas diferentes do laço antigo: " + doorDiffs);
+        failures += doorDiffs;
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            System.arraycopy(tiles, 0, work, 0, tiles.length);
+            long t0 = System.nanoTime();
+            DungeonGenerator.placeDoors(work, side, side);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double newMs = best / 1e6;
+
+        if (print) System.out.printf(Locale.ROOT, "%-10s %14.2f %14.2f %6.1fx %16.2f %16.2f %6.1fx %12.2f%n",
+                side + "x" + side, naiveMs, wordMs, naiveMs / wordMs, oldMs, newMs, oldMs / newMs, updateUs);
+        return failures;
+    }
+
+    private static void oldPlaceDoors(byte[] tiles, int w, int h) {
+        for (int y = 1; y < h - 1; y++) {
+            for (int x = 1; x < w - 1; x++) {
+                int i = y * w + x;
+                if (tiles[i] != WALL) continue;
+                int floors = 0;
+                if (tiles[i - 1] == FLOOR) floors++;
+                if (tiles[i + 1] == FLOOR) floors++;
+                if (tiles[i - w] == FLOOR) floors++;
+                if (tiles[i + w] == FLOOR) floors++;
+                if (floors >= 2) tiles[i] = DOOR;
+            }
+        }
+    }
+
+    private static void naiveMasks(byte[] tiles, int side, int[] out) {
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int m = 0;
+                if (floor(tiles, side, x, y - 1)) m |= NeighborMask.N;
+                if (floor(tiles, side, x + 1, y - 1)) m |= NeighborMask.NE;
+                if (floor(tiles, side, x + 1, y)) m |= NeighborMask.E;
+                if (floor(tiles, side, x + 1, y + 1)) m |= NeighborMask.SE;
+                if (floor(tiles, side, x, y + 1)) m |= NeighborMask.S;
+                if (floor(tiles, side, x - 1, y + 1)) m |= NeighborMask.SW;
+                if (floor(tiles, side, x - 1, y)) m |= NeighborMask.W;
+                if (floor(tiles, side, x - 1, y - 1)) m |= NeighborMask.NW;
+                out[y * side + x] = m;
+            }
+        }
+    }
+
+    private static boolean floor(byte[] tiles, int side, int x, int y) {
+        return x >= 0 && y >= 0 && x < side && y < side && tiles[y * side + x] == FLOOR;
+    }
+
+    private static int compare(NeighborMask mask, int[] naive, int side, String what) {
+        int diffs = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) if (mask.get(x, y) != naive[y * side + x]) diffs++;
+        }
+        if (diffs > 0) System.out.println(what + " diferente das leituras em " + diffs + " tiles");
+        return diffs;
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+}
@@ -0,0 +1,94 @@
+package com.echorun.tools;
+
+import com.echorun.ecs.EntityRegistry;
+import com.echorun.ecs.ParallelFor;
+import com.echorun.game.GameEngine;
+import com.echorun.game.ParticleStore;
+import com.echorun.game.ParticleSystem;
+import com.echorun.game.PlayerClass;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Escalabilidade da atualização paralela: mede o tick de partículas com o orçamento cheio
+ * de 1 até N threads (N = núcleos disponíveis) e confere que o estado final é idêntico ao
+ * da execução serial. Também roda o jogo completo com limiar 1 (tudo pelo caminho
+ * paralelo, inclusive projéteis) e compara o checksum com o serial.
+ *
+ * <pre>./scripts/tool.sh ParallelBenchmark [particulas] [ticks]</pre>
+ */
+public class ParallelBenchmark {
+    private static final int LIFE = 16;
+
+    public static void main(String[] args) {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : GameEngine.PARTICLE_BUDGET;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        long serialHash = 0;
+        double serialMs = 0;
+        System.out.printf(Locale.ROOT, "%-8s %12s %12s %10s %s%n", "threads", "particulas", "ms/tick", "speedup", "estado");
+        for (int threads = 0; threads <= cores; threads++) {
+            // 0 = caminho serial, sem pool
+            ForkJoinPool pool = threads == 0 ? null : new ForkJoinPool(threads);
+            ParticleStore[] particles = new ParticleStore[1];
+            double[] r = runParticles(pool, population, ticks, particles);
+            if (pool != null) pool.shutdown();
+            long hash = particles[0].checksum();
+            if (threads == 0) {
+                serialHash = hash;
+                serialMs = r[0];
+            }
+            System.out.printf(Locale.ROOT, "%-8s %12d %12.3f %9.2fx %s%n",
+                    threads == 0 ? "serial" : Integer.toString(threads), (int) r[1], r[0],
+                    serialMs / r[0], hash == serialHash ? "igual" : "DIFERENTE");
+        }
+
+        // Jogo completo: todos os sistemas pelo caminho paralelo
+        long expected = runGame(null, 20_000);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, cores));
+        long actual = runGame(pool, 20_000);
+        pool.shutdown();
+        System.out.printf(Locale.ROOT, "jogo (ROGUE, fire, 20000 ticks): serial=%016x paralelo=%016x %s%n",
+                expected, actual, expected == actual ? "igual" : "DIFERENTE");
+        if (expected != actual) System.exit(1);
+    }
+
+    private static double[] runParticles(ForkJoinPool pool, int population, int ticks, ParticleStore[] out) {
+        int budget = population + population / LIFE + 1;
+        EntityRegistry registry = new EntityRegistry(budget);
+        ParticleStore particles = registry.register(new ParticleStore(registry, budget));
+        ParallelFor parallel = new ParallelFor();
+        parallel.configure(pool, ParallelFor.DEFAULT_THRESHOLD);
+        ParticleSystem system = new ParticleSystem(particles, parallel);
+
+        Random rng = new Random(7);
+        int perTick = Math.max(1, population / LIFE);
+        long elapsed = 0;
+        for (int i = 0; i < ticks * 2; i++) {
+            for (int k = 0; k < perTick; k++) {
+                int argb = 0xFF000000 | (200 + rng.nextInt(55)) << 16 | 200 << 8 | 210;
+                particles.spawn(rng.nextDouble() * 2000, rng.nextDouble() * 1500,
+                        rng.nextDouble() - 0.5, rng.nextDouble() - 0.5, 2.5f, LIFE, argb);
+            }
+            long t0 = System.nanoTime();
+            system.update();
+            // metade inicial é aquecimento
+            if (i >= ticks) elapsed += System.nanoTime() - t0;
+        }
+        out[0] = particles;
+        return new double[]{elapsed / 1e6 / ticks, particles.size()};
+    }
+
+    private static long runGame(ForkJoinPool pool, int ticks) {
+        GameEngine engine = new GameEngine(PlayerClass.ROGUE, 42L);
+        engine.setParallel(pool, 1);
+        for (int i = 0; i < ticks; i++) {
+            engine.attack(i * 0.07);
+            engine.tick();
+        }
+        return engine.checksum();
+    }
+}
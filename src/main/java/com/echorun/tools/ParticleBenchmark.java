@@ -0,0 +1,154 @@
+package com.echorun.tools;
+
+import com.echorun.ecs.EntityRegistry;
+import com.echorun.game.ParticleStore;
+import com.echorun.game.ParticleSystem;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compara o custo por tick da implementação antiga de partículas (um objeto + um Color por
+ * partícula, {@code Iterator.remove()} num ArrayList) com o {@link ParticleStore} em
+ * struct-of-arrays (uma entidade por partícula, atualizado pelo {@link ParticleSystem}),
+ * para populações estáveis de vários tamanhos.
+ *
+ * <pre>./scripts/tool.sh ParticleBenchmark [populacao...]</pre>
+ */
+public class ParticleBenchmark {
+    private static final int LIFE = 16;
+    private static final double FRAME_MS = 1000.0 / 60.0;
+
+    public static void main(String[] args) {
+        int[] populations = args.length > 0 ? parse(args) : new int[]{2_000, 20_000, 100_000, 130_000};
+        System.out.printf(Locale.ROOT, "%-8s %10s %12s %14s %10s%n", "impl", "particulas", "ms/tick", "bytes/tick", "% quadro");
+        for (int n : populations) {
+            // O caminho antigo é O(n²) nas remoções; com populações grandes, mede menos ticks
+            int legacyTicks = n > 20_000 ? 30 : 300;
+            report("antigo", n, run(new Legacy(), n, 30, legacyTicks));
+            report("soa", n, run(new Soa(n), n, 300, 600));
+        }
+    }
+
+    private interface Impl {
+        void spawn(Random rng, int count);
+        void update();
+        int size();
+    }
+
+    private static double[] run(Impl impl, int population, int warmup, int ticks) {
+        Random rng = new Random(1);
+        // Cada partícula vive ~LIFE ticks: repor população/LIFE por tick mantém o total estável
+        int perTick = Math.max(1, population / LIFE);
+        for (int i = 0; i < warmup; i++) {
+            impl.spawn(rng, perTick);
+            impl.update();
+        }
+        long bytes0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            impl.spawn(rng, perTick);
+            impl.update();
+        }
+        long elapsed = System.nanoTime() - t0;
+        long bytes = allocatedBytes() - bytes0;
+        return new double[]{elapsed / 1e6 / ticks, bytes < 0 ? -1 : bytes / (double) ticks, impl.size()};
+    }
+
+    private static void report(String name, int population, double[] r) {
+        System.out.printf(Locale.ROOT, "%-8s %10d %12.3f %14.0f %9.1f%%%n",
+                name, (int) r[2], r[0], r[1], 100.0 * r[0] / FRAME_MS);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+
+    // Réplica da partícula antiga do GamePanel
+    private static final class Legacy implements Impl {
+        private static final class Particle {
+            double x, y, vx, vy;
+            float size;
+            int life, lifeMax;
+            Color color;
+            boolean dead;
+
+            Particle(double x, double y, double vx, double vy, float size, int life, Color color) {
+                this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.size = size; this.life = life; this.lifeMax = life; this.color = color;
+            }
+
+            void update() {
+                x += vx; y += vy;
+                vy *= 0.98; vx *= 0.98;
+                size *= 0.98f;
+                if (--life <= 0 || size < 0.5f) dead = true;
+            }
+        }
+
+        private final List<Particle> particles = new ArrayList<>();
+
+        @Override
+        public void spawn(Random rng, int count) {
+            for (int i = 0; i < count; i++) {
+                Color c = new Color(200 + rng.nextInt(55), 200, 210);
+                particles.add(new Particle(rng.nextDouble() * 2000, rng.nextDouble() * 1500,
+                        rng.nextDouble() - 0.5, rng.nextDouble() - 0.5, 2.5f, LIFE, c));
+            }
+        }
+
+        @Override
+        public void update() {
+            Iterator<Particle> it = particles.iterator();
+            while (it.hasNext()) {
+                Particle p = it.next();
+                p.update();
+                if (p.dead) it.remove();
+            }
+        }
+
+        @Override
+        public int size() { return particles.size(); }
+    }
+
+    private static final class Soa implements Impl {
+        private final ParticleStore particles;
+        private final ParticleSystem system;
+
+        Soa(int population) {
+            int budget = population + population / LIFE + 1;
+            EntityRegistry registry = new EntityRegistry(budget);
+            particles = registry.register(new ParticleStore(registry, budget));
+            system = new ParticleSystem(particles);
+        }
+
+        @Override
+        public void spawn(Random rng, int count) {
+            for (int i = 0; i < count; i++) {
+                int argb = 0xFF000000 | (200 + rng.nextInt(55)) << 16 | 200 << 8 | 210;
+                particles.spawn(rng.nextDouble() * 2000, rng.nextDouble() * 1500,
+                        rng.nextDouble() - 0.5, rng.nextDouble() - 0.5, 2.5f, LIFE, argb);
+            }
+        }
+
+        @Override
+        public void update() { system.update(); }
+
+        @Override
+        public int size() { return particles.size(); }
+    }
+}
@@ -0,0 +1,217 @@
+package com.echorun.tools;
+
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.RoomGraph;
+import com.echorun.nav.HierarchicalPathfinder;
+import com.echorun.nav.TilePath;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Caminhos longos em mapas grandes: {@link HierarchicalPathfinder} (grafo de salas, com o
+ * cache de trechos frio e depois quente) contra A* por tiles, nos mesmos pares de pontos
+ * distantes; depois, com o cache de rotas, pares com as pontas em outros tiles das mesmas
+ * regiões (vários perseguidores de uma sala até o jogador). Mostra o tempo de montar o
+ * {@link RoomGraph}, o custo por consulta e quanto o caminho fica mais longo que o ótimo.
+ * Confere que cada caminho começa e termina nos pontos pedidos, anda de tile vizinho em tile
+ * vizinho só por tiles andáveis e existe sempre que o A* acha um (sai com 1 se não).
+ *
+ * <pre>./scripts/tool.sh PathfindingBenchmark [lado...]</pre>
+ */
+public class PathfindingBenchmark {
+    private static final int PAIRS = 200;
+
+    public static void main(String[] args) {
+        int[] sides = args.length > 0 ? parse(args) : new int[]{256, 512, 1024, 2048};
+        int failures = 0;
+        System.out.printf(Locale.ROOT, "%-10s %9s %7s %8s %9s %10s %10s %10s %9s %8s %11s %8s%n",
+                "mapa", "grafo ms", "nós", "arestas", "A* ms", "frio ms", "quente ms", "expandidos", "ganho", "+passos",
+                "rota ms", "+passos");
+        for (int side : sides) {
+            DungeonMap map = new DungeonGenerator(side, side, 24, 33L).setRoomAttempts(side * side / 100).generate();
+            long g0 = System.nanoTime();
+            RoomGraph graph = map.getRoomGraph();
+            double graphMs = (System.nanoTime() - g0) / 1e6;
+
+            Random rng = new Random(side);
+            int[] pairs = farPairs(map, rng);
+            int[] nearby = samePairRegions(map, graph, pairs, rng);
+            HierarchicalPathfinder hpa = new HierarchicalPathfinder(map).setRouteCache(false);
+            GridAStar astar = new GridAStar(map);
+            TilePath path = new TilePath();
+
+            // A* de referência (comprimentos ótimos)
+            int[] optimal = new int[PAIRS], optimalNearby = new int[PAIRS];
+            long a0 = System.nanoTime();
+            for (int i = 0; i < PAIRS; i++) optimal[i] = astar.length(pairs[4 * i], pairs[4 * i + 1], pairs[4 * i + 2], pairs[4 * i + 3]);
+            double astarMs = (System.nanoTime() - a0) / 1e6 / PAIRS;
+            for (int i = 0; i < PAIRS; i++) {
+                optimalNearby[i] = astar.length(nearby[4 * i], nearby[4 * i + 1], nearby[4 * i + 2], nearby[4 * i + 3]);
+            }
+
+            // Exato: cache de trechos frio, depois quente (mesmos pares)
+            long[] stats = new long[3];
+            double coldMs = run(hpa, map, pairs, optimal, path, stats);
+            failures += (int) stats[2];
+            long expanded = stats[0], extra = stats[1];
+            double warmMs = run(hpa, map, pairs, optimal, path, new long[3]);
+
+            // Rotas por par de regiões: outros tiles nas mesmas regiões das pontas
+            hpa.setRouteCache(true);
+            run(hpa, map, pairs, optimal, path, new long[3]);
+            long[] routeStats = new long[3];
+            double routeMs = run(hpa, map, nearby, optimalNearby, path, routeStats);
+            failures += (int) routeStats[2];
+
+            System.out.printf(Locale.ROOT, "%-10s %9.1f %7d %8d %9.3f %10.3f %10.4f %10d %8.0fx %7.1f%% %11.4f %7.1f%%%n",
+                    side + "x" + side, graphMs, graph.getNodeCount(), graph.getEdgeCount(), astarMs, coldMs, warmMs,
+                    expanded / PAIRS, astarMs / warmMs, percent(extra, optimal), routeMs, percent(routeStats[1], optimalNearby));
+        }
+        System.out.println(failures == 0 ? "caminhos válidos: ok" : "caminhos inválidos: " + failures);
+        if (failures > 0) System.exit(1);
+    }
+
+    /** Roda os pares e devolve ms por consulta; {@code stats}: nós expandidos, passos a mais e falhas. */
+    private static double run(HierarchicalPathfinder hpa, DungeonMap map, int[] pairs, int[] optimal, TilePath path, long[] stats) {
+        long elapsed = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            int sx = pairs[4 * i], sy = pairs[4 * i + 1], tx = pairs[4 * i + 2], ty = pairs[4 * i + 3];
+            long q0 = System.nanoTime();
+            boolean found = hpa.findPath(sx, sy, tx, ty, path);
+            elapsed += System.nanoTime() - q0;
+            stats[0] += hpa.getLastExpanded();
+            if (found != (optimal[i] >= 0) || (found && !valid(map, path, sx, sy, tx, ty))) stats[2]++;
+            if (found) stats[1] += path.steps() - optimal[i];
+        }
+        return elapsed / 1e6 / PAIRS;
+    }
+
+    private static double percent(long extra, int[] optimal) {
+        long total = 0;
+        for (int d : optimal) if (d > 0) total += d;
+        return total == 0 ? 0 : 100.0 * extra / total;
+    }
+
+    /** Para cada par, outro par com as pontas sorteadas nas mesmas regiões. */
+    private static int[] samePairRegions(DungeonMap map, RoomGraph graph, int[] pairs, Random rng) {
+        int[] out = pairs.clone();
+        for (int i = 0; i < PAIRS * 2; i++) {
+            int x = pairs[2 * i], y = pairs[2 * i + 1], region = graph.regionAt(x, y);
+            int x0 = graph.regionX0(region), y0 = graph.regionY0(region);
+            int w = graph.regionX1(region) - x0 + 1, h = graph.regionY1(region) - y0 + 1;
+            for (int tries = 0; tries < 64; tries++) {
+                int nx = x0 + rng.nextInt(w), ny = y0 + rng.nextInt(h);
+                if (graph.regionAt(nx, ny) == region) {
+                    out[2 * i] = nx;
+                    out[2 * i + 1] = ny;
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Pares de tiles andáveis a mais de meio mapa de distância (Manhattan). */
+    private static int[] farPairs(DungeonMap map, Random rng) {
+        int side = map.getWidth();
+        int[] pairs = new int[PAIRS * 4];
+        for (int i = 0; i < PAIRS; ) {
+            int sx = rng.nextInt(side), sy = rng.nextInt(side), tx = rng.nextInt(side), ty = rng.nextInt(side);
+            if (!map.isWalkable(sx, sy) || !map.isWalkable(tx, ty)) continue;
+            if (Math.abs(sx - tx) + Math.abs(sy - ty) < side / 2) continue;
+            pairs[4 * i] = sx; pairs[4 * i + 1] = sy; pairs[4 * i + 2] = tx; pairs[4 * i + 3] = ty;
+            i++;
+        }
+        return pairs;
+    }
+
+    private static boolean valid(DungeonMap map, TilePath path, int sx, int sy, int tx, int ty) {
+        int n = path.size();
+        if (n == 0 || path.x(0) != sx || path.y(0) != sy || path.x(n - 1) != tx || path.y(n - 1) != ty) return false;
+        for (int i = 0; i < n; i++) {
+            if (!map.isWalkable(path.x(i), path.y(i))) return false;
+            if (i > 0 && Math.abs(path.x(i) - path.x(i - 1)) + Math.abs(path.y(i) - path.y(i - 1)) != 1) return false;
+        }
+        return true;
+    }
+
+    /** A* por tiles (vizinhança de 4, Manhattan), com vetores reaproveitados e heap de longs. */
+    private static final class GridAStar {
+        private final DungeonMap map;
+        private final int width;
+        private final int[] g, stamp;
+        private long[] heap = new long[1024];
+        private int size, epoch;
+
+        GridAStar(DungeonMap map) {
+            this.map = map;
+            this.width = map.getWidth();
+            this.g = new int[map.getWidth() * map.getHeight()];
+            this.stamp = new int[g.length];
+        }
+
+        int length(int sx, int sy, int tx, int ty) {
+            epoch++;
+            size = 0;
+            int start = sy * width + sx;
+            stamp[start] = epoch;
+            g[start] = 0;
+            push((long) manhattan(sx, sy, tx, ty) << 32 | start);
+            while (size > 0) {
+                long top = pop();
+                int i = (int) top;
+                int x = i % width, y = i / width;
+                if (x == tx && y == ty) return g[i];
+                if ((int) (top >>> 32) - manhattan(x, y, tx, ty) > g[i]) continue; // entrada velha
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + (d == 0 ? 1 : d == 1 ? -1 : 0), ny = y + (d == 2 ? 1 : d == 3 ? -1 : 0);
+                    if (!map.isWalkable(nx, ny)) continue;
+                    int j = ny * width + nx, cost = g[i] + 1;
+                    if (stamp[j] != epoch || cost < g[j]) {
+                        stamp[j] = epoch;
+                        g[j] = cost;
+                        push((long) (cost + manhattan(nx, ny, tx, ty)) << 32 | j);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void push(long v) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0 && heap[(i - 1) >>> 1] > v) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = v;
+        }
+
+        private long pop() {
+            long top = heap[0], v = heap[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int c = 2 * i + 1;
+                if (c + 1 < size && heap[c + 1] < heap[c]) c++;
+                if (v <= heap[c]) break;
+                heap[i] = heap[c];
+                i = c;
+            }
+            heap[i] = v;
+            return top;
+        }
+
+        private static int manhattan(int x0, int y0, int x1, int y1) {
+            return Math.abs(x0 - x1) + Math.abs(y0 - y1);
+        }
+    }
+
+    private static int[] parse(String[] args) {
+        int[] r = new int[args.length];
+        for (int i = 0; i < args.length; i++) r[i] = Integer.parseInt(args[i]);
+        return r;
+    }
+}
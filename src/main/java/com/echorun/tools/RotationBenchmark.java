@@ -0,0 +1,91 @@
+package com.echorun.tools;
+
+import com.echorun.render.CompatibleImages;
+import com.echorun.render.RotationCache;
+import com.echorun.render.WeaponShapes;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Custo de desenhar muitos projéteis girados por quadro: o caminho antigo (transformação +
+ * polígonos por entidade) contra o {@link RotationCache} (um drawImage sem transformação).
+ *
+ * <pre>./scripts/tool.sh RotationBenchmark [projeteis] [quadros]</pre>
+ */
+public class RotationBenchmark {
+    private static final double FRAME_MS = 1000.0 / 60.0;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+        int w = 1280, h = 720;
+
+        // Posições, ângulos e tipos fixos para os dois caminhos desenharem a mesma cena
+        Random rng = new Random(3);
+        int[] xs = new int[count], ys = new int[count], radius = new int[count];
+        double[] ang = new double[count];
+        boolean[] arrow = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = rng.nextInt(w);
+            ys[i] = rng.nextInt(h);
+            ang[i] = rng.nextDouble() * Math.PI * 2;
+            arrow[i] = rng.nextBoolean();
+            radius[i] = arrow[i] ? 4 : 3;
+        }
+
+        BufferedImage target = CompatibleImages.createOpaque(w, h);
+        WeaponShapes shapes = new WeaponShapes();
+        RotationCache cache = new RotationCache((g, v) -> {
+            if (v >>> 16 == 0) shapes.paintArrow(g, v & 0xFFFF); else shapes.paintDagger(g, v & 0xFFFF);
+        }, 1L << 21);
+
+        Scene legacy = g -> {
+            for (int i = 0; i < count; i++) {
+                AffineTransform old = g.getTransform();
+                g.translate(xs[i], ys[i]);
+                g.rotate(ang[i]);
+                if (arrow[i]) shapes.paintArrow(g, radius[i]); else shapes.paintDagger(g, radius[i]);
+                g.setTransform(old);
+            }
+        };
+        Scene cached = g -> {
+            for (int i = 0; i < count; i++) {
+                if (arrow[i]) cache.draw(g, radius[i], WeaponShapes.arrowExtent(radius[i]), ang[i], xs[i], ys[i]);
+                else cache.draw(g, 1 << 16 | radius[i], WeaponShapes.daggerExtent(radius[i]), ang[i], xs[i], ys[i]);
+            }
+        };
+
+        System.out.printf(Locale.ROOT, "%d projeteis, %dx%d, %d quadros%n", count, w, h, frames);
+        System.out.printf(Locale.ROOT, "%-10s %12s %10s%n", "caminho", "ms/quadro", "% quadro");
+        report("antigo", legacy, target, frames);
+        report("cache", cached, target, frames);
+        System.out.printf(Locale.ROOT, "cache: %d variantes, %d quadros gerados%n", cache.variantCount(), cache.getFramesRendered());
+    }
+
+    private interface Scene {
+        void draw(Graphics2D g);
+    }
+
+    private static void report(String name, Scene scene, BufferedImage target, int frames) {
+        run(scene, target, Math.max(5, frames / 4)); // aquecimento
+        double ms = run(scene, target, frames) / 1e6 / frames;
+        System.out.printf(Locale.ROOT, "%-10s %12.2f %9.1f%%%n", name, ms, 100.0 * ms / FRAME_MS);
+    }
+
+    private static long run(Scene scene, BufferedImage target, int frames) {
+        long t0 = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            Graphics2D g = target.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.DARK_GRAY);
+            g.fillRect(0, 0, target.getWidth(), target.getHeight());
+            scene.draw(g);
+            g.dispose();
+        }
+        return System.nanoTime() - t0;
+    }
+}
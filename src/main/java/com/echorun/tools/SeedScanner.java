@@ -0,0 +1,289 @@
+package com.echorun.tools;
+
+import com.echorun.map.DistanceField;
+import com.echorun.map.DungeonGenerator;
+import com.echorun.map.DungeonMap;
+import com.echorun.map.Tile;
+import com.echorun.map.TileGrid;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Varre faixas de seeds do {@link DungeonGenerator} em todos os núcleos e grava as que passam
+ * nos critérios pedidos, à medida que aparecem. Cada thread tem o seu gerador, grade de tiles
+ * e buffers da busca em largura, reaproveitados de seed em seed (sem alocar mapas). Mostra a
+ * vazão a cada segundo e no fim.
+ *
+ * <pre>
+ * ./scripts/tool.sh SeedScanner --from=0 --count=1000000 --out=seeds.txt \
+ *      --min-rooms=12 --min-reachable=1.0 --stairs-reachable --min-corridor=400
+ * </pre>
+ *
+ * Critérios: {@code --min-rooms}/{@code --max-rooms} (salas), {@code --min-reachable} (fração
+ * dos tiles andáveis alcançável do ponto de partida), {@code --stairs-reachable} (escada
+ * alcançável), {@code --min-corridor}/{@code --max-corridor} (tiles andáveis fora das salas).
+ * Os dois de alcance acham o ponto de partida como o jogo, pelo campo de distância da seed,
+ * e são os mais caros (o campo custa várias vezes a geração).
+ * Por padrão gera como os andares do jogo (100x70, com escada); {@code --width}/{@code --height}
+ * mudam o tamanho. Novos critérios são um {@link Criterion} a mais em {@link #parse}.
+ */
+public class SeedScanner {
+    /** Critério sobre um mapa gerado; os dados derivados são calculados sob demanda. */
+    public interface Criterion {
+        boolean test(Sample s);
+    }
+
+    /** Mapa da seed atual, com medidas calculadas uma vez por seed e buffers por thread. */
+    public static final class Sample {
+        final int width, height;
+        final DungeonGenerator generator;
+        final byte[] tiles;
+        private final int[] queue;
+        private final int[] visitedStamp;
+        private int stamp;
+        // Campo de distância sobre a própria grade, refeito só quando a seed pede a partida
+        private final DistanceField field;
+        private final int[] spawn = new int[2];
+
+        long seed;
+        List<DungeonGenerator.Room> rooms;
+        private int walkable = -1, reached = -1, corridor = -1;
+        private boolean stairsReached;
+
+        Sample(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.generator = new DungeonGenerator(width, height, TILE_SIZE, 0L).setStairs(true);
+            this.tiles = new byte[width * height];
+            this.queue = new int[width * height];
+            this.visitedStamp = new int[width * height];
+            this.field = DistanceField.build(new Grid());
+        }
+
+        void generate(long seed) {
+            this.seed = seed;
+            rooms = generator.reset(seed).carve(tiles);
+            walkable = reached = corridor = -1;
+        }
+
+        public long seed() { return seed; }
+        public int roomCount() { return rooms.size(); }
+
+        public int walkableCount() {
+            if (walkable < 0) {
+                int n = 0;
+                for (byte t : tiles) if (t != WALL) n++;
+                walkable = n;
+            }
+            return walkable;
+        }
+
+        /** Tiles andáveis fora das salas (corredores e portas). */
+        public int corridorTiles() {
+            if (corridor < 0) {
+                int inRooms = 0;
+                for (DungeonGenerator.Room r : rooms) inRooms += r.w * r.h;
+                corridor = walkableCount() - inRooms;
+            }
+            return corridor;
+        }
+
+        /** Fração dos tiles andáveis alcançável do ponto de partida do jogo. */
+        public double reachableFraction() {
+            flood();
+            return walkableCount() == 0 ? 0 : reached / (double) walkableCount();
+        }
+
+        public boolean stairsReachable() {
+            flood();
+            return stairsReached;
+        }
+
+        private void flood() {
+            if (reached >= 0) return;
+            reached = 0;
+            stairsReached = false;
+            int start = spawn();
+            if (start < 0) return;
+            // Carimbo por seed: o vetor de visitados não precisa ser limpo
+            if (++stamp == 0) {
+                Arrays.fill(visitedStamp, 0);
+                stamp = 1;
+            }
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            visitedStamp[start] = stamp;
+            while (head < tail) {
+                int i = queue[head++];
+                reached++;
+                if (tiles[i] == STAIRS) stairsReached = true;
+                int x = i % width;
+                if (x > 0) tail = visit(i - 1, tail);
+                if (x < width - 1) tail = visit(i + 1, tail);
+                if (i >= width) tail = visit(i - width, tail);
+                if (i + width < tiles.length) tail = visit(i + width, tail);
+            }
+        }
+
+        private int visit(int i, int tail) {
+            if (tiles[i] == WALL || visitedStamp[i] == stamp) return tail;
+            visitedStamp[i] = stamp;
+            queue[tail] = i;
+            return tail + 1;
+        }
+
+        /** Mesmo ponto de partida do jogo ({@link DistanceField#findSpawnTile}); -1 sem piso. */
+        private int spawn() {
+            field.rebuild();
+            return field.findSpawnTile(spawn) ? spawn[1] * width + spawn[0] : -1;
+        }
+
+        /** {@link TileGrid} sobre {@link #tiles}, para o campo de distância ler a seed atual. */
+        private final class Grid implements TileGrid {
+            @Override public int getTileSize() { return TILE_SIZE; }
+            @Override public boolean isBounded() { return true; }
+            @Override public int getWidth() { return width; }
+            @Override public int getHeight() { return height; }
+            @Override public boolean contains(int x, int y) { return x >= 0 && y >= 0 && x < width && y < height; }
+            @Override public Tile get(int x, int y) { return Tile.fromCode(getCode(x, y)); }
+            @Override public byte getCode(int x, int y) { return tiles[y * width + x]; }
+            @Override public boolean isWalkable(int tx, int ty) { return contains(tx, ty) && getCode(tx, ty) != WALL; }
+            @Override public boolean isSolid(int tx, int ty) { return !isWalkable(tx, ty); }
+
+            @Override
+            public boolean anySolid(int x0, int y0, int x1, int y1) {
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) if (isSolid(x, y)) return true;
+                }
+                return false;
+            }
+
+            @Override public float random01(int x, int y) { return DungeonMap.random01(seed, x, y); }
+        }
+    }
+
+    private static final byte WALL = Tile.WALL.code();
+    private static final byte STAIRS = Tile.STAIRS.code();
+    private static final int BATCH = 4096;
+    private static final int TILE_SIZE = 24;
+
+    public static void main(String[] args) throws Exception {
+        long from = 0, count = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int width = 100, height = 70;
+        String out = "seeds.txt";
+        List<Criterion> criteria = new ArrayList<>();
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "--from": from = Long.parseLong(value); break;
+                case "--count": count = Long.parseLong(value); break;
+                case "--threads": threads = Math.max(1, Integer.parseInt(value)); break;
+                case "--width": width = Integer.parseInt(value); break;
+                case "--height": height = Integer.parseInt(value); break;
+                case "--out": out = value; break;
+                default:
+                    Criterion c = parse(kv[0], value);
+                    if (c == null) {
+                        System.err.println("Argumento desconhecido: " + arg);
+                        System.exit(2);
+                    }
+                    criteria.add(c);
+            }
+        }
+
+        long end = from + count;
+        AtomicLong next = new AtomicLong(from);
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong matched = new AtomicLong();
+        int w = width, h = height;
+        long t0 = System.nanoTime();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> {
+                    Sample s = new Sample(w, h);
+                    long[] hits = new long[BATCH];
+                    // Lotes de seeds: pouca disputa no contador e uma escrita por lote
+                    for (long b = next.getAndAdd(BATCH); b < end; b = next.getAndAdd(BATCH)) {
+                        int n = 0;
+                        long batchEnd = Math.min(end, b + BATCH);
+                        for (long seed = b; seed < batchEnd; seed++) {
+                            s.generate(seed);
+                            if (matches(s, criteria)) hits[n++] = seed;
+                        }
+                        scanned.addAndGet(batchEnd - b);
+                        if (n > 0) {
+                            matched.addAndGet(n);
+                            write(writer, hits, n);
+                        }
+                    }
+                }, "SeedScan-" + t);
+                workers[t].start();
+            }
+            // Progresso a cada segundo enquanto os threads trabalham
+            for (Thread worker : workers) {
+                while (worker.isAlive()) {
+                    worker.join(1000);
+                    if (worker.isAlive()) progress(scanned.get(), count, matched.get(), t0);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "seeds=%d encontradas=%d tempo=%.2f s vazao=%.0f seeds/s (%d threads, %dx%d) -> %s%n",
+                scanned.get(), matched.get(), seconds, scanned.get() / seconds, threads, width, height, out);
+    }
+
+    /** Critério de linha de comando; null se a opção não for um critério. */
+    static Criterion parse(String option, String value) {
+        switch (option) {
+            case "--min-rooms": { int v = Integer.parseInt(value); return s -> s.roomCount() >= v; }
+            case "--max-rooms": { int v = Integer.parseInt(value); return s -> s.roomCount() <= v; }
+            case "--min-corridor": { int v = Integer.parseInt(value); return s -> s.corridorTiles() >= v; }
+            case "--max-corridor": { int v = Integer.parseInt(value); return s -> s.corridorTiles() <= v; }
+            case "--min-reachable": { double v = Double.parseDouble(value); return s -> s.reachableFraction() >= v; }
+            case "--stairs-reachable": return Sample::stairsReachable;
+            default: return null;
+        }
+    }
+
+    private static boolean matches(Sample s, List<Criterion> criteria) {
+        for (int i = 0, n = criteria.size(); i < n; i++) {
+            if (!criteria.get(i).test(s)) return false;
+        }
+        return true;
+    }
+
+    private static void write(BufferedWriter writer, long[] seeds, int n) {
+        synchronized (writer) {
+            try {
+                for (int i = 0; i < n; i++) {
+                    writer.write(Long.toString(seeds[i]));
+                    writer.newLine();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void progress(long scanned, long total, long matched, long t0) {
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf(Locale.ROOT, "  %5.1f%%  %d seeds  %d encontradas  %.0f seeds/s%n",
+                100.0 * scanned / total, scanned, matched, scanned / seconds);
+    }
+}
@@ -0,0 +1,113 @@
+package com.echorun.tools;
+
+import com.echorun.game.GameEngine;
+import com.echorun.map.StreamingDungeon;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Leva um observador em linha reta pela masmorra sem fim ({@link StreamingDungeon}), à
+ * velocidade do jogador, e mostra que pedaços carregados e heap ficam estáveis por mais
+ * longe que ele vá. Também confere a costura: em cada borda entre pedaços carregados, o
+ * tile de um lado é piso exatamente onde o do outro lado é.
+ *
+ * <p>Os ticks seguem o relógio como no jogo, {@code vezes} mais rápido que o tempo real (o
+ * gerador em segundo plano usa o intervalo entre eles); com 0, vão sem pausa, o que num núcleo
+ * só deixa o gerador para trás e mostra o pior caso das esperas. A primeira atualização, que
+ * gera os obrigatórios em volta do início, é mostrada à parte. O pior tempo de relógio inclui
+ * o thread da simulação parado enquanto o gerador roda (num núcleo só); o de CPU, não.
+ *
+ * <pre>./scripts/tool.sh StreamingWalk [pedacos] [seed] [vezes]</pre>
+ */
+public class StreamingWalk {
+    private static final int TILE = 24;
+    private static final double SPEED_PX = 4.0; // pixels por tick, ~ velocidade do jogador
+
+    public static void main(String[] args) throws InterruptedException {
+        int chunks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        double speedup = args.length > 2 ? Double.parseDouble(args[2]) : 100;
+        int n = StreamingDungeon.CHUNK_TILES;
+        long tickNs = speedup > 0 ? (long) (GameEngine.TICK_NS / speedup) : 0;
+
+        try (StreamingDungeon world = new StreamingDungeon(TILE, seed)) {
+            int ticks = (int) (chunks * n * TILE / SPEED_PX);
+            int reportEvery = ticks / 10;
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long worstNs = 0, worstCpuNs = 0, totalNs = 0, firstNs = 0;
+            int seamErrors = 0;
+            System.out.printf(Locale.ROOT, "%8s %10s %10s %8s %10s %10s%n",
+                    "pedaco", "carregados", "pendentes", "esperas", "gerados", "heap MB");
+            long start = System.nanoTime();
+            for (int i = 0; i <= ticks; i++) {
+                // Diagonal suave, para cruzar bordas nos dois eixos
+                int tx = (int) (i * SPEED_PX / TILE);
+                int ty = tx / 3;
+                long c0 = threads.getCurrentThreadCpuTime();
+                long t0 = System.nanoTime();
+                world.update(tx, ty);
+                long dt = System.nanoTime() - t0;
+                if (i == 0) {
+                    firstNs = dt;
+                } else {
+                    totalNs += dt;
+                    worstNs = Math.max(worstNs, dt);
+                    worstCpuNs = Math.max(worstCpuNs, threads.getCurrentThreadCpuTime() - c0);
+                }
+                if (i % reportEvery == 0) {
+                    seamErrors += checkSeams(world, Math.floorDiv(tx, n), Math.floorDiv(ty, n));
+                    System.out.printf(Locale.ROOT, "%8d %10d %10d %8d %10d %10.1f%n",
+                            tx / n, world.getLoadedCount(), world.getPendingCount(), world.getWaitCount(),
+                            world.getGeneratedCount(), usedHeapMb());
+                }
+                long next = start + (i + 1) * tickNs;
+                for (long left; (left = next - System.nanoTime()) > 0; ) LockSupport.parkNanos(left);
+            }
+            System.out.printf(Locale.ROOT, "ticks: %d a %s  primeira=%.2f ms (obrigatórios do início)%n", ticks,
+                    speedup > 0 ? String.format(Locale.ROOT, "%.0fx o tempo real", speedup) : "toda velocidade", firstNs / 1e6);
+            System.out.printf(Locale.ROOT, "update: media=%.2f us  pior=%.2f ms (cpu %.2f ms)  despejados=%d cancelados=%d%n",
+                    totalNs / 1e3 / ticks, worstNs / 1e6, worstCpuNs / 1e6, world.getEvictedCount(), world.getCancelledCount());
+            System.out.printf(Locale.ROOT, "costuras com erro: %d%n", seamErrors);
+            if (seamErrors > 0) System.exit(1);
+        }
+    }
+
+    /** Bordas entre os pedaços obrigatórios em volta de {@code (cx, cy)} com pisos desencontrados. */
+    private static int checkSeams(StreamingDungeon world, int cx, int cy) {
+        int n = StreamingDungeon.CHUNK_TILES;
+        int r = StreamingDungeon.REQUIRED_RADIUS;
+        int errors = 0;
+        for (int y = cy - r; y <= cy + r; y++) {
+            for (int x = cx - r; x <= cx + r; x++) {
+                int bx = x * n, by = y * n;
+                int portalsRight = 0, portalsDown = 0;
+                for (int k = 0; k < n; k++) {
+                    // Bordas direita e de baixo, só entre pedaços obrigatórios (sempre prontos)
+                    if (x < cx + r) {
+                        boolean a = world.isWalkable(bx + n - 1, by + k), b = world.isWalkable(bx + n, by + k);
+                        if (a != b) errors++;
+                        if (a && b) portalsRight++;
+                    }
+                    if (y < cy + r) {
+                        boolean a = world.isWalkable(bx + k, by + n - 1), b = world.isWalkable(bx + k, by + n);
+                        if (a != b) errors++;
+                        if (a && b) portalsDown++;
+                    }
+                }
+                if (x < cx + r && portalsRight == 0) errors++;
+                if (y < cy + r && portalsDown == 0) errors++;
+            }
+        }
+        return errors;
+    }
+
+    private static double usedHeapMb() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(20);
+        return (rt.totalMemory() - rt.freeMemory()) / 1e6;
+    }
+}